@@ -0,0 +1,67 @@
+package com.theratime.appointment.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * Actuator endpoint for {@link OutboxBackfillService} (basic auth, like the other non-public actuator endpoints):
+ * {@code POST /actuator/outboxbackfill} with a JSON body of {@code tenantId}, {@code from} and {@code to}
+ * (ISO-8601 local date-times, as stored), optional {@code source} ({@code appointments} or {@code outbox}),
+ * {@code afterId} (resume cursor), {@code maxId} (resume bound for {@code source=outbox}), {@code runId}
+ * (resumed run) and {@code ratePerSecond}; {@code GET} for progress; {@code DELETE} to cancel.
+ * Starting while a backfill runs returns 409.
+ */
+@Component
+@Endpoint(id = "outboxbackfill")
+@RequiredArgsConstructor
+public class OutboxBackfillEndpoint {
+
+    private final OutboxBackfillService backfillService;
+
+    @ReadOperation
+    public OutboxBackfillStatus status() {
+        return backfillService.status();
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Object> start(Long tenantId, String from, String to, @Nullable String source,
+                                             @Nullable Long afterId, @Nullable Long maxId, @Nullable String runId,
+                                             @Nullable Double ratePerSecond) {
+        try {
+            OutboxBackfillRequest request = OutboxBackfillRequest.builder()
+                    .tenantId(tenantId)
+                    .from(LocalDateTime.parse(from))
+                    .to(LocalDateTime.parse(to))
+                    .source(source != null
+                            ? OutboxBackfillRequest.Source.valueOf(source.trim().toUpperCase(Locale.ROOT))
+                            : OutboxBackfillRequest.Source.APPOINTMENTS)
+                    .afterId(afterId != null ? afterId : 0)
+                    .maxId(maxId)
+                    .runId(runId)
+                    .ratePerSecond(ratePerSecond)
+                    .build();
+            return new WebEndpointResponse<>(backfillService.start(request));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return new WebEndpointResponse<>(e.getMessage(), WebEndpointResponse.STATUS_BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            return new WebEndpointResponse<>(backfillService.status(), 409);
+        }
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<OutboxBackfillStatus> cancel() {
+        boolean cancelled = backfillService.cancel();
+        return new WebEndpointResponse<>(backfillService.status(),
+                cancelled ? WebEndpointResponse.STATUS_OK : WebEndpointResponse.STATUS_NOT_FOUND);
+    }
+}
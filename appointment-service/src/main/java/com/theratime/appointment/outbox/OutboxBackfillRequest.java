@@ -0,0 +1,45 @@
+package com.theratime.appointment.outbox;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * What to re-enqueue for one tenant. Rows are scanned in id order starting after {@code afterId}, so a stopped
+ * backfill resumes by passing the {@code cursor}, the {@code runId} and (for {@link Source#OUTBOX}) the
+ * {@code maxId} of its last status. The range is on appointment
+ * {@code start_time} for {@link Source#APPOINTMENTS} and on outbox {@code created_at} for {@link Source#OUTBOX}.
+ */
+@Value
+@Builder
+public class OutboxBackfillRequest {
+
+    public enum Source {
+        /** One event per appointment with its current state (see {@code OutboxService.enqueueSnapshot}). */
+        APPOINTMENTS,
+        /** Published or failed outbox rows again, with their original payload (see {@code OutboxService.requeue}). */
+        OUTBOX
+    }
+
+    Long tenantId;
+    @Builder.Default
+    Source source = Source.APPOINTMENTS;
+    LocalDateTime from;
+    LocalDateTime to;
+    @Builder.Default
+    long afterId = 0;
+    /**
+     * {@link Source#OUTBOX} only: highest outbox id to re-enqueue; null uses the highest id at start. Pass it when
+     * resuming so rows the earlier run inserted (created now, so possibly inside the range) are not requeued again.
+     */
+    Long maxId;
+    /**
+     * Id that makes the event ids of this run unique, so consumers deduping by event id do not skip them; null
+     * starts a new run with a random id. Pass it when resuming so a page enqueued again (e.g. the process died
+     * before its cursor was logged) is still deduped.
+     */
+    String runId;
+    /** Rows per second; null uses {@code app.outbox.backfill.default-rate-per-second}. */
+    Double ratePerSecond;
+}
@@ -0,0 +1,272 @@
+package com.theratime.appointment.outbox;
+
+import com.theratime.appointment.entity.Appointment;
+import com.theratime.appointment.entity.OutboxEntity;
+import com.theratime.appointment.repository.AppointmentRepository;
+import com.theratime.appointment.repository.OutboxRepository;
+import com.theratime.appointment.service.OutboxService;
+import com.theratime.security.ContextSnapshot;
+import com.theratime.security.TenantContext;
+import com.theratime.tenant.TenantRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Re-enqueues a tenant's events into the outbox so downstream state can be rebuilt after a consumer fix.
+ * Rows are read in id order, one page per transaction, at most {@code ratePerSecond} rows per second, and the
+ * backfill waits while the tenant already has {@code app.outbox.backfill.max-pending} PENDING rows so the
+ * {@link OutboxPublisher} is never flooded. One backfill runs at a time on a dedicated thread; the cursor in
+ * its status (also logged per page) resumes it after a cancel or restart. Each run has a run id that is part of the
+ * event ids it enqueues, so consumers deduping by event id process every run once.
+ */
+@Component
+@Slf4j
+public class OutboxBackfillService {
+
+    private final AppointmentRepository appointmentRepository;
+    private final OutboxRepository outboxRepository;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final TenantRegistry tenantRegistry;
+    private final int batchSize;
+    private final double defaultRatePerSecond;
+    private final double maxRatePerSecond;
+    private final long maxPending;
+    private final long pendingWaitMs;
+    private final ExecutorService executor;
+
+    private volatile Run current;
+
+    public OutboxBackfillService(AppointmentRepository appointmentRepository,
+                                 OutboxRepository outboxRepository,
+                                 OutboxService outboxService,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 TenantRegistry tenantRegistry,
+                                 @Value("${app.outbox.backfill.batch-size:200}") int batchSize,
+                                 @Value("${app.outbox.backfill.default-rate-per-second:100}") double defaultRatePerSecond,
+                                 @Value("${app.outbox.backfill.max-rate-per-second:1000}") double maxRatePerSecond,
+                                 @Value("${app.outbox.backfill.max-pending:1000}") long maxPending,
+                                 @Value("${app.outbox.interval-ms:5000}") long pendingWaitMs) {
+        this.appointmentRepository = appointmentRepository;
+        this.outboxRepository = outboxRepository;
+        this.outboxService = outboxService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.tenantRegistry = tenantRegistry;
+        this.batchSize = Math.max(batchSize, 1);
+        this.maxRatePerSecond = Math.max(maxRatePerSecond, 1);
+        this.defaultRatePerSecond = Math.min(Math.max(defaultRatePerSecond, 1), this.maxRatePerSecond);
+        this.maxPending = Math.max(maxPending, 1);
+        this.pendingWaitMs = Math.max(pendingWaitMs, 1);
+        // The run logs with the caller's MDC (correlation id); it sets the tenant itself.
+        this.executor = ContextSnapshot.propagating(Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-backfill");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * Starts a backfill in the background and returns its initial status.
+     *
+     * @throws IllegalArgumentException when the tenant or range is missing or invalid
+     * @throws IllegalStateException    when a backfill is already running
+     */
+    public synchronized OutboxBackfillStatus start(OutboxBackfillRequest request) {
+        validate(request);
+        Run running = current;
+        if (running != null && running.state == OutboxBackfillStatus.State.RUNNING) {
+            throw new IllegalStateException("An outbox backfill is already running");
+        }
+        double rate = request.getRatePerSecond() != null ? request.getRatePerSecond() : defaultRatePerSecond;
+        Run run = new Run(request, Math.min(Math.max(rate, 1), maxRatePerSecond));
+        current = run;
+        executor.execute(() -> execute(run));
+        return run.snapshot();
+    }
+
+    public OutboxBackfillStatus status() {
+        Run run = current;
+        return run != null ? run.snapshot() : OutboxBackfillStatus.idle();
+    }
+
+    /** Stops the running backfill after the page in progress; returns false if none is running. */
+    public boolean cancel() {
+        Run run = current;
+        if (run == null || run.state != OutboxBackfillStatus.State.RUNNING) {
+            return false;
+        }
+        run.cancelled = true;
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    private void validate(OutboxBackfillRequest request) {
+        if (request.getTenantId() == null) {
+            throw new IllegalArgumentException("tenantId is required");
+        }
+        if (!tenantRegistry.contains(request.getTenantId())) {
+            throw new IllegalArgumentException("Tenant " + request.getTenantId() + " is not registered");
+        }
+        if (request.getFrom() == null || request.getTo() == null || !request.getFrom().isBefore(request.getTo())) {
+            throw new IllegalArgumentException("from and to are required and from must be before to");
+        }
+        if (request.getSource() == null) {
+            throw new IllegalArgumentException("source is required");
+        }
+        if (request.getMaxId() != null && request.getSource() != OutboxBackfillRequest.Source.OUTBOX) {
+            throw new IllegalArgumentException("maxId only applies to source=outbox");
+        }
+    }
+
+    private void execute(Run run) {
+        OutboxBackfillRequest request = run.request;
+        log.info("Starting outbox backfill {}: {}", run.runId, request);
+        try {
+            TenantContext.setTenantId(request.getTenantId());
+            // Rows inserted by this backfill get higher ids and must not be picked up again; a resumed run keeps the
+            // bound of the run it continues.
+            if (request.getSource() == OutboxBackfillRequest.Source.OUTBOX) {
+                run.maxId = request.getMaxId() != null ? request.getMaxId() : outboxRepository.findMaxId();
+            }
+            long maxOutboxId = run.maxId;
+            int pageSize = (int) Math.min(batchSize, Math.ceil(run.ratePerSecond));
+            while (!run.cancelled && awaitOutboxCapacity(run)) {
+                long pageStartedAt = System.nanoTime();
+                Page page = transactionTemplate.execute(status -> enqueuePage(run, maxOutboxId, pageSize));
+                if (page == null || page.count() == 0) {
+                    break;
+                }
+                run.cursor = page.lastId();
+                run.enqueued.addAndGet(page.count());
+                meterRegistry.counter("outbox.backfill.enqueued", "source", request.getSource().name()).increment(page.count());
+                log.info("Outbox backfill tenant {} enqueued {} rows, cursor {}", request.getTenantId(), page.count(), page.lastId());
+                if (page.count() < pageSize) {
+                    break;
+                }
+                pace(run, pageStartedAt, page.count());
+            }
+            run.finish(run.cancelled ? OutboxBackfillStatus.State.CANCELLED : OutboxBackfillStatus.State.COMPLETED, null);
+        } catch (RuntimeException e) {
+            log.error("Outbox backfill failed at cursor {}: {}", run.cursor, e.getMessage(), e);
+            run.finish(OutboxBackfillStatus.State.FAILED, e.getMessage());
+        } finally {
+            TenantContext.clear();
+        }
+        log.info("Outbox backfill {}: enqueued={}, cursor={}", run.state, run.enqueued.get(), run.cursor);
+    }
+
+    /** Enqueues one page in the caller's transaction. */
+    private Page enqueuePage(Run run, long maxOutboxId, int pageSize) {
+        OutboxBackfillRequest request = run.request;
+        PageRequest pageRequest = PageRequest.of(0, pageSize);
+        long lastId = run.cursor;
+        int count = 0;
+        if (request.getSource() == OutboxBackfillRequest.Source.OUTBOX) {
+            List<OutboxEntity> rows = outboxRepository.findBackfillPage(run.cursor, maxOutboxId,
+                    request.getFrom(), request.getTo(), pageRequest);
+            for (OutboxEntity row : rows) {
+                outboxService.requeue(row, run.runId);
+                lastId = row.getId();
+                count++;
+            }
+        } else {
+            List<Appointment> rows = appointmentRepository.findBackfillPage(run.cursor,
+                    request.getFrom(), request.getTo(), pageRequest);
+            for (Appointment appointment : rows) {
+                outboxService.enqueueSnapshot(request.getTenantId(), appointment, run.runId);
+                lastId = appointment.getId();
+                count++;
+            }
+        }
+        return new Page(count, lastId);
+    }
+
+    /** Waits while the outbox already holds {@code maxPending} rows; false if cancelled meanwhile. */
+    private boolean awaitOutboxCapacity(Run run) {
+        while (outboxRepository.countByStatus(OutboxEntity.STATUS_PENDING) >= maxPending) {
+            if (!sleep(run, TimeUnit.MILLISECONDS.toNanos(pendingWaitMs))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Sleeps out the rest of the time {@code rows} may take at the run's rate. */
+    private void pace(Run run, long pageStartedAt, long rows) {
+        long budget = (long) (rows * TimeUnit.SECONDS.toNanos(1) / run.ratePerSecond);
+        sleep(run, pageStartedAt + budget - System.nanoTime());
+    }
+
+    /** Sleeps in short slices so a cancel takes effect quickly; false if cancelled or interrupted. */
+    private static boolean sleep(Run run, long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        long remaining;
+        while (!run.cancelled && (remaining = deadline - System.nanoTime()) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(100)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                run.cancelled = true;
+            }
+        }
+        return !run.cancelled;
+    }
+
+    private record Page(int count, long lastId) {
+    }
+
+    /** State of one backfill; written by the backfill thread and read by status calls. */
+    private static final class Run {
+        private final OutboxBackfillRequest request;
+        private final String runId;
+        private final double ratePerSecond;
+        private final Instant startedAt = Instant.now();
+        private final AtomicLong enqueued = new AtomicLong();
+        private volatile long cursor;
+        private volatile long maxId;
+        private volatile OutboxBackfillStatus.State state = OutboxBackfillStatus.State.RUNNING;
+        private volatile boolean cancelled;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        private Run(OutboxBackfillRequest request, double ratePerSecond) {
+            this.request = request;
+            this.runId = request.getRunId() != null ? request.getRunId() : UUID.randomUUID().toString();
+            this.ratePerSecond = ratePerSecond;
+            this.cursor = request.getAfterId();
+            this.maxId = request.getMaxId() != null ? request.getMaxId() : 0;
+        }
+
+        private void finish(OutboxBackfillStatus.State finalState, String failure) {
+            error = failure;
+            finishedAt = Instant.now();
+            state = finalState;
+        }
+
+        private OutboxBackfillStatus snapshot() {
+            return new OutboxBackfillStatus(state, request, runId, startedAt, finishedAt, cursor, maxId, enqueued.get(), error);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.theratime.appointment.outbox;
+
+import java.time.Instant;
+
+/**
+ * Progress of the current or last backfill, as returned by {@code GET /actuator/outboxbackfill}.
+ * {@code cursor} is the id of the last row enqueued; pass it as {@code afterId} to resume. {@code maxId} is the
+ * upper id bound of a {@code source=outbox} run (0 otherwise); pass it as {@code maxId} when resuming. {@code runId}
+ * is part of the event ids the run enqueues; pass it as {@code runId} when resuming.
+ */
+public record OutboxBackfillStatus(State state,
+                                   OutboxBackfillRequest request,
+                                   String runId,
+                                   Instant startedAt,
+                                   Instant finishedAt,
+                                   long cursor,
+                                   long maxId,
+                                   long enqueued,
+                                   String error) {
+
+    public enum State {
+        IDLE,
+        RUNNING,
+        COMPLETED,
+        CANCELLED,
+        FAILED
+    }
+
+    static OutboxBackfillStatus idle() {
+        return new OutboxBackfillStatus(State.IDLE, null, null, null, null, 0, 0, 0, null);
+    }
+}
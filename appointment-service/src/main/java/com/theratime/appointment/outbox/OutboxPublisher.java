@@ -4,19 +4,19 @@ import com.theratime.appointment.entity.OutboxEntity;
 import com.theratime.appointment.event.AppointmentEventPublisher;
 import com.theratime.appointment.repository.OutboxRepository;
 import com.theratime.security.TenantContext;
+import com.theratime.tenant.TenantRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
- * Polls outbox tables per tenant and publishes PENDING events to Kafka.
+ * Polls outbox tables of every registered tenant ({@link TenantRegistry}) and publishes PENDING events to Kafka.
  * Retries with backoff: increments attempt_count and last_attempt_at on failure; marks FAILED after max attempts.
  */
 @Component
@@ -26,23 +26,17 @@ public class OutboxPublisher {
 
     private final OutboxRepository outboxRepository;
     private final AppointmentEventPublisher eventPublisher;
-
-    @Value("${app.outbox.tenant-ids:1,2}")
-    private String tenantIdsConfig;
+    private final TenantRegistry tenantRegistry;
 
     @Value("${app.outbox.max-attempts:5}")
     private int maxAttempts;
 
     @Scheduled(fixedDelayString = "${app.outbox.interval-ms:5000}")
     public void publishPending() {
-        List<Long> tenantIds = Arrays.stream(tenantIdsConfig.split(","))
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .map(Long::parseLong)
-                .collect(Collectors.toList());
-        for (Long tenantId : tenantIds) {
+        for (Long tenantId : tenantRegistry.tenantIds()) {
             try {
                 TenantContext.setTenantId(tenantId);
+                MDC.put("tenantId", String.valueOf(tenantId));
                 List<OutboxEntity> pending = outboxRepository.findByStatusOrderByCreatedAtAsc(OutboxEntity.STATUS_PENDING);
                 for (OutboxEntity row : pending) {
                     if (row.getAttemptCount() != null && row.getAttemptCount() >= maxAttempts) {
@@ -68,6 +62,7 @@ public class OutboxPublisher {
                 }
             } finally {
                 TenantContext.clear();
+                MDC.remove("tenantId");
             }
         }
     }
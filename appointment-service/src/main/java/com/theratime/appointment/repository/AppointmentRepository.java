@@ -1,6 +1,7 @@
 package com.theratime.appointment.repository;
 
 import com.theratime.appointment.entity.Appointment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -46,4 +47,14 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
             AND a.endTime > :startTime
             """)
     int cancelAppointmentsInRange(Long therapistId, LocalDateTime startTime, LocalDateTime endTime);
+
+    /** Keyset page for outbox backfill: appointments starting in [from, to) with id after the cursor. */
+    @Query("""
+            SELECT a FROM Appointment a
+            WHERE a.id > :afterId
+            AND a.startTime >= :from
+            AND a.startTime < :to
+            ORDER BY a.id
+            """)
+    List<Appointment> findBackfillPage(Long afterId, LocalDateTime from, LocalDateTime to, Pageable page);
 }
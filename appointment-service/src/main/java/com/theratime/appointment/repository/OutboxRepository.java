@@ -1,11 +1,34 @@
 package com.theratime.appointment.repository;
 
 import com.theratime.appointment.entity.OutboxEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface OutboxRepository extends JpaRepository<OutboxEntity, Long> {
 
     List<OutboxEntity> findByStatusOrderByCreatedAtAsc(String status);
+
+    long countByStatus(String status);
+
+    @Query("SELECT COALESCE(MAX(o.id), 0) FROM OutboxEntity o")
+    long findMaxId();
+
+    /**
+     * Keyset page for outbox backfill: already published (or failed) rows created in [from, to) with id in
+     * (afterId, maxId]. The upper id bound keeps rows the backfill itself inserts out of the scan.
+     */
+    @Query("""
+            SELECT o FROM OutboxEntity o
+            WHERE o.id > :afterId
+            AND o.id <= :maxId
+            AND o.createdAt >= :from
+            AND o.createdAt < :to
+            AND o.status <> 'PENDING'
+            ORDER BY o.id
+            """)
+    List<OutboxEntity> findBackfillPage(Long afterId, long maxId, LocalDateTime from, LocalDateTime to, Pageable page);
 }
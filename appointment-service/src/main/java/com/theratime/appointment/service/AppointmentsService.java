@@ -20,6 +20,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 
 import static com.theratime.appointment.event.AppointmentEventPayload.EVENT_CANCELLED;
 import static com.theratime.appointment.event.AppointmentEventPayload.EVENT_CREATED;
@@ -35,6 +36,7 @@ public class AppointmentsService {
 
     private final CalendarBlockService calendarBlockService;
     private final UserService userService;
+    private final UserLookupClient userLookupClient;
     private final OutboxService outboxService;
 
     @Transactional(isolation = Isolation.SERIALIZABLE)
@@ -122,14 +124,15 @@ public class AppointmentsService {
     }
 
     private void validateUserAndTherapist(BookAppointmentRequest request, Long tenantId) {
-        userService.isUserPresent(request.getUserId());
-        String therapistRole = userService.getUserRole(request.getTherapistId());
-        if (!"THERAPIST".equals(therapistRole)) {
+        // Both lookups are in flight at once; a missing patient is still reported before the therapist.
+        CompletableFuture<UserSummary> patientLookup = userLookupClient.findUser(request.getUserId());
+        CompletableFuture<UserSummary> therapistLookup = userLookupClient.findUser(request.getTherapistId());
+        UserSummary patient = UserLookupClient.await(patientLookup);
+        UserSummary therapist = UserLookupClient.await(therapistLookup);
+        if (!"THERAPIST".equals(therapist.role())) {
             throw new BusinessException("Provided therapistId does not belong to a therapist");
         }
-        Long userTenantId = userService.getTenantId(request.getUserId());
-        Long therapistTenantId = userService.getTenantId(request.getTherapistId());
-        if (!tenantId.equals(userTenantId) || !tenantId.equals(therapistTenantId)) {
+        if (!tenantId.equals(patient.tenantId()) || !tenantId.equals(therapist.tenantId())) {
             throw new BusinessException("User and therapist must belong to the same practice (tenant)");
         }
     }
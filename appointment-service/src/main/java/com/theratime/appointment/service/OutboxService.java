@@ -1,8 +1,11 @@
 package com.theratime.appointment.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.theratime.appointment.entity.Appointment;
+import com.theratime.appointment.entity.AppointmentStatus;
 import com.theratime.appointment.entity.OutboxEntity;
 import com.theratime.appointment.event.AppointmentEventPayload;
 import com.theratime.appointment.repository.OutboxRepository;
@@ -26,7 +29,52 @@ public class OutboxService {
     private final ObjectMapper objectMapper;
 
     public void enqueueEvent(Long tenantId, Appointment appointment, String eventType) {
-        String eventId = UUID.randomUUID().toString();
+        enqueueEvent(tenantId, appointment, eventType, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Re-emits the current state of an appointment (backfill): {@code appointment.cancelled} for cancelled
+     * appointments, otherwise {@code appointment.created}. The event id is derived from the backfill run id and the
+     * appointment id: consumers that dedupe by event id process every backfill run once, and an appointment
+     * enqueued twice within one run (e.g. a page retried after a restart) is still deduped.
+     */
+    public void enqueueSnapshot(Long tenantId, Appointment appointment, String backfillRunId) {
+        String eventType = appointment.getStatus() == AppointmentStatus.CANCELLED
+                ? AppointmentEventPayload.EVENT_CANCELLED
+                : AppointmentEventPayload.EVENT_CREATED;
+        String eventId = "backfill-" + backfillRunId + "-" + appointment.getId();
+        enqueueEvent(tenantId, appointment, eventType, eventId);
+    }
+
+    /**
+     * Enqueues an already published outbox row again (backfill) with its original payload, except that the event
+     * id gets the suffix {@code -backfill-<backfillRunId>} so consumers that already processed the original event
+     * process it again, once per backfill run.
+     *
+     * @throws IllegalStateException when the stored payload is not a JSON object
+     */
+    public void requeue(OutboxEntity published, String backfillRunId) {
+        String payload;
+        try {
+            JsonNode node = objectMapper.readTree(published.getPayload());
+            if (!(node instanceof ObjectNode event)) {
+                throw new IllegalStateException("Outbox row " + published.getId() + " payload is not a JSON object");
+            }
+            event.put("eventId", event.path("eventId").asText() + "-backfill-" + backfillRunId);
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Outbox row " + published.getId() + " payload is not valid JSON", e);
+        }
+        outboxRepository.save(OutboxEntity.builder()
+                .tenantId(published.getTenantId())
+                .eventType(published.getEventType())
+                .payload(payload)
+                .status(OutboxEntity.STATUS_PENDING)
+                .attemptCount(0)
+                .build());
+    }
+
+    private void enqueueEvent(Long tenantId, Appointment appointment, String eventType, String eventId) {
         AppointmentEventPayload payload = AppointmentEventPayload.builder()
                 .eventId(eventId)
                 .eventType(eventType)
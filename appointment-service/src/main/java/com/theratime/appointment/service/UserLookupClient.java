@@ -0,0 +1,258 @@
+package com.theratime.appointment.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.theratime.exception.ResourceNotFoundException;
+import com.theratime.security.ContextSnapshot;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Non-blocking user-service lookups, so several users can be fetched concurrently (see
+ * {@link AppointmentsService#bookAppointment}). Uses the JDK {@link HttpClient} and the same {@code userServiceLookup}
+ * retry as {@link UserService}, its own {@code bookingUserLookup} circuit breaker, and a time limiter on each attempt. Errors are surfaced as
+ * {@link UserService} does: 4xx or an empty body as {@link ResourceNotFoundException}, 5xx as
+ * {@link HttpServerErrorException} and I/O failures as {@link ResourceAccessException}, so the configured
+ * {@code retry-exceptions} apply unchanged.
+ * <p>
+ * Within an attempt, {@link UserLookupLatency} may send a second (hedged) request when the first is slower than
+ * usual, taking whichever answers first, and ends the attempt with a {@link TimeoutException} after an adaptive
+ * timeout. The time limiter stays the hard upper bound.
+ * <p>
+ * Retries, hedges, deadlines and response handling run on the scheduler and HTTP client threads with the tenant,
+ * user and MDC of the thread that called {@link #findUser} (see {@link ContextSnapshot}).
+ */
+@Component
+public class UserLookupClient {
+
+    static final String INSTANCE = "userServiceLookup";
+    /** Booking's own breaker (same settings), so failing calendar or filter lookups do not open it. */
+    static final String CIRCUIT_BREAKER = "bookingUserLookup";
+
+    private static final TypeReference<Map<String, Object>> USER_TYPE = new TypeReference<>() {
+    };
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String userServiceBaseUrl;
+    private final Duration requestTimeout;
+    private final Retry retry;
+    private final CircuitBreaker circuitBreaker;
+    private final TimeLimiter timeLimiter;
+    private final UserLookupLatency latency;
+    private final ScheduledExecutorService scheduler;
+
+    @Autowired
+    public UserLookupClient(ObjectMapper objectMapper,
+                            UserLookupLatency latency,
+                            RetryRegistry retryRegistry,
+                            CircuitBreakerRegistry circuitBreakerRegistry,
+                            TimeLimiterRegistry timeLimiterRegistry,
+                            @Value("${user.service.url}") String userServiceBaseUrl,
+                            @Value("${rest.client.connect-timeout-ms:2000}") int connectTimeout,
+                            @Value("${rest.client.read-timeout-ms:2000}") int readTimeout) {
+        this(HttpClient.newBuilder().connectTimeout(Duration.ofMillis(connectTimeout)).build(), objectMapper,
+                userServiceBaseUrl, Duration.ofMillis(readTimeout), retryRegistry.retry(INSTANCE),
+                circuitBreakerRegistry.circuitBreaker(CIRCUIT_BREAKER), timeLimiterRegistry.timeLimiter(INSTANCE), latency,
+                Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "user-lookup-scheduler");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    UserLookupClient(HttpClient httpClient, ObjectMapper objectMapper, String userServiceBaseUrl,
+                     Duration requestTimeout, Retry retry, CircuitBreaker circuitBreaker, TimeLimiter timeLimiter,
+                     UserLookupLatency latency, ScheduledExecutorService scheduler) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.userServiceBaseUrl = userServiceBaseUrl;
+        this.requestTimeout = requestTimeout;
+        this.retry = retry;
+        this.circuitBreaker = circuitBreaker;
+        this.timeLimiter = timeLimiter;
+        this.latency = latency;
+        this.scheduler = scheduler;
+    }
+
+    /** Starts the lookup; the future fails with the exceptions described on the class. */
+    public CompletableFuture<UserSummary> findUser(Long userId) {
+        ContextSnapshot context = ContextSnapshot.capture();
+        // Retry around the circuit breaker around one time-limited attempt, as the annotations order them.
+        return Retry.decorateCompletionStage(retry, scheduler,
+                        CircuitBreaker.decorateCompletionStage(circuitBreaker,
+                                TimeLimiter.decorateCompletionStage(timeLimiter, scheduler, () -> fetch(userId, context))))
+                .get()
+                .toCompletableFuture();
+    }
+
+    /** Waits for a lookup started by {@link #findUser}, rethrowing its failure unwrapped. */
+    public static <T> T await(CompletableFuture<T> lookup) {
+        try {
+            return lookup.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof TimeoutException) {
+                throw new ResourceAccessException("User service lookup timed out: " + cause.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * One attempt: the request, maybe a hedge, and whichever answers first. Retries call it on the scheduler, so the
+     * caller's {@code context} is passed in and handed to every task and callback it starts.
+     */
+    private CompletableFuture<UserSummary> fetch(Long userId, ContextSnapshot context) {
+        Attempt attempt = new Attempt();
+        latency.onRequest();
+        send(userId, attempt, false, context);
+        Duration hedgeDelay = latency.hedgeDelay();
+        if (hedgeDelay != null) {
+            ScheduledFuture<?> hedge = scheduler.schedule(context.wrap(() -> {
+                // Counted before the checks, so a request failing meanwhile waits for this decision.
+                attempt.outstanding.incrementAndGet();
+                if (attempt.result.isDone() || !latency.tryAcquireHedge()) {
+                    attempt.fail(null);
+                    return;
+                }
+                send(userId, attempt, true, context);
+            }), hedgeDelay.toNanos(), TimeUnit.NANOSECONDS);
+            attempt.result.whenComplete((user, error) -> hedge.cancel(false));
+        }
+        Duration timeout = latency.attemptTimeout();
+        ScheduledFuture<?> deadline = scheduler.schedule(context.wrap(() -> {
+            attempt.result.completeExceptionally(
+                    new TimeoutException("User lookup for " + userId + " took longer than " + timeout.toMillis() + " ms"));
+        }), timeout.toNanos(), TimeUnit.NANOSECONDS);
+        attempt.result.whenComplete((user, error) -> deadline.cancel(false));
+        return attempt.result;
+    }
+
+    private void send(Long userId, Attempt attempt, boolean hedged, ContextSnapshot context) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(userServiceBaseUrl + "/user/" + userId))
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        long startedAt = System.nanoTime();
+        // Completing the attempt runs the retry, circuit breaker and caller stages on this thread, in the context.
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+            try (ContextSnapshot.Scope ignored = context.open()) {
+                onResponse(userId, attempt, hedged, startedAt, response, error);
+            }
+        });
+    }
+
+    private void onResponse(Long userId, Attempt attempt, boolean hedged, long startedAt,
+                            HttpResponse<String> response, Throwable error) {
+        try {
+            if (error != null) {
+                throw toClientException(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            }
+            latency.record(System.nanoTime() - startedAt);
+            if (attempt.result.complete(toUser(userId, response)) && hedged) {
+                latency.onHedgeWon();
+            }
+        } catch (RuntimeException e) {
+            attempt.fail(e);
+        }
+    }
+
+    private UserSummary toUser(Long userId, HttpResponse<String> response) {
+        int status = response.statusCode();
+        if (status >= 400 && status < 500) {
+            throw new ResourceNotFoundException("User with ID " + userId + " does not exist");
+        }
+        if (status >= 500) {
+            throw HttpServerErrorException.create(HttpStatusCode.valueOf(status), "User service returned " + status,
+                    null, response.body() == null ? null : response.body().getBytes(StandardCharsets.UTF_8),
+                    StandardCharsets.UTF_8);
+        }
+        Map<String, Object> user;
+        try {
+            user = response.body() == null || response.body().isBlank()
+                    ? null : objectMapper.readValue(response.body(), USER_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new ResourceAccessException("Unreadable user-service response for user " + userId, e);
+        }
+        if (user == null) {
+            throw new ResourceNotFoundException("User with ID " + userId + " does not exist");
+        }
+        return UserSummary.of(userId, user);
+    }
+
+    private static RuntimeException toClientException(Throwable error) {
+        if (error instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (error instanceof IOException io) {
+            return new ResourceAccessException("I/O error calling user service: " + io.getMessage(), io);
+        }
+        return new ResourceAccessException("Error calling user service: " + error.getMessage());
+    }
+
+    /**
+     * The result of one attempt and the requests it has in flight. It fails with the last error once none are left,
+     * or at once on "not found". The exception itself is used rather than a CompletionException, so retry and
+     * circuit breaker see it.
+     */
+    private static final class Attempt {
+
+        private final CompletableFuture<UserSummary> result = new CompletableFuture<>();
+        private final AtomicInteger outstanding = new AtomicInteger(1);
+        private final AtomicReference<RuntimeException> lastError = new AtomicReference<>();
+
+        /** One request ended with {@code error}, or a hedge was not sent ({@code null}). */
+        void fail(RuntimeException error) {
+            if (error != null) {
+                lastError.set(error);
+            }
+            if (outstanding.decrementAndGet() == 0 || error instanceof ResourceNotFoundException) {
+                RuntimeException last = lastError.get();
+                if (last != null) {
+                    result.completeExceptionally(last);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.theratime.appointment.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of recent user-service responses, used by {@link UserLookupClient} to hedge and to size attempt timeouts.
+ * Keeps the last {@code app.user-lookup.window-size} response times; once {@code min-samples} are in:
+ * <ul>
+ *     <li>a second request is sent when the first has not answered after the window's {@code hedge.percentile}
+ *     (at least {@code hedge.min-delay-ms}), limited to {@code hedge.max-rate} of requests;</li>
+ *     <li>each attempt times out after {@code timeout.multiplier} times the window's p99, between
+ *     {@code timeout.min-ms} and {@code rest.client.read-timeout-ms}.</li>
+ * </ul>
+ * Until then (or with {@code hedge.enabled} / {@code timeout.adaptive} off) there is no hedging and attempts get the
+ * full read timeout.
+ * <p>
+ * Metrics: {@code user.lookup.latency} (timer), {@code user.lookup.requests}, {@code .hedges}, {@code .hedge.wins},
+ * {@code .hedges.throttled} (counters), {@code user.lookup.hedge.delay} and {@code user.lookup.attempt.timeout}
+ * (gauges, ms). Hedge rate is {@code hedges / requests}.
+ */
+@Component
+public class UserLookupLatency {
+
+    /** Percentiles are recomputed after this many new samples rather than on every response. */
+    private static final int RECOMPUTE_EVERY = 16;
+    /** At most this many unused hedges accumulate, so a quiet period cannot fund a burst of hedges. */
+    private static final double MAX_HEDGE_TOKENS = 10;
+
+    private final long[] samples;
+    private final int minSamples;
+    private final boolean hedgeEnabled;
+    private final double hedgePercentile;
+    private final long minHedgeDelayNanos;
+    private final double maxHedgeRate;
+    private final boolean adaptiveTimeout;
+    private final double timeoutMultiplier;
+    private final long minTimeoutNanos;
+    private final long maxTimeoutNanos;
+    private final Timer latency;
+    private final Counter requests;
+    private final Counter hedges;
+    private final Counter hedgeWins;
+    private final Counter hedgesThrottled;
+
+    private int count;
+    private int next;
+    private int sinceRecompute;
+    private double hedgeTokens = MAX_HEDGE_TOKENS;
+    private volatile long hedgePercentileNanos = -1;
+    private volatile long p99Nanos = -1;
+
+    @Autowired
+    public UserLookupLatency(MeterRegistry meterRegistry,
+                             @Value("${app.user-lookup.window-size:500}") int windowSize,
+                             @Value("${app.user-lookup.min-samples:50}") int minSamples,
+                             @Value("${app.user-lookup.hedge.enabled:false}") boolean hedgeEnabled,
+                             @Value("${app.user-lookup.hedge.percentile:0.95}") double hedgePercentile,
+                             @Value("${app.user-lookup.hedge.min-delay-ms:20}") long minHedgeDelayMs,
+                             @Value("${app.user-lookup.hedge.max-rate:0.1}") double maxHedgeRate,
+                             @Value("${app.user-lookup.timeout.adaptive:false}") boolean adaptiveTimeout,
+                             @Value("${app.user-lookup.timeout.multiplier:3}") double timeoutMultiplier,
+                             @Value("${app.user-lookup.timeout.min-ms:250}") long minTimeoutMs,
+                             @Value("${rest.client.read-timeout-ms:2000}") long maxTimeoutMs) {
+        this.samples = new long[Math.max(windowSize, 1)];
+        this.minSamples = Math.min(Math.max(minSamples, 1), samples.length);
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgePercentile = Math.min(Math.max(hedgePercentile, 0), 1);
+        this.minHedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(minHedgeDelayMs);
+        this.maxHedgeRate = Math.max(maxHedgeRate, 0);
+        this.adaptiveTimeout = adaptiveTimeout;
+        this.timeoutMultiplier = timeoutMultiplier;
+        this.maxTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(maxTimeoutMs);
+        this.minTimeoutNanos = Math.min(TimeUnit.MILLISECONDS.toNanos(minTimeoutMs), maxTimeoutNanos);
+        this.latency = Timer.builder("user.lookup.latency")
+                .description("User-service response time, per request including hedges")
+                .register(meterRegistry);
+        this.requests = meterRegistry.counter("user.lookup.requests");
+        this.hedges = meterRegistry.counter("user.lookup.hedges");
+        this.hedgeWins = meterRegistry.counter("user.lookup.hedge.wins");
+        this.hedgesThrottled = meterRegistry.counter("user.lookup.hedges.throttled");
+        Gauge.builder("user.lookup.hedge.delay", this, l -> {
+                    Duration delay = l.hedgeDelay();
+                    return delay == null ? -1 : delay.toMillis();
+                })
+                .description("Delay before a hedged user lookup in ms, -1 when not hedging")
+                .register(meterRegistry);
+        Gauge.builder("user.lookup.attempt.timeout", this, l -> l.attemptTimeout().toMillis())
+                .description("Current user lookup attempt timeout in ms")
+                .register(meterRegistry);
+    }
+
+    /** Records a response (any status) that took {@code nanos} from its own send. */
+    public synchronized void record(long nanos) {
+        latency.record(nanos, TimeUnit.NANOSECONDS);
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+        if (++sinceRecompute >= RECOMPUTE_EVERY || hedgePercentileNanos < 0) {
+            sinceRecompute = 0;
+            recompute();
+        }
+    }
+
+    /** Counts an attempt and adds its share to the hedge budget. */
+    public synchronized void onRequest() {
+        requests.increment();
+        hedgeTokens = Math.min(hedgeTokens + maxHedgeRate, MAX_HEDGE_TOKENS);
+    }
+
+    /** When to send a hedge for an attempt that has not answered, or {@code null} not to hedge. */
+    public Duration hedgeDelay() {
+        long percentile = hedgePercentileNanos;
+        if (!hedgeEnabled || percentile < 0) {
+            return null;
+        }
+        long delay = Math.max(percentile, minHedgeDelayNanos);
+        return delay < attemptTimeout().toNanos() ? Duration.ofNanos(delay) : null;
+    }
+
+    /** Takes one hedge from the budget; {@code false} when hedges already make up {@code max-rate} of requests. */
+    public synchronized boolean tryAcquireHedge() {
+        if (hedgeTokens < 1) {
+            hedgesThrottled.increment();
+            return false;
+        }
+        hedgeTokens--;
+        hedges.increment();
+        return true;
+    }
+
+    public void onHedgeWon() {
+        hedgeWins.increment();
+    }
+
+    public Duration attemptTimeout() {
+        long p99 = p99Nanos;
+        if (!adaptiveTimeout || p99 < 0) {
+            return Duration.ofNanos(maxTimeoutNanos);
+        }
+        long timeout = (long) (p99 * timeoutMultiplier);
+        return Duration.ofNanos(Math.min(Math.max(timeout, minTimeoutNanos), maxTimeoutNanos));
+    }
+
+    /** Recomputes the percentiles from the window; done by {@link #record} every few samples. */
+    synchronized void recompute() {
+        if (count < minSamples) {
+            return;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        hedgePercentileNanos = percentile(sorted, hedgePercentile);
+        p99Nanos = percentile(sorted, 0.99);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.min(Math.max(index, 0), sorted.length - 1)];
+    }
+}
@@ -0,0 +1,15 @@
+package com.theratime.appointment.service;
+
+import java.util.Map;
+
+/** The fields of a user-service user that appointment-service needs; {@code tenantId} defaults to 1 as in {@link UserService#getTenantId}. */
+public record UserSummary(Long id, String role, Long tenantId) {
+
+    static UserSummary of(Long userId, Map<String, Object> user) {
+        Object role = user.get("role");
+        Object tenantId = user.get("tenantId");
+        return new UserSummary(userId,
+                role != null ? role.toString() : null,
+                tenantId instanceof Number number ? number.longValue() : 1L);
+    }
+}
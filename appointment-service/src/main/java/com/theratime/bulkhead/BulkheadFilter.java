@@ -0,0 +1,110 @@
+package com.theratime.bulkhead;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caps concurrent requests per {@link Workload} with the Resilience4j bulkheads {@code booking} and
+ * {@code calendarView} ({@code resilience4j.bulkhead.instances.*}), so a burst of calendar views cannot take the
+ * Tomcat threads, connections and user-service calls that bookings need. A request over its cap is rejected with
+ * 429 and {@code Retry-After} after at most {@code max-wait-duration}, before authentication runs. Admitted requests
+ * carry their workload in {@link WorkloadContext}.
+ * <p>
+ * Enabled with {@code app.bulkhead.enabled=true}. Metrics: {@code http.bulkhead.rejected} (tag {@code workload})
+ * and the Resilience4j gauges {@code resilience4j.bulkhead.available.concurrent.calls} and
+ * {@code resilience4j.bulkhead.max.allowed.concurrent.calls}.
+ */
+@Slf4j
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 10)
+public class BulkheadFilter extends OncePerRequestFilter {
+
+    static final String RETRY_AFTER_SECONDS = "1";
+
+    private final boolean enabled;
+    private final Map<Workload, Bulkhead> bulkheads;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public BulkheadFilter(BulkheadRegistry bulkheadRegistry,
+                          MeterRegistry meterRegistry,
+                          ObjectMapper objectMapper,
+                          @Value("${app.bulkhead.enabled:false}") boolean enabled) {
+        this(enabled, bulkheads(bulkheadRegistry), meterRegistry, objectMapper);
+    }
+
+    BulkheadFilter(boolean enabled, Map<Workload, Bulkhead> bulkheads, MeterRegistry meterRegistry,
+                   ObjectMapper objectMapper) {
+        this.enabled = enabled;
+        this.bulkheads = bulkheads;
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || Workload.of(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Workload workload = Workload.of(request);
+        Bulkhead bulkhead = bulkheads.get(workload);
+        if (!bulkhead.tryAcquirePermission()) {
+            reject(workload, response);
+            return;
+        }
+        WorkloadContext.set(workload);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            WorkloadContext.clear();
+            bulkhead.onComplete();
+        }
+    }
+
+    private void reject(Workload workload, HttpServletResponse response) throws IOException {
+        meterRegistry.counter("http.bulkhead.rejected", "workload", workload.bulkheadName()).increment();
+        log.debug("Rejected {} request: bulkhead full", workload.bulkheadName());
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now().toString());
+        body.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        body.put("error", HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase());
+        body.put("message", "Too many concurrent " + workload.bulkheadName() + " requests, retry shortly");
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private static Map<Workload, Bulkhead> bulkheads(BulkheadRegistry registry) {
+        Map<Workload, Bulkhead> bulkheads = new EnumMap<>(Workload.class);
+        Arrays.stream(Workload.values()).forEach(w -> bulkheads.put(w, registry.bulkhead(w.bulkheadName())));
+        return bulkheads;
+    }
+}
@@ -0,0 +1,37 @@
+package com.theratime.bulkhead;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Endpoint classes isolated from each other by {@link BulkheadFilter}; each has the Resilience4j bulkhead named
+ * {@link #bulkheadName()}. Requests outside both classes are not limited.
+ */
+public enum Workload {
+
+    /** Booking, rescheduling and cancelling ({@code /appointments/**}). */
+    BOOKING("booking"),
+    /** {@code GET /calendar/view}. */
+    CALENDAR_VIEW("calendarView");
+
+    private final String bulkheadName;
+
+    Workload(String bulkheadName) {
+        this.bulkheadName = bulkheadName;
+    }
+
+    public String bulkheadName() {
+        return bulkheadName;
+    }
+
+    /** The request's class, or {@code null} when it is not limited. */
+    public static Workload of(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/appointments/")) {
+            return BOOKING;
+        }
+        if ("GET".equals(request.getMethod()) && (path.equals("/calendar/view") || path.startsWith("/calendar/view/"))) {
+            return CALENDAR_VIEW;
+        }
+        return null;
+    }
+}
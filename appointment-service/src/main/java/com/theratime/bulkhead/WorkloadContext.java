@@ -0,0 +1,26 @@
+package com.theratime.bulkhead;
+
+/**
+ * The {@link Workload} of the request on this thread, set by {@link BulkheadFilter} and read by
+ * {@link com.theratime.config.WorkloadRoutingDataSource} to pick the connection pool.
+ */
+public final class WorkloadContext {
+
+    private static final ThreadLocal<Workload> CURRENT = new ThreadLocal<>();
+
+    private WorkloadContext() {
+    }
+
+    public static void set(Workload workload) {
+        CURRENT.set(workload);
+    }
+
+    /** The current workload, or {@code null} outside a limited request. */
+    public static Workload get() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
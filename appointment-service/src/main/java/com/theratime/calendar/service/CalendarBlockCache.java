@@ -0,0 +1,161 @@
+package com.theratime.calendar.service;
+
+import com.theratime.appointment.entity.CalendarBlock;
+import com.theratime.calendar.repository.CalendarBlockRepository;
+import com.theratime.config.ReplicaDataSource;
+import com.theratime.security.TenantContext;
+import com.theratime.tenant.TenantProvisionedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Calendar blocks per (tenant, therapist), read by every booking ({@link #isTherapistBlocked}) and calendar view but
+ * rarely written. Entries live for {@code app.calendar.block-cache.ttl}, at most {@code max-size} of them, and are
+ * evicted by {@link #evict} when this instance writes a block (again after commit, so a concurrent load cannot put
+ * back the old list). Blocks written by other instances show up after the TTL. Loads from a read-only transaction
+ * are not cached while a replica is configured, since they may be behind the primary. A tenant's entries are dropped
+ * when it is provisioned ({@link TenantProvisionedEvent}), so a re-created schema does not see blocks of the old one. Disabled
+ * ({@code app.calendar.block-cache.enabled=false}) every call goes to the database. {@link CalendarBlockCacheEndpoint}
+ * drops entries on demand.
+ * <p>
+ * Metrics: {@code calendar.block.cache.hits}, {@code .misses}, {@code .evictions} and {@code .size}.
+ */
+@Component
+public class CalendarBlockCache {
+
+    private final CalendarBlockRepository calendarBlockRepository;
+    private final boolean enabled;
+    private final boolean replicaConfigured;
+    private final long ttlMs;
+    private final int maxSize;
+    private final Map<BlockKey, CachedBlocks> cache = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    @Autowired
+    public CalendarBlockCache(CalendarBlockRepository calendarBlockRepository,
+                              MeterRegistry meterRegistry,
+                              ObjectProvider<ReplicaDataSource> replicaDataSource,
+                              @Value("${app.calendar.block-cache.enabled:false}") boolean enabled,
+                              @Value("${app.calendar.block-cache.ttl:PT1M}") Duration ttl,
+                              @Value("${app.calendar.block-cache.max-size:10000}") int maxSize) {
+        this(calendarBlockRepository, meterRegistry, replicaDataSource.getIfAvailable() != null, enabled, ttl, maxSize);
+    }
+
+    CalendarBlockCache(CalendarBlockRepository calendarBlockRepository, MeterRegistry meterRegistry,
+                       boolean replicaConfigured, boolean enabled, Duration ttl, int maxSize) {
+        this.calendarBlockRepository = calendarBlockRepository;
+        this.replicaConfigured = replicaConfigured;
+        this.enabled = enabled;
+        this.ttlMs = ttl.toMillis();
+        this.maxSize = Math.max(maxSize, 1);
+        this.hits = meterRegistry.counter("calendar.block.cache.hits");
+        this.misses = meterRegistry.counter("calendar.block.cache.misses");
+        this.evictions = meterRegistry.counter("calendar.block.cache.evictions");
+        Gauge.builder("calendar.block.cache.size", cache, Map::size)
+                .description("(tenant, therapist) entries in the calendar block cache")
+                .register(meterRegistry);
+    }
+
+    public boolean isTherapistBlocked(Long therapistId, LocalDateTime startTime, LocalDateTime endTime) {
+        if (!enabled) {
+            return calendarBlockRepository.isTherapistBlocked(therapistId, startTime, endTime);
+        }
+        // Same overlap condition as CalendarBlockRepository.isTherapistBlocked.
+        return findByTherapistId(therapistId).stream()
+                .anyMatch(block -> block.getStartTime().isBefore(endTime) && block.getEndTime().isAfter(startTime));
+    }
+
+    /** The therapist's blocks in the current tenant; the list is shared and must not be modified. */
+    public List<CalendarBlock> findByTherapistId(Long therapistId) {
+        if (!enabled) {
+            return calendarBlockRepository.findByTherapistId(therapistId);
+        }
+        BlockKey key = new BlockKey(TenantContext.getTenantId(), therapistId);
+        long now = System.currentTimeMillis();
+        CachedBlocks cached = cache.get(key);
+        if (cached != null && now < cached.expiresAt()) {
+            hits.increment();
+            return cached.blocks();
+        }
+        misses.increment();
+        long loadGeneration = generation.get();
+        List<CalendarBlock> blocks = List.copyOf(calendarBlockRepository.findByTherapistId(therapistId));
+        boolean possiblyStale = replicaConfigured && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (!possiblyStale && loadGeneration == generation.get()) {
+            if (cached == null && cache.size() >= maxSize) {
+                cache.values().removeIf(entry -> now >= entry.expiresAt());
+                if (cache.size() >= maxSize) {
+                    cache.clear();
+                }
+            }
+            cache.put(key, new CachedBlocks(blocks, now + ttlMs));
+        }
+        return blocks;
+    }
+
+    /** Drops the therapist's entry in the current tenant, now and once the current transaction completes. */
+    public void evict(Long therapistId) {
+        if (!enabled) {
+            return;
+        }
+        BlockKey key = new BlockKey(TenantContext.getTenantId(), therapistId);
+        evict(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(key);
+                }
+            });
+        }
+    }
+
+    /** Drops every entry of a newly registered tenant. */
+    @EventListener
+    public void onTenantProvisioned(TenantProvisionedEvent event) {
+        invalidateTenant(event.tenantId());
+    }
+
+    /** Drops every entry of the tenant; see {@link CalendarBlockCacheEndpoint}. */
+    public void invalidateTenant(Long tenantId) {
+        generation.incrementAndGet();
+        cache.keySet().removeIf(key -> key.tenantId().equals(tenantId));
+    }
+
+    /** Drops every entry; see {@link CalendarBlockCacheEndpoint}. */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    private void evict(BlockKey key) {
+        generation.incrementAndGet();
+        if (cache.remove(key) != null) {
+            evictions.increment();
+        }
+    }
+
+    private record BlockKey(Long tenantId, Long therapistId) {
+    }
+
+    private record CachedBlocks(List<CalendarBlock> blocks, long expiresAt) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.theratime.calendar.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint to drop cached calendar blocks after {@code calendar_block} rows are changed outside this
+ * instance (another instance, or SQL), instead of waiting for the TTL:
+ * {@code DELETE /actuator/calendarblockcache/{tenantId}} or {@code DELETE /actuator/calendarblockcache}.
+ */
+@Component
+@Endpoint(id = "calendarblockcache")
+@RequiredArgsConstructor
+public class CalendarBlockCacheEndpoint {
+
+    private final CalendarBlockCache calendarBlockCache;
+
+    @DeleteOperation
+    public void invalidateAll() {
+        calendarBlockCache.invalidateAll();
+    }
+
+    @DeleteOperation
+    public void invalidateTenant(@Selector Long tenantId) {
+        calendarBlockCache.invalidateTenant(tenantId);
+    }
+}
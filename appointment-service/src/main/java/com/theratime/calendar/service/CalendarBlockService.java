@@ -13,10 +13,10 @@ import com.theratime.calendar.mapper.CalendarBlockMapper;
 import com.theratime.calendar.repository.CalendarBlockRepository;
 import com.theratime.exception.BusinessException;
 import com.theratime.security.TenantContext;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
@@ -28,13 +28,14 @@ import java.util.List;
 public class CalendarBlockService {
 
     private final CalendarBlockRepository calendarBlockRepository;
+    private final CalendarBlockCache calendarBlockCache;
     private final AppointmentRepository appointmentRepository;
     private final CalendarBlockMapper mapper;
     private final AppointmentMapper appointmentMapper;
     private final UserService userService;
 
     public boolean isTherapistBlocked(Long therapistId, LocalDateTime startTime, LocalDateTime endTime) {
-        return calendarBlockRepository.isTherapistBlocked(therapistId, startTime, endTime);
+        return calendarBlockCache.isTherapistBlocked(therapistId, startTime, endTime);
     }
 
     @Transactional
@@ -42,6 +43,7 @@ public class CalendarBlockService {
         Long tenantId = userService.getTenantId(TenantContext.getCurrentUserId());
         validateTherapist(request.getTherapistId(), tenantId);
 
+        // Checked against the database, not the cache, inside the writing transaction.
         boolean hasOverlap = calendarBlockRepository.isTherapistBlocked(
                 request.getTherapistId(),
                 request.getStartTime().toLocalDateTime(),
@@ -60,10 +62,12 @@ public class CalendarBlockService {
 
         CalendarBlock block = mapper.toEntity(request);
         calendarBlockRepository.save(block);
+        calendarBlockCache.evict(request.getTherapistId());
 
         return mapper.toResponse(block);
     }
 
+    @Transactional(readOnly = true)
     public ViewCalendar200Response viewCalendar(Long therapistId, OffsetDateTime startDate, OffsetDateTime endDate) {
         Long tenantId = userService.getTenantId(TenantContext.getCurrentUserId());
         validateTherapist(therapistId, tenantId);
@@ -72,7 +76,7 @@ public class CalendarBlockService {
         LocalDateTime rangeEnd = endDate == null ? LocalDateTime.MAX : endDate.toLocalDateTime();
 
         List<Appointment> appointments = appointmentRepository.findByTherapistId(therapistId);
-        List<CalendarBlock> blocks = calendarBlockRepository.findByTherapistId(therapistId);
+        List<CalendarBlock> blocks = calendarBlockCache.findByTherapistId(therapistId);
 
         List<AppointmentResponse> appointmentResponses = appointments.stream()
                 .filter(a -> a.getStartTime().isBefore(rangeEnd) && a.getEndTime().isAfter(rangeStart))
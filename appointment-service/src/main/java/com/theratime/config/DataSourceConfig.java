@@ -1,27 +1,108 @@
 package com.theratime.config;
 
+import com.theratime.bulkhead.Workload;
+import com.theratime.security.TenantContext;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 
 import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Wraps the application DataSource with TenantAwareDataSource so each request
  * uses the correct PostgreSQL schema (tenant_1, tenant_2, ...) via search_path.
+ * <p>
+ * With {@code app.datasource.replica.enabled=true}, {@code @Transactional(readOnly = true)} work is routed to
+ * the replica pool: {@link LazyConnectionDataSourceProxy} fetches the physical connection on first use, after the
+ * transaction has marked it read-only, and takes it from the {@link ReplicaDataSource} (which falls back to the
+ * primary when the replica lags). Both sides set the tenant search_path.
+ * <p>
+ * With {@code app.tenancy.mode=row}, both sides are wrapped in {@link RowLevelTenantDataSource} instead: all tenants
+ * share one schema and row-level security scopes each connection to the current tenant.
+ * <p>
+ * With {@code app.bulkhead.calendar-view.pool.enabled=true}, {@code GET /calendar/view} requests take primary
+ * connections from their own pool ({@link WorkloadRoutingDataSource}).
+ * <p>
+ * Hibernate does not use this DataSource directly: it resolves the tenant when a session opens and borrows through
+ * {@link TenantConnectionProvider}, which builds the same stack per tenant (see {@link HibernateTenancyConfig}).
  */
 @Configuration
 public class DataSourceConfig {
 
+    public enum TenancyMode {
+        SCHEMA,
+        ROW
+    }
+
     @Bean
     public DataSource targetDataSource(DataSourceProperties properties) {
         return properties.initializeDataSourceBuilder().build();
     }
 
+    @Bean
+    public TenantDataSourceFactory tenantDataSourceFactory(@Qualifier("targetDataSource") DataSource targetDataSource,
+                                                           ObjectProvider<ReplicaDataSource> replicaDataSource,
+                                                           @Qualifier("calendarViewDataSource") ObjectProvider<DataSource> calendarViewDataSource,
+                                                           TenantSchemaMigrator tenantSchemaMigrator,
+                                                           @Value("${app.tenancy.mode:schema}") String tenancyMode) {
+        DataSource calendarView = calendarViewDataSource.getIfAvailable();
+        DataSource primary = calendarView == null
+                ? targetDataSource
+                : new WorkloadRoutingDataSource(targetDataSource, Map.of(Workload.CALENDAR_VIEW, calendarView));
+        return new TenantDataSourceFactory(primary, replicaDataSource.getIfAvailable(), tenantSchemaMigrator,
+                TenancyMode.valueOf(tenancyMode.trim().toUpperCase(Locale.ROOT)));
+    }
+
     @Bean
     @Primary
-    public DataSource dataSource(DataSource targetDataSource) {
-        return new TenantAwareDataSource(targetDataSource);
+    public DataSource dataSource(TenantDataSourceFactory tenantDataSourceFactory) {
+        return tenantDataSourceFactory.create(TenantContext::getTenantId);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.bulkhead.calendar-view.pool.enabled", havingValue = "true")
+    public HikariDataSource calendarViewDataSource(DataSourceProperties properties,
+                                                   @Value("${app.bulkhead.calendar-view.pool.maximum-pool-size:5}") int maximumPoolSize,
+                                                   @Value("${app.bulkhead.calendar-view.pool.connection-timeout-ms:1000}") long connectionTimeoutMs) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        pool.setPoolName("calendar-view");
+        pool.setMaximumPoolSize(maximumPoolSize);
+        pool.setConnectionTimeout(connectionTimeoutMs);
+        return pool;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+    public ReplicaDataSource replicaDataSource(@Qualifier("targetDataSource") DataSource targetDataSource,
+                                               DataSourceProperties properties,
+                                               MeterRegistry meterRegistry,
+                                               @Value("${app.datasource.replica.url}") String url,
+                                               @Value("${app.datasource.replica.username:${spring.datasource.username}}") String username,
+                                               @Value("${app.datasource.replica.password:${spring.datasource.password}}") String password,
+                                               @Value("${app.datasource.replica.maximum-pool-size:10}") int maximumPoolSize,
+                                               @Value("${app.datasource.replica.max-lag-ms:5000}") long maxLagMs) {
+        HikariDataSource replica = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        replica.setPoolName("replica");
+        replica.setMaximumPoolSize(maximumPoolSize);
+        replica.setReadOnly(true);
+        return new ReplicaDataSource(replica, targetDataSource, Duration.ofMillis(maxLagMs), meterRegistry);
     }
 }
@@ -0,0 +1,21 @@
+package com.theratime.config;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Runs the shared migrations ({@code db/migration}) and then the per-tenant ones ({@code db/tenant}, eagerly or
+ * lazily, see {@link TenantSchemaMigrator}) before JPA starts.
+ */
+@Configuration
+public class FlywayConfig {
+
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(TenantSchemaMigrator tenantSchemaMigrator) {
+        return flyway -> {
+            flyway.migrate();
+            tenantSchemaMigrator.migrateOnStartup(flyway.getConfiguration().getDataSource());
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package com.theratime.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Enables Hibernate multi-tenancy: sessions carry a tenant id ({@link TenantIdentifierResolver}) and borrow connections
+ * for it ({@link TenantConnectionProvider}) instead of relying on {@code TenantContext} at connection-borrow time.
+ * JDBC work inside a JPA transaction (JdbcTemplate, native queries) runs on the session's connection.
+ */
+@Configuration
+public class HibernateTenancyConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer tenancyHibernatePropertiesCustomizer(TenantDataSourceFactory tenantDataSourceFactory,
+                                                                             DataSource dataSource) {
+        TenantConnectionProvider connectionProvider = new TenantConnectionProvider(tenantDataSourceFactory, dataSource);
+        TenantIdentifierResolver tenantIdentifierResolver = new TenantIdentifierResolver();
+        return properties -> {
+            properties.put(AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER, connectionProvider);
+            properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, tenantIdentifierResolver);
+        };
+    }
+}
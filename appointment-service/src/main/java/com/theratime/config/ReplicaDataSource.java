@@ -0,0 +1,101 @@
+package com.theratime.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Read-only target for read-only transactions (see {@link DataSourceConfig}): hands out replica connections
+ * while the replica's replay lag is within {@code app.datasource.replica.max-lag-ms}, otherwise primary
+ * connections. Lag is sampled every {@code app.datasource.replica.lag-check-interval-ms}; until the first good
+ * sample, or when the replica is unreachable, reads go to the primary.
+ */
+@Slf4j
+public class ReplicaDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    /** Zero when everything received has been replayed, so an idle primary does not look like lag. */
+    static final String LAG_SQL = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private final DataSource primary;
+    private final double maxLagSeconds;
+    private final Counter replicaConnections;
+    private final Counter primaryConnections;
+
+    private volatile boolean usable;
+    private volatile double lagSeconds = Double.NaN;
+
+    public ReplicaDataSource(DataSource replica, DataSource primary, Duration maxLag, MeterRegistry meterRegistry) {
+        super(replica);
+        this.primary = primary;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        Gauge.builder("datasource.replica.lag.seconds", this, source -> source.lagSeconds)
+                .description("Replay lag of the read replica at the last check (NaN if unreachable)")
+                .register(meterRegistry);
+        this.replicaConnections = meterRegistry.counter("datasource.replica.connections", "target", "replica");
+        this.primaryConnections = meterRegistry.counter("datasource.replica.connections", "target", "primary");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (usable) {
+            try {
+                Connection connection = super.getConnection();
+                replicaConnections.increment();
+                return connection;
+            } catch (SQLException e) {
+                usable = false;
+                log.warn("Read replica unavailable, reading from primary until the next lag check: {}", e.getMessage());
+            }
+        }
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return usable ? super.getConnection(username, password) : primary.getConnection(username, password);
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval-ms:5000}")
+    public void checkLag() {
+        try (Connection connection = super.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(LAG_SQL)) {
+            double lag = resultSet.next() ? resultSet.getDouble(1) : 0;
+            boolean withinLimit = lag <= maxLagSeconds;
+            if (withinLimit != usable) {
+                log.info("Read replica lag {}s (max {}s): reads go to {}", lag, maxLagSeconds, withinLimit ? "replica" : "primary");
+            }
+            lagSeconds = lag;
+            usable = withinLimit;
+        } catch (SQLException e) {
+            if (usable) {
+                log.warn("Read replica lag check failed, reading from primary: {}", e.getMessage());
+            }
+            lagSeconds = Double.NaN;
+            usable = false;
+        }
+    }
+
+    boolean isUsable() {
+        return usable;
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
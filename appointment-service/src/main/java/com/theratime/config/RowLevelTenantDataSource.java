@@ -0,0 +1,55 @@
+package com.theratime.config;
+
+import com.theratime.security.TenantContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+/**
+ * Row-level tenancy ({@code app.tenancy.mode=row}): every tenant shares the {@code shared_tenants} schema (V7).
+ * When a connection is obtained it sets search_path to that schema and {@code app.tenant_id} to the current tenant;
+ * the row-level security policies only expose that tenant's rows, and {@code tenant_id} defaults to it on insert.
+ */
+@Slf4j
+public class RowLevelTenantDataSource extends DelegatingDataSource {
+
+    public static final String SHARED_SCHEMA = "shared_tenants";
+
+    private final Supplier<Long> tenantId;
+
+    public RowLevelTenantDataSource(DataSource targetDataSource) {
+        this(targetDataSource, TenantContext::getTenantId);
+    }
+
+    public RowLevelTenantDataSource(DataSource targetDataSource, Supplier<Long> tenantId) {
+        super(targetDataSource);
+        this.tenantId = tenantId;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection conn = super.getConnection();
+        setTenant(conn);
+        return conn;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Connection conn = super.getConnection(username, password);
+        setTenant(conn);
+        return conn;
+    }
+
+    private void setTenant(Connection conn) throws SQLException {
+        Long tenant = tenantId.get();
+        try (var stmt = conn.createStatement()) {
+            stmt.execute("SET search_path TO " + SHARED_SCHEMA);
+            stmt.execute("SET app.tenant_id TO '" + tenant + "'");
+            log.trace("Set app.tenant_id to {}", tenant);
+        }
+    }
+}
@@ -7,20 +7,38 @@ import org.springframework.jdbc.datasource.DelegatingDataSource;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Schema-per-tenant: sets PostgreSQL search_path to the current tenant's schema
  * when a connection is obtained, so all subsequent queries run in that schema.
+ * An optional schema preparer runs first (e.g. lazy tenant migration, see {@link TenantSchemaMigrator}).
+ * The tenant comes from {@link TenantContext} unless a fixed one is given (see {@link TenantConnectionProvider}).
  */
 @Slf4j
 public class TenantAwareDataSource extends DelegatingDataSource {
 
+    private final Consumer<String> schemaPreparer;
+    private final Supplier<Long> tenantId;
+
     public TenantAwareDataSource(DataSource targetDataSource) {
+        this(targetDataSource, schema -> { });
+    }
+
+    public TenantAwareDataSource(DataSource targetDataSource, Consumer<String> schemaPreparer) {
+        this(targetDataSource, schemaPreparer, TenantContext::getTenantId);
+    }
+
+    public TenantAwareDataSource(DataSource targetDataSource, Consumer<String> schemaPreparer, Supplier<Long> tenantId) {
         super(targetDataSource);
+        this.schemaPreparer = schemaPreparer;
+        this.tenantId = tenantId;
     }
 
     @Override
     public Connection getConnection() throws SQLException {
+        prepareSchema();
         Connection conn = super.getConnection();
         setSchema(conn);
         return conn;
@@ -28,13 +46,23 @@ public class TenantAwareDataSource extends DelegatingDataSource {
 
     @Override
     public Connection getConnection(String username, String password) throws SQLException {
+        prepareSchema();
         Connection conn = super.getConnection(username, password);
         setSchema(conn);
         return conn;
     }
 
+    private void prepareSchema() throws SQLException {
+        String schema = TenantContext.schemaOf(tenantId.get());
+        try {
+            schemaPreparer.accept(schema);
+        } catch (RuntimeException e) {
+            throw new SQLException("Could not prepare schema " + schema, e);
+        }
+    }
+
     private void setSchema(Connection conn) throws SQLException {
-        String schema = TenantContext.getCurrentSchema();
+        String schema = TenantContext.schemaOf(tenantId.get());
         try (var stmt = conn.createStatement()) {
             stmt.execute("SET search_path TO " + schema);
             log.trace("Set search_path to {}", schema);
@@ -0,0 +1,36 @@
+package com.theratime.config;
+
+import org.hibernate.engine.jdbc.connections.spi.AbstractDataSourceBasedMultiTenantConnectionProviderImpl;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hibernate connection provider keyed by the tenant id that {@link TenantIdentifierResolver} resolved when the session
+ * opened. Each tenant gets its own DataSource stack from {@link TenantDataSourceFactory}, bound to that tenant, so the
+ * schema (or {@code app.tenant_id}) follows the session even if {@code TenantContext} changes or is cleared before
+ * Hibernate borrows the connection. The stacks share the underlying pools and are cached per tenant.
+ */
+public class TenantConnectionProvider extends AbstractDataSourceBasedMultiTenantConnectionProviderImpl<Long> {
+
+    private final TenantDataSourceFactory tenantDataSourceFactory;
+    private final DataSource anyDataSource;
+    private final Map<Long, DataSource> tenantDataSources = new ConcurrentHashMap<>();
+
+    public TenantConnectionProvider(TenantDataSourceFactory tenantDataSourceFactory, DataSource anyDataSource) {
+        this.tenantDataSourceFactory = tenantDataSourceFactory;
+        this.anyDataSource = anyDataSource;
+    }
+
+    /** Used by Hibernate for metadata and schema validation at startup (default tenant). */
+    @Override
+    protected DataSource selectAnyDataSource() {
+        return anyDataSource;
+    }
+
+    @Override
+    protected DataSource selectDataSource(Long tenantId) {
+        return tenantDataSources.computeIfAbsent(tenantId, id -> tenantDataSourceFactory.create(() -> id));
+    }
+}
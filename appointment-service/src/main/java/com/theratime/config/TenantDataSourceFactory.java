@@ -0,0 +1,49 @@
+package com.theratime.config;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Builds the tenant-scoping DataSource stack for a tenant source: {@link TenantAwareDataSource} (schema mode, with
+ * lazy tenant migration on the primary) or {@link RowLevelTenantDataSource} (row mode) around the primary, and, with
+ * a replica, a {@link LazyConnectionDataSourceProxy} that sends read-only transactions to the wrapped replica.
+ * Used for the {@code TenantContext}-driven application DataSource and for the per-tenant DataSources of
+ * {@link TenantConnectionProvider}.
+ */
+public class TenantDataSourceFactory {
+
+    private final DataSource targetDataSource;
+    private final DataSource replicaDataSource;
+    private final TenantSchemaMigrator tenantSchemaMigrator;
+    private final DataSourceConfig.TenancyMode tenancyMode;
+
+    public TenantDataSourceFactory(DataSource targetDataSource, DataSource replicaDataSource,
+                                   TenantSchemaMigrator tenantSchemaMigrator, DataSourceConfig.TenancyMode tenancyMode) {
+        this.targetDataSource = targetDataSource;
+        this.replicaDataSource = replicaDataSource;
+        this.tenantSchemaMigrator = tenantSchemaMigrator;
+        this.tenancyMode = tenancyMode;
+    }
+
+    public DataSource create(Supplier<Long> tenantId) {
+        DataSource primary = wrap(targetDataSource, tenantId);
+        if (replicaDataSource == null) {
+            return primary;
+        }
+        LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(primary);
+        routing.setReadOnlyDataSource(wrap(replicaDataSource, tenantId));
+        return routing;
+    }
+
+    private DataSource wrap(DataSource dataSource, Supplier<Long> tenantId) {
+        if (tenancyMode == DataSourceConfig.TenancyMode.ROW) {
+            return new RowLevelTenantDataSource(dataSource, tenantId);
+        }
+        // Lazy tenant migrations always run on the primary, also before a replica read.
+        Consumer<String> migrateOnFirstUse = schema -> tenantSchemaMigrator.ensureMigrated(targetDataSource, schema);
+        return new TenantAwareDataSource(dataSource, migrateOnFirstUse, tenantId);
+    }
+}
@@ -0,0 +1,23 @@
+package com.theratime.config;
+
+import com.theratime.security.TenantContext;
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+
+/**
+ * Resolves the tenant of a Hibernate session from {@link TenantContext} once, when the session opens (at request
+ * start with open-in-view, otherwise at transaction begin). The tenant id becomes part of the session, so second-level
+ * cache entries are keyed per tenant.
+ */
+public class TenantIdentifierResolver implements CurrentTenantIdentifierResolver<Long> {
+
+    @Override
+    public Long resolveCurrentTenantIdentifier() {
+        return TenantContext.getTenantId();
+    }
+
+    /** A session bound to a thread must not be reused for another tenant. */
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return true;
+    }
+}
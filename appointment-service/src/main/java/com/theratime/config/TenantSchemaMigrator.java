@@ -0,0 +1,191 @@
+package com.theratime.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * Applies the migrations in {@code classpath:db/tenant} to every {@code tenant_*} schema, so tenant DDL is written
+ * once instead of being duplicated per schema as in V4/V5. Each schema has its own {@code flyway_tenant_history}
+ * table and Flyway runs with that schema as default, so the scripts use unqualified names. Schemas that already
+ * hold the V4/V5 tables are baselined at tenant version 1.
+ * <p>
+ * {@code app.tenants.migration.mode}: {@code eager} migrates all schemas at startup on
+ * {@code app.tenants.migration.parallelism} threads; {@code lazy} migrates only {@code tenant_template} at startup
+ * and each tenant schema the first time a connection is borrowed for it ({@link #ensureMigrated}), so startup time
+ * does not grow with the number of tenants.
+ */
+@Component
+@Slf4j
+public class TenantSchemaMigrator {
+
+    public enum Mode {
+        EAGER,
+        LAZY
+    }
+
+    static final String LOCATION = "classpath:db/tenant";
+    static final String HISTORY_TABLE = "flyway_tenant_history";
+    static final String TEMPLATE_SCHEMA = "tenant_template";
+    static final String TENANT_SCHEMAS_SQL =
+            "SELECT schema_name FROM information_schema.schemata WHERE schema_name LIKE 'tenant\\_%' ORDER BY schema_name";
+
+    private final BiFunction<DataSource, String, Flyway> flywayFactory;
+    private final Mode mode;
+    private final int parallelism;
+    private final Set<String> migrated = ConcurrentHashMap.newKeySet();
+    private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    private volatile boolean startupDone;
+
+    @Autowired
+    public TenantSchemaMigrator(@Value("${app.tenants.migration.mode:eager}") String mode,
+                                @Value("${app.tenants.migration.parallelism:4}") int parallelism) {
+        this(TenantSchemaMigrator::flyway, Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT)), parallelism);
+    }
+
+    TenantSchemaMigrator(BiFunction<DataSource, String, Flyway> flywayFactory, Mode mode, int parallelism) {
+        this.flywayFactory = flywayFactory;
+        this.mode = mode;
+        this.parallelism = Math.max(parallelism, 1);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /** Startup step after the shared migrations: all schemas (eager) or only the template (lazy). */
+    public void migrateOnStartup(DataSource dataSource) {
+        if (mode == Mode.LAZY) {
+            migrate(dataSource, TEMPLATE_SCHEMA);
+            log.info("Tenant schemas are migrated lazily on first access");
+        } else {
+            migrateAll(dataSource);
+        }
+        startupDone = true;
+    }
+
+    /**
+     * Migrates all tenant schemas in parallel and waits for all of them.
+     *
+     * @throws IllegalStateException listing every schema that failed
+     */
+    public void migrateAll(DataSource dataSource) {
+        List<String> schemas = tenantSchemas(dataSource);
+        long startedAt = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(schemas.size(), 1)), runnable -> {
+            Thread thread = new Thread(runnable, "tenant-migration");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Map<String, CompletableFuture<MigrateResult>> results = new LinkedHashMap<>();
+        try {
+            for (String schema : schemas) {
+                results.put(schema, CompletableFuture.supplyAsync(() -> migrate(dataSource, schema), executor));
+            }
+            List<String> failures = new ArrayList<>();
+            results.forEach((schema, result) -> {
+                try {
+                    result.join();
+                } catch (CompletionException e) {
+                    log.error("Tenant migration of {} failed: {}", schema, e.getCause().getMessage(), e.getCause());
+                    failures.add(schema);
+                }
+            });
+            if (!failures.isEmpty()) {
+                throw new IllegalStateException("Tenant migrations failed for " + failures);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        log.info("Tenant schema migrations applied to {} schema(s) in {} ms", schemas.size(),
+                (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    /**
+     * Lazy mode: migrates {@code schema} once per process before its first use; concurrent callers for the same
+     * schema wait for the one migration. A failure is rethrown and retried on the next access. No-op in eager mode
+     * and until {@link #migrateOnStartup} has finished (the shared migrations may not have created the schema yet).
+     */
+    public void ensureMigrated(DataSource dataSource, String schema) {
+        if (mode != Mode.LAZY || !startupDone || migrated.contains(schema)) {
+            return;
+        }
+        // A lock rather than synchronized: waiting on a monitor during the migration would pin virtual threads.
+        ReentrantLock lock = locks.computeIfAbsent(schema, key -> new ReentrantLock());
+        lock.lock();
+        try {
+            if (!migrated.contains(schema)) {
+                migrate(dataSource, schema);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Records a schema known to be current (e.g. just cloned from the template), so lazy mode skips it. */
+    public void markMigrated(String schema) {
+        migrated.add(schema);
+    }
+
+    public MigrateResult migrate(DataSource dataSource, String schema) {
+        MigrateResult result = flywayFactory.apply(dataSource, schema).migrate();
+        migrated.add(schema);
+        if (result.migrationsExecuted > 0) {
+            log.info("Applied {} tenant migration(s) to {}, now at version {}",
+                    result.migrationsExecuted, schema, result.targetSchemaVersion);
+        }
+        return result;
+    }
+
+    public List<String> tenantSchemas(DataSource dataSource) {
+        List<String> schemas = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(TENANT_SCHEMAS_SQL)) {
+            while (resultSet.next()) {
+                schemas.add(resultSet.getString(1));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not list tenant schemas", e);
+        }
+        return schemas;
+    }
+
+    static Flyway flyway(DataSource dataSource, String schema) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .schemas(schema)
+                .defaultSchema(schema)
+                // Lazy mode runs for whatever tenant a request names; never create a schema for an unknown tenant.
+                .createSchemas(false)
+                .locations(LOCATION)
+                .table(HISTORY_TABLE)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .baselineDescription("tables created by V4/V5")
+                .load();
+    }
+}
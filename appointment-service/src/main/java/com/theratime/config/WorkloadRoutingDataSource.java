@@ -0,0 +1,43 @@
+package com.theratime.config;
+
+import com.theratime.bulkhead.Workload;
+import com.theratime.bulkhead.WorkloadContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Takes connections from a dedicated pool for requests of a {@link Workload} that has one (the calendar-view pool,
+ * {@code app.bulkhead.calendar-view.pool.*}), and from the primary pool otherwise, so slow calendar queries cannot
+ * hold every primary connection. Sits under the tenant wrappers, so the search_path or {@code app.tenant_id} is set
+ * on whichever pool the connection comes from.
+ */
+public class WorkloadRoutingDataSource extends DelegatingDataSource {
+
+    private final Map<Workload, DataSource> pools;
+
+    public WorkloadRoutingDataSource(DataSource targetDataSource, Map<Workload, DataSource> pools) {
+        super(targetDataSource);
+        this.pools = pools.isEmpty() ? Map.of() : new EnumMap<>(pools);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return current().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return current().getConnection(username, password);
+    }
+
+    private DataSource current() {
+        Workload workload = WorkloadContext.get();
+        DataSource pool = workload == null ? null : pools.get(workload);
+        return pool != null ? pool : obtainTargetDataSource();
+    }
+}
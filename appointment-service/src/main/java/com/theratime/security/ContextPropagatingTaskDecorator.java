@@ -0,0 +1,17 @@
+package com.theratime.security;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applied by Spring Boot to its task executors (@Async, {@code applicationTaskExecutor}), so tasks run with the
+ * tenant, user and MDC of the thread that submitted them (see {@link ContextSnapshot}).
+ */
+@Component
+public class ContextPropagatingTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return ContextSnapshot.capture().wrap(runnable);
+    }
+}
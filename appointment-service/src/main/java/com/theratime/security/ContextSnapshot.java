@@ -0,0 +1,133 @@
+package com.theratime.security;
+
+import org.slf4j.MDC;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The request context of a thread: tenant ({@link TenantContext}), security context (current user id) and MDC
+ * (tenantId, userId, correlationId). {@link #capture()} it where work is handed off and {@link #open()} it on the
+ * thread that runs the work; closing the scope restores that thread's previous context, so pooled threads do not
+ * keep a tenant. {@link #propagating(ExecutorService)} does this for every task submitted to an executor.
+ */
+public final class ContextSnapshot {
+
+    private final Long tenantId;
+    private final SecurityContext securityContext;
+    private final Map<String, String> mdc;
+
+    private ContextSnapshot(Long tenantId, SecurityContext securityContext, Map<String, String> mdc) {
+        this.tenantId = tenantId;
+        this.securityContext = securityContext;
+        this.mdc = mdc;
+    }
+
+    public static ContextSnapshot capture() {
+        return new ContextSnapshot(TenantContext.peekTenantId(), SecurityContextHolder.getContext(), MDC.getCopyOfContextMap());
+    }
+
+    /** Installs this context on the current thread until the returned scope is closed. */
+    public Scope open() {
+        ContextSnapshot previous = capture();
+        install(this);
+        return () -> install(previous);
+    }
+
+    public Runnable wrap(Runnable task) {
+        return () -> {
+            try (Scope ignored = open()) {
+                task.run();
+            }
+        };
+    }
+
+    public <T> Callable<T> wrap(Callable<T> task) {
+        return () -> {
+            try (Scope ignored = open()) {
+                return task.call();
+            }
+        };
+    }
+
+    public <T> Supplier<T> wrap(Supplier<T> task) {
+        return () -> {
+            try (Scope ignored = open()) {
+                return task.get();
+            }
+        };
+    }
+
+    /** An executor that runs each task in the context of the thread that submitted it. */
+    public static ExecutorService propagating(ExecutorService delegate) {
+        return new PropagatingExecutorService(delegate);
+    }
+
+    private static void install(ContextSnapshot snapshot) {
+        if (snapshot.tenantId != null) {
+            TenantContext.setTenantId(snapshot.tenantId);
+        } else {
+            TenantContext.clear();
+        }
+        SecurityContextHolder.setContext(snapshot.securityContext);
+        if (snapshot.mdc != null) {
+            MDC.setContextMap(snapshot.mdc);
+        } else {
+            MDC.clear();
+        }
+    }
+
+    /** Restores the previous context; does not throw. */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /** submit/invokeAll go through {@link #execute}, which captures on the submitting thread. */
+    private static final class PropagatingExecutorService extends AbstractExecutorService {
+
+        private final ExecutorService delegate;
+
+        private PropagatingExecutorService(ExecutorService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(capture().wrap(command));
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
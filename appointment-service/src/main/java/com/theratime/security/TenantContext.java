@@ -7,6 +7,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 /**
  * Holds the current request's tenant (schema-per-tenant) and user id.
  * Used by TenantAwareDataSource to set search_path and by services for validation.
+ * Thread-bound: work handed to other threads carries it via {@link ContextSnapshot}.
  */
 public final class TenantContext {
 
@@ -28,11 +29,25 @@ public final class TenantContext {
         return id != null ? id : DEFAULT_TENANT_ID;
     }
 
+    /**
+     * Tenant set on this thread, or null; used by {@link ContextSnapshot} to restore exactly what was there.
+     */
+    static Long peekTenantId() {
+        return TENANT_ID.get();
+    }
+
     /**
      * Schema name for the current tenant (e.g. tenant_1, tenant_2).
      */
     public static String getCurrentSchema() {
-        return "tenant_" + getTenantId();
+        return schemaOf(getTenantId());
+    }
+
+    /**
+     * Schema name for the given tenant.
+     */
+    public static String schemaOf(Long tenantId) {
+        return "tenant_" + tenantId;
     }
 
     public static void clear() {
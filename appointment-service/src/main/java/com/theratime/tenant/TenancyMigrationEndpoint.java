@@ -0,0 +1,48 @@
+package com.theratime.tenant;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Actuator endpoint (basic auth) for {@link TenancyMigrationService}: {@code POST /actuator/tenancymigration} with
+ * {@code {"direction": "to_row"}} (or {@code "to_schema"}) and optional {@code "tenantIds": "1,2"} (default: all
+ * registered tenants) copies those tenants and returns one result per id.
+ */
+@Component
+@Endpoint(id = "tenancymigration")
+@RequiredArgsConstructor
+public class TenancyMigrationEndpoint {
+
+    private final TenancyMigrationService migrationService;
+    private final TenantRegistry tenantRegistry;
+
+    @WriteOperation
+    public WebEndpointResponse<Object> migrate(String direction, @Nullable String tenantIds) {
+        try {
+            TenancyMigrationResult.Direction parsed =
+                    TenancyMigrationResult.Direction.valueOf(direction.trim().toUpperCase(Locale.ROOT));
+            List<Long> ids = tenantIds == null
+                    ? tenantRegistry.tenantIds()
+                    : Arrays.stream(tenantIds.split(","))
+                            .map(String::trim)
+                            .filter(s -> !s.isEmpty())
+                            .map(Long::valueOf)
+                            .distinct()
+                            .toList();
+            if (ids.isEmpty()) {
+                throw new IllegalArgumentException("tenantIds is empty");
+            }
+            return new WebEndpointResponse<>(migrationService.migrateAll(ids, parsed));
+        } catch (IllegalArgumentException e) {
+            return new WebEndpointResponse<>(e.getMessage(), WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+    }
+}
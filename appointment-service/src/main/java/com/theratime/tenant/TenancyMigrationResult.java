@@ -0,0 +1,13 @@
+package com.theratime.tenant;
+
+/** Outcome of copying one tenant's rows between schema-per-tenant and row-level tenancy. */
+public record TenancyMigrationResult(Long tenantId, Direction direction, int appointments, int calendarBlocks,
+                                     int outbox, long durationMs, String error) {
+
+    public enum Direction {
+        /** {@code tenant_<id>} to {@code shared_tenants}. */
+        TO_ROW,
+        /** {@code shared_tenants} to {@code tenant_<id>} (provisioned if missing). */
+        TO_SCHEMA
+    }
+}
@@ -0,0 +1,144 @@
+package com.theratime.tenant;
+
+import com.theratime.config.RowLevelTenantDataSource;
+import com.theratime.security.ContextSnapshot;
+import com.theratime.security.TenantContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copies a tenant's appointments, calendar blocks and outbox between its {@code tenant_<id>} schema and the shared
+ * row-level schema ({@code shared_tenants}, V7), in either direction, so both tenancy modes can be run against the
+ * same data. Rows keep their ids; rows already present in the target are skipped, so a copy can be re-run. The
+ * source is left in place. Each tenant is copied in one transaction with {@code app.tenant_id} set for the
+ * row-level security policies, and the target sequences are moved past the copied ids.
+ * <p>
+ * Copy while writes are stopped, then switch {@code app.tenancy.mode} and restart.
+ */
+@Service
+@Slf4j
+public class TenancyMigrationService {
+
+    static final String SET_TENANT_SQL = "SELECT set_config('app.tenant_id', ?, true)";
+    /** nextval keeps the sequence ahead of ids handed out to other tenants sharing it. */
+    static final String SYNC_SEQUENCE_SQL = "SELECT setval(pg_get_serial_sequence(?, 'id'), "
+            + "GREATEST(nextval(pg_get_serial_sequence(?, 'id')), (SELECT COALESCE(MAX(id), 0) FROM %s)))";
+
+    private static final List<Table> TABLES = List.of(
+            new Table("appointments", "id, user_id, therapist_id, start_time, end_time, status, google_meet_link, version", false),
+            new Table("calendar_blocks", "id, therapist_id, start_time, end_time, reason", false),
+            new Table("outbox", "id, event_type, payload, status, created_at, last_attempt_at, attempt_count", true));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TenantProvisioningService provisioningService;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public TenancyMigrationService(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   TenantProvisioningService provisioningService,
+                                   MeterRegistry meterRegistry) {
+        this(jdbcTemplate, new TransactionTemplate(transactionManager), provisioningService, meterRegistry);
+    }
+
+    TenancyMigrationService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                            TenantProvisioningService provisioningService, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.provisioningService = provisioningService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /** Copies tenants one after another; results are in input order. */
+    public List<TenancyMigrationResult> migrateAll(Collection<Long> tenantIds, TenancyMigrationResult.Direction direction) {
+        tenantIds.forEach(TenancyMigrationService::validate);
+        return tenantIds.stream().map(tenantId -> migrate(tenantId, direction)).toList();
+    }
+
+    public TenancyMigrationResult migrate(Long tenantId, TenancyMigrationResult.Direction direction) {
+        validate(tenantId);
+        long startedAt = System.nanoTime();
+        String schema = "tenant_" + tenantId;
+        if (direction == TenancyMigrationResult.Direction.TO_SCHEMA) {
+            TenantProvisioningResult provisioned = provisioningService.provision(tenantId);
+            if (provisioned.status() == TenantProvisioningResult.Status.FAILED) {
+                return result(tenantId, direction, new int[TABLES.size()], startedAt, provisioned.error());
+            }
+        } else if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                TenantProvisioningService.SCHEMA_EXISTS_SQL, Boolean.class, schema))) {
+            return result(tenantId, direction, new int[TABLES.size()], startedAt, "Schema " + schema + " does not exist");
+        }
+        // In schema mode the connection is then borrowed for (and lazily migrated to) the tenant's schema. Closing
+        // the scope gives the caller (e.g. a request thread) its own tenant back.
+        try (ContextSnapshot.Scope ignored = ContextSnapshot.capture().open()) {
+            TenantContext.setTenantId(tenantId);
+            int[] copied = transactionTemplate.execute(tx -> {
+                jdbcTemplate.queryForObject(SET_TENANT_SQL, String.class, String.valueOf(tenantId));
+                int[] counts = new int[TABLES.size()];
+                for (int i = 0; i < TABLES.size(); i++) {
+                    counts[i] = copy(TABLES.get(i), schema, tenantId, direction);
+                }
+                return counts;
+            });
+            log.info("Copied tenant {} {}: {} appointments, {} calendar blocks, {} outbox rows",
+                    tenantId, direction, copied[0], copied[1], copied[2]);
+            return result(tenantId, direction, copied, startedAt, null);
+        } catch (DataAccessException e) {
+            log.warn("Copying tenant {} {} failed: {}", tenantId, direction, e.getMessage());
+            return result(tenantId, direction, new int[TABLES.size()], startedAt, e.getMessage());
+        }
+    }
+
+    private int copy(Table table, String schema, Long tenantId, TenancyMigrationResult.Direction direction) {
+        String tenantTable = schema + "." + table.name();
+        String sharedTable = RowLevelTenantDataSource.SHARED_SCHEMA + "." + table.name();
+        int copied;
+        String target;
+        if (direction == TenancyMigrationResult.Direction.TO_ROW) {
+            copied = jdbcTemplate.update("INSERT INTO " + sharedTable + " (tenant_id, " + table.columns() + ") "
+                    + "SELECT ?, " + table.columns() + " FROM " + tenantTable + " ON CONFLICT DO NOTHING", tenantId);
+            target = sharedTable;
+        } else {
+            String columns = table.tenantColumn() ? table.columns() + ", tenant_id" : table.columns();
+            copied = jdbcTemplate.update("INSERT INTO " + tenantTable + " (" + columns + ") "
+                    + "SELECT " + columns + " FROM " + sharedTable + " WHERE tenant_id = ? ON CONFLICT DO NOTHING", tenantId);
+            target = tenantTable;
+        }
+        jdbcTemplate.queryForObject(SYNC_SEQUENCE_SQL.formatted(target), Long.class, target, target);
+        return copied;
+    }
+
+    private TenancyMigrationResult result(Long tenantId, TenancyMigrationResult.Direction direction, int[] copied,
+                                          long startedAt, String error) {
+        long elapsed = System.nanoTime() - startedAt;
+        Timer.builder("tenancy.migration.duration")
+                .tag("direction", direction.name())
+                .tag("outcome", error == null ? "copied" : "failed")
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        return new TenancyMigrationResult(tenantId, direction, copied[0], copied[1], copied[2],
+                TimeUnit.NANOSECONDS.toMillis(elapsed), error);
+    }
+
+    private static void validate(Long tenantId) {
+        if (tenantId == null || tenantId <= 0) {
+            throw new IllegalArgumentException("tenantId must be positive");
+        }
+    }
+
+    /** A tenant table; {@code tenantColumn} when the tenant-schema copy also has a tenant_id column. */
+    private record Table(String name, String columns, boolean tenantColumn) {
+    }
+}
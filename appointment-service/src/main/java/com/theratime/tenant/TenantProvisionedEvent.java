@@ -0,0 +1,8 @@
+package com.theratime.tenant;
+
+/**
+ * Published by {@link TenantRegistry} when a tenant is registered beyond {@code app.outbox.tenant-ids}
+ * (provisioned by this instance or discovered from its schema).
+ */
+public record TenantProvisionedEvent(Long tenantId) {
+}
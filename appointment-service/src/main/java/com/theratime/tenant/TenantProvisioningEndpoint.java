@@ -0,0 +1,49 @@
+package com.theratime.tenant;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Actuator endpoint (basic auth) for tenants: {@code GET /actuator/tenants} lists registered tenant ids;
+ * {@code POST /actuator/tenants} with {@code {"tenantIds": "3,4,5"}} provisions those tenants in parallel and
+ * returns one result per id.
+ */
+@Component
+@Endpoint(id = "tenants")
+@RequiredArgsConstructor
+public class TenantProvisioningEndpoint {
+
+    private final TenantProvisioningService provisioningService;
+    private final TenantRegistry tenantRegistry;
+
+    @ReadOperation
+    public List<Long> tenants() {
+        return tenantRegistry.tenantIds();
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Object> provision(String tenantIds) {
+        List<Long> ids;
+        try {
+            ids = Arrays.stream(tenantIds.split(","))
+                    .map(String::trim)
+                    .filter(s -> !s.isEmpty())
+                    .map(Long::valueOf)
+                    .distinct()
+                    .toList();
+            if (ids.isEmpty()) {
+                throw new IllegalArgumentException("tenantIds is empty");
+            }
+            return new WebEndpointResponse<>(provisioningService.provisionAll(ids));
+        } catch (IllegalArgumentException e) {
+            return new WebEndpointResponse<>(e.getMessage(), WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+    }
+}
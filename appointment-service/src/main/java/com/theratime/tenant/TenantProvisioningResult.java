@@ -0,0 +1,11 @@
+package com.theratime.tenant;
+
+/** Outcome of provisioning one tenant schema. */
+public record TenantProvisioningResult(Long tenantId, Status status, long durationMs, String error) {
+
+    public enum Status {
+        CREATED,
+        ALREADY_EXISTS,
+        FAILED
+    }
+}
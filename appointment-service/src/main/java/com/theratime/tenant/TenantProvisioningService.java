@@ -0,0 +1,188 @@
+package com.theratime.tenant;
+
+import com.theratime.config.TenantSchemaMigrator;
+import com.theratime.security.ContextSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates {@code tenant_<id>} schemas by cloning {@code tenant_template}, which the tenant migrations
+ * ({@code db/tenant}) keep at the latest version. Each table is copied with {@code LIKE ... INCLUDING ALL}
+ * (columns, defaults, constraints, indexes), serial columns get their own sequences, and the tenant migration
+ * history is copied so later migrations continue from the template's version. All statements for one tenant
+ * run as a single JDBC batch in one transaction. Bulk provisioning runs on
+ * {@code app.tenants.provisioning.parallelism} threads; each created tenant is registered in {@link TenantRegistry}.
+ */
+@Service
+@Slf4j
+public class TenantProvisioningService {
+
+    static final String TEMPLATE_SCHEMA = "tenant_template";
+    static final String HISTORY_TABLE = "flyway_tenant_history";
+    static final String TABLES_SQL = "SELECT table_name FROM information_schema.tables "
+            + "WHERE table_schema = ? AND table_type = 'BASE TABLE' ORDER BY table_name";
+    /** Sequences owned by a column (serial / bigserial), which LIKE would otherwise share with the template. */
+    static final String OWNED_SEQUENCES_SQL = "SELECT t.relname AS table_name, a.attname AS column_name, s.relname AS sequence_name "
+            + "FROM pg_depend d "
+            + "JOIN pg_class s ON s.oid = d.objid AND s.relkind = 'S' "
+            + "JOIN pg_class t ON t.oid = d.refobjid "
+            + "JOIN pg_attribute a ON a.attrelid = t.oid AND a.attnum = d.refobjsubid "
+            + "JOIN pg_namespace n ON n.oid = s.relnamespace "
+            + "WHERE n.nspname = ? AND d.deptype = 'a' ORDER BY t.relname, a.attname";
+    static final String SCHEMA_EXISTS_SQL = "SELECT EXISTS (SELECT 1 FROM information_schema.schemata WHERE schema_name = ?)";
+    private static final String SCHEMA = "{schema}";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TenantRegistry tenantRegistry;
+    private final TenantSchemaMigrator schemaMigrator;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor;
+
+    private volatile List<String> cloneScript;
+
+    @Autowired
+    public TenantProvisioningService(JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     TenantRegistry tenantRegistry,
+                                     TenantSchemaMigrator schemaMigrator,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${app.tenants.provisioning.parallelism:4}") int parallelism) {
+        this(jdbcTemplate, new TransactionTemplate(transactionManager), tenantRegistry, schemaMigrator, meterRegistry,
+                ContextSnapshot.propagating(Executors.newFixedThreadPool(Math.max(parallelism, 1), runnable -> {
+                    Thread thread = new Thread(runnable, "tenant-provisioning");
+                    thread.setDaemon(true);
+                    return thread;
+                })));
+    }
+
+    TenantProvisioningService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                              TenantRegistry tenantRegistry, TenantSchemaMigrator schemaMigrator,
+                              MeterRegistry meterRegistry, ExecutorService executor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.tenantRegistry = tenantRegistry;
+        this.schemaMigrator = schemaMigrator;
+        this.meterRegistry = meterRegistry;
+        this.executor = executor;
+    }
+
+    /** Creates the tenant's schema unless it exists, and registers the tenant either way. */
+    public TenantProvisioningResult provision(Long tenantId) {
+        if (tenantId == null || tenantId <= 0) {
+            throw new IllegalArgumentException("tenantId must be positive");
+        }
+        String schema = "tenant_" + tenantId;
+        long startedAt = System.nanoTime();
+        TenantProvisioningResult.Status status;
+        try {
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(SCHEMA_EXISTS_SQL, Boolean.class, schema))) {
+                status = TenantProvisioningResult.Status.ALREADY_EXISTS;
+            } else {
+                List<String> statements = cloneScript().stream()
+                        .map(statement -> statement.replace(SCHEMA, schema))
+                        .toList();
+                transactionTemplate.executeWithoutResult(tx -> jdbcTemplate.batchUpdate(statements.toArray(String[]::new)));
+                // Cloned at the template's version: nothing for lazy migration to do on first access.
+                schemaMigrator.markMigrated(schema);
+                status = TenantProvisioningResult.Status.CREATED;
+            }
+            tenantRegistry.register(tenantId);
+        } catch (DataAccessException e) {
+            log.warn("Provisioning tenant {} failed: {}", tenantId, e.getMessage());
+            return result(tenantId, TenantProvisioningResult.Status.FAILED, startedAt, e.getMessage());
+        }
+        return result(tenantId, status, startedAt, null);
+    }
+
+    /** Provisions tenants in parallel and waits for all of them; results are in input order. */
+    public List<TenantProvisioningResult> provisionAll(Collection<Long> tenantIds) {
+        tenantIds.forEach(tenantId -> {
+            if (tenantId == null || tenantId <= 0) {
+                throw new IllegalArgumentException("tenantId must be positive");
+            }
+        });
+        cloneScript();
+        List<CompletableFuture<TenantProvisioningResult>> futures = new ArrayList<>(tenantIds.size());
+        for (Long tenantId : tenantIds) {
+            futures.add(CompletableFuture.supplyAsync(() -> provision(tenantId), executor));
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** DDL to clone the template, with a {schema} placeholder; read from the catalog once, since only migrations change it. */
+    List<String> cloneScript() {
+        List<String> script = cloneScript;
+        if (script == null) {
+            synchronized (this) {
+                script = cloneScript;
+                if (script == null) {
+                    script = buildCloneScript();
+                    cloneScript = script;
+                }
+            }
+        }
+        return script;
+    }
+
+    private List<String> buildCloneScript() {
+        List<String> tables = jdbcTemplate.queryForList(TABLES_SQL, String.class, TEMPLATE_SCHEMA);
+        if (tables.isEmpty()) {
+            throw new IllegalStateException("Template schema " + TEMPLATE_SCHEMA + " has no tables; are tenant migrations applied?");
+        }
+        List<String> script = new ArrayList<>();
+        script.add("CREATE SCHEMA " + SCHEMA);
+        for (String table : tables) {
+            script.add("CREATE TABLE " + SCHEMA + "." + quote(table)
+                    + " (LIKE " + TEMPLATE_SCHEMA + "." + quote(table) + " INCLUDING ALL)");
+        }
+        jdbcTemplate.query(OWNED_SEQUENCES_SQL, row -> {
+            String table = quote(row.getString("table_name"));
+            String column = quote(row.getString("column_name"));
+            String sequence = SCHEMA + "." + quote(row.getString("sequence_name"));
+            script.add("CREATE SEQUENCE " + sequence + " OWNED BY " + SCHEMA + "." + table + "." + column);
+            script.add("ALTER TABLE " + SCHEMA + "." + table + " ALTER COLUMN " + column
+                    + " SET DEFAULT nextval('" + sequence + "')");
+        }, TEMPLATE_SCHEMA);
+        if (tables.contains(HISTORY_TABLE)) {
+            script.add("INSERT INTO " + SCHEMA + "." + HISTORY_TABLE + " SELECT * FROM " + TEMPLATE_SCHEMA + "." + HISTORY_TABLE);
+        }
+        log.info("Tenant clone script built from {}: {} tables, {} statements", TEMPLATE_SCHEMA, tables.size(), script.size());
+        return List.copyOf(script);
+    }
+
+    private TenantProvisioningResult result(Long tenantId, TenantProvisioningResult.Status status, long startedAt, String error) {
+        long elapsed = System.nanoTime() - startedAt;
+        Timer.builder("tenant.provisioning.duration")
+                .tag("status", status.name())
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        return new TenantProvisioningResult(tenantId, status, TimeUnit.NANOSECONDS.toMillis(elapsed), error);
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,88 @@
+package com.theratime.tenant;
+
+import com.theratime.config.TenantSchemaMigrator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tenants this instance serves: the ids in {@code app.outbox.tenant-ids} plus every {@code tenant_<id>} schema,
+ * re-read every {@code app.tenants.refresh-interval-ms} so tenants provisioned by another instance are picked up.
+ * The outbox publisher and backfill iterate these ids; a {@link TenantProvisionedEvent} is published for each
+ * tenant beyond the configured ones; {@code CalendarBlockCache} drops that tenant's entries on it.
+ */
+@Component
+@Slf4j
+public class TenantRegistry {
+
+    private static final Pattern TENANT_SCHEMA = Pattern.compile("tenant_(\\d+)");
+
+    private final DataSource dataSource;
+    private final TenantSchemaMigrator schemaMigrator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Set<Long> tenantIds = ConcurrentHashMap.newKeySet();
+
+    public TenantRegistry(DataSource dataSource,
+                          TenantSchemaMigrator schemaMigrator,
+                          ApplicationEventPublisher eventPublisher,
+                          @Value("${app.outbox.tenant-ids:1,2}") String tenantIdsConfig) {
+        this.dataSource = dataSource;
+        this.schemaMigrator = schemaMigrator;
+        this.eventPublisher = eventPublisher;
+        Arrays.stream(tenantIdsConfig.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(Long::parseLong)
+                .forEach(tenantIds::add);
+    }
+
+    /** Registered tenant ids in ascending order. */
+    public List<Long> tenantIds() {
+        return tenantIds.stream().sorted().toList();
+    }
+
+    public boolean contains(Long tenantId) {
+        return tenantId != null && tenantIds.contains(tenantId);
+    }
+
+    /** Adds a tenant; returns false if it was already registered. */
+    public boolean register(Long tenantId) {
+        if (!tenantIds.add(tenantId)) {
+            return false;
+        }
+        log.info("Registered tenant {}", tenantId);
+        eventPublisher.publishEvent(new TenantProvisionedEvent(tenantId));
+        return true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.tenants.refresh-interval-ms:60000}",
+            initialDelayString = "${app.tenants.refresh-interval-ms:60000}")
+    public void refresh() {
+        List<String> schemas;
+        try {
+            schemas = schemaMigrator.tenantSchemas(dataSource);
+        } catch (IllegalStateException e) {
+            log.warn("Could not refresh tenants from schemas: {}", e.getMessage());
+            return;
+        }
+        for (String schema : schemas) {
+            Matcher matcher = TENANT_SCHEMA.matcher(schema);
+            if (matcher.matches()) {
+                register(Long.parseLong(matcher.group(1)));
+            }
+        }
+    }
+}
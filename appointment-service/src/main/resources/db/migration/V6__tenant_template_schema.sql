@@ -0,0 +1,3 @@
+-- Template for new tenants: the tenant migrations (db/tenant) keep it at the latest tenant version,
+-- and TenantProvisioningService clones it into tenant_<id>.
+CREATE SCHEMA IF NOT EXISTS tenant_template;
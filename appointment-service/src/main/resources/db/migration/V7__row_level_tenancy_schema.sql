@@ -0,0 +1,69 @@
+-- Row-level tenancy (app.tenancy.mode=row): every tenant in one schema, scoped by tenant_id.
+-- tenant_id defaults to the connection's app.tenant_id (set by RowLevelTenantDataSource), so the entities
+-- need no tenant_id mapping. Row ids are only unique per tenant (rows keep their ids when copied from a
+-- tenant schema), hence primary keys and indexes lead with tenant_id.
+
+CREATE SCHEMA IF NOT EXISTS shared_tenants;
+
+CREATE TABLE shared_tenants.appointments (
+    tenant_id BIGINT NOT NULL DEFAULT NULLIF(current_setting('app.tenant_id', true), '')::bigint,
+    id BIGSERIAL,
+    user_id BIGINT NOT NULL,
+    therapist_id BIGINT NOT NULL,
+    start_time TIMESTAMP NOT NULL,
+    end_time TIMESTAMP NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    google_meet_link VARCHAR(255),
+    version BIGINT DEFAULT 0 NOT NULL,
+    PRIMARY KEY (tenant_id, id)
+);
+
+CREATE TABLE shared_tenants.calendar_blocks (
+    tenant_id BIGINT NOT NULL DEFAULT NULLIF(current_setting('app.tenant_id', true), '')::bigint,
+    id BIGSERIAL,
+    therapist_id BIGINT NOT NULL,
+    start_time TIMESTAMP NOT NULL,
+    end_time TIMESTAMP NOT NULL,
+    reason VARCHAR(255),
+    PRIMARY KEY (tenant_id, id)
+);
+
+CREATE TABLE shared_tenants.outbox (
+    tenant_id BIGINT NOT NULL DEFAULT NULLIF(current_setting('app.tenant_id', true), '')::bigint,
+    id BIGSERIAL,
+    event_type VARCHAR(64) NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    last_attempt_at TIMESTAMP,
+    attempt_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (tenant_id, id)
+);
+
+-- Same indexes as the tenant schemas (db/tenant V1, V2), with tenant_id first.
+CREATE UNIQUE INDEX idx_shared_appointments_tenant_therapist_start
+    ON shared_tenants.appointments (tenant_id, therapist_id, start_time);
+CREATE INDEX idx_shared_appointments_tenant_therapist_start_end
+    ON shared_tenants.appointments (tenant_id, therapist_id, start_time, end_time);
+CREATE INDEX idx_shared_calendar_blocks_tenant_therapist_start_end
+    ON shared_tenants.calendar_blocks (tenant_id, therapist_id, start_time, end_time);
+CREATE INDEX idx_shared_outbox_tenant_status_created
+    ON shared_tenants.outbox (tenant_id, status, created_at)
+    WHERE status = 'PENDING';
+
+-- Row-level security: a connection only sees and writes rows of its app.tenant_id. FORCE applies the policy to the
+-- table owner (the application user) as well. Without app.tenant_id no rows match.
+ALTER TABLE shared_tenants.appointments ENABLE ROW LEVEL SECURITY;
+ALTER TABLE shared_tenants.appointments FORCE ROW LEVEL SECURITY;
+CREATE POLICY tenant_isolation ON shared_tenants.appointments
+    USING (tenant_id = NULLIF(current_setting('app.tenant_id', true), '')::bigint);
+
+ALTER TABLE shared_tenants.calendar_blocks ENABLE ROW LEVEL SECURITY;
+ALTER TABLE shared_tenants.calendar_blocks FORCE ROW LEVEL SECURITY;
+CREATE POLICY tenant_isolation ON shared_tenants.calendar_blocks
+    USING (tenant_id = NULLIF(current_setting('app.tenant_id', true), '')::bigint);
+
+ALTER TABLE shared_tenants.outbox ENABLE ROW LEVEL SECURITY;
+ALTER TABLE shared_tenants.outbox FORCE ROW LEVEL SECURITY;
+CREATE POLICY tenant_isolation ON shared_tenants.outbox
+    USING (tenant_id = NULLIF(current_setting('app.tenant_id', true), '')::bigint);
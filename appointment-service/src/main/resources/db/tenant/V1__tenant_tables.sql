@@ -0,0 +1,39 @@
+-- Tenant schema baseline: the tables V4/V5 created in tenant_1 and tenant_2.
+-- Runs unqualified in the tenant schema being migrated (TenantSchemaMigrator sets it as Flyway's schema).
+-- Existing tenant schemas are baselined at this version and skip it.
+
+CREATE TABLE IF NOT EXISTS appointments (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    therapist_id BIGINT NOT NULL,
+    start_time TIMESTAMP NOT NULL,
+    end_time TIMESTAMP NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    google_meet_link VARCHAR(255),
+    version BIGINT DEFAULT 0 NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS calendar_blocks (
+    id BIGSERIAL PRIMARY KEY,
+    therapist_id BIGINT NOT NULL,
+    start_time TIMESTAMP NOT NULL,
+    end_time TIMESTAMP NOT NULL,
+    reason VARCHAR(255)
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_appointments_therapist_start
+    ON appointments (therapist_id, start_time);
+
+CREATE TABLE IF NOT EXISTS outbox (
+    id BIGSERIAL PRIMARY KEY,
+    tenant_id BIGINT NOT NULL,
+    event_type VARCHAR(64) NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    last_attempt_at TIMESTAMP,
+    attempt_count INT NOT NULL DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_status_created ON outbox (status, created_at)
+    WHERE status = 'PENDING';
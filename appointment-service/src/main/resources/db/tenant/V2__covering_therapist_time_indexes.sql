@@ -0,0 +1,8 @@
+-- Covering indexes for the overlap checks (therapist_id = ? AND start_time < ? AND end_time > ?)
+-- and the calendar view (therapist_id = ?): index-only scans on appointments, and no more
+-- sequential scan of calendar_blocks in isTherapistBlocked.
+CREATE INDEX IF NOT EXISTS idx_appointments_therapist_start_end
+    ON appointments (therapist_id, start_time, end_time);
+
+CREATE INDEX IF NOT EXISTS idx_calendar_blocks_therapist_start_end
+    ON calendar_blocks (therapist_id, start_time, end_time);
@@ -4,9 +4,13 @@ import com.theratime.appointment.entity.OutboxEntity;
 import com.theratime.appointment.repository.OutboxRepository;
 import com.theratime.appointment.service.AppointmentsService;
 import com.theratime.appointment.service.OutboxService;
+import com.theratime.appointment.service.UserLookupClient;
 import com.theratime.appointment.service.UserService;
+import com.theratime.appointment.service.UserSummary;
 import com.theratime.appointments.model.BookAppointmentRequest;
+import com.theratime.config.TenantSchemaMigrator;
 import com.theratime.security.TenantContext;
+import com.theratime.tenant.TenantRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
@@ -23,17 +27,20 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.testcontainers.containers.KafkaContainer;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import javax.sql.DataSource;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -71,9 +78,18 @@ class AppointmentBookingIntegrationTest {
     @Autowired
     private OutboxRepository outboxRepository;
 
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TenantSchemaMigrator tenantSchemaMigrator;
+
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private UserLookupClient userLookupClient;
+
     @AfterEach
     void clearTenantContext() {
         TenantContext.clear();
@@ -95,6 +111,8 @@ class AppointmentBookingIntegrationTest {
         when(userService.getTenantId(anyLong())).thenReturn(1L);
         when(userService.isUserPresent(anyLong())).thenReturn(true);
         when(userService.getUserRole(anyLong())).thenReturn("THERAPIST");
+        when(userLookupClient.findUser(3L)).thenReturn(CompletableFuture.completedFuture(new UserSummary(3L, "PATIENT", 1L)));
+        when(userLookupClient.findUser(2L)).thenReturn(CompletableFuture.completedFuture(new UserSummary(2L, "THERAPIST", 1L)));
 
         BookAppointmentRequest request = new BookAppointmentRequest()
                 .therapistId(2L)
@@ -119,7 +137,9 @@ class AppointmentBookingIntegrationTest {
                                 )
                         ),
                         new com.fasterxml.jackson.databind.ObjectMapper()
-                ));
+                ),
+                new TenantRegistry(dataSource, tenantSchemaMigrator, event -> { }, "1"));
+        ReflectionTestUtils.setField(publisher, "maxAttempts", 5);
         publisher.publishPending();
 
         // Assert: consume message from Kafka topic
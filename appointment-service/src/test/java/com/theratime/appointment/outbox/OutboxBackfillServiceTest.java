@@ -0,0 +1,194 @@
+package com.theratime.appointment.outbox;
+
+import com.theratime.appointment.entity.Appointment;
+import com.theratime.appointment.entity.AppointmentStatus;
+import com.theratime.appointment.entity.OutboxEntity;
+import com.theratime.appointment.repository.AppointmentRepository;
+import com.theratime.appointment.repository.OutboxRepository;
+import com.theratime.appointment.service.OutboxService;
+import com.theratime.tenant.TenantRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxBackfillServiceTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2025, 2, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2025, 3, 1, 0, 0);
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+    @Mock
+    private OutboxRepository outboxRepository;
+    @Mock
+    private OutboxService outboxService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private TenantRegistry tenantRegistry;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxBackfillService service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        service = new OutboxBackfillService(appointmentRepository, outboxRepository, outboxService,
+                transactionManager, meterRegistry, tenantRegistry, 2, 1000, 1000, 10, 10);
+        lenient().when(tenantRegistry.contains(1L)).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void start_appointments_enqueuesSnapshotsPageByPageFromCursor() throws Exception {
+        Appointment first = appointment(11L);
+        Appointment second = appointment(12L);
+        Appointment third = appointment(15L);
+        when(appointmentRepository.findBackfillPage(eq(10L), eq(FROM), eq(TO), any())).thenReturn(List.of(first, second));
+        when(appointmentRepository.findBackfillPage(eq(12L), eq(FROM), eq(TO), any())).thenReturn(List.of(third));
+
+        service.start(request(OutboxBackfillRequest.Source.APPOINTMENTS, 10L));
+        OutboxBackfillStatus status = awaitFinished();
+
+        assertThat(status.state()).isEqualTo(OutboxBackfillStatus.State.COMPLETED);
+        assertThat(status.enqueued()).isEqualTo(3);
+        assertThat(status.cursor()).isEqualTo(15L);
+        assertThat(status.runId()).isNotBlank();
+        verify(outboxService).enqueueSnapshot(1L, first, status.runId());
+        verify(outboxService).enqueueSnapshot(1L, second, status.runId());
+        verify(outboxService).enqueueSnapshot(1L, third, status.runId());
+        verify(transactionManager, times(2)).commit(any());
+        assertThat(meterRegistry.counter("outbox.backfill.enqueued", "source", "APPOINTMENTS").count()).isEqualTo(3);
+    }
+
+    @Test
+    void start_outbox_requeuesRowsUpToMaxIdSeenAtStart() throws Exception {
+        OutboxEntity sent = OutboxEntity.builder().id(7L).tenantId(1L).status(OutboxEntity.STATUS_SENT).build();
+        when(outboxRepository.findMaxId()).thenReturn(40L);
+        when(outboxRepository.findBackfillPage(eq(0L), eq(40L), eq(FROM), eq(TO), any())).thenReturn(List.of(sent));
+
+        service.start(request(OutboxBackfillRequest.Source.OUTBOX, 0L));
+        OutboxBackfillStatus status = awaitFinished();
+
+        assertThat(status.state()).isEqualTo(OutboxBackfillStatus.State.COMPLETED);
+        assertThat(status.cursor()).isEqualTo(7L);
+        assertThat(status.maxId()).isEqualTo(40L);
+        verify(outboxService).requeue(sent, status.runId());
+        verifyNoInteractions(appointmentRepository);
+    }
+
+    @Test
+    void start_eachRunGetsNewRunIdUnlessResumed() throws Exception {
+        String first = service.start(request(OutboxBackfillRequest.Source.APPOINTMENTS, 0L)).runId();
+        awaitFinished();
+        String second = service.start(request(OutboxBackfillRequest.Source.APPOINTMENTS, 0L)).runId();
+        awaitFinished();
+        String resumed = service.start(OutboxBackfillRequest.builder()
+                .tenantId(1L).from(FROM).to(TO).afterId(5L).runId(first)
+                .build()).runId();
+        awaitFinished();
+
+        assertThat(first).isNotEqualTo(second);
+        assertThat(resumed).isEqualTo(first);
+    }
+
+    @Test
+    void start_outbox_resumeKeepsOriginalMaxId() throws Exception {
+        OutboxEntity sent = OutboxEntity.builder().id(12L).tenantId(1L).status(OutboxEntity.STATUS_SENT).build();
+        when(outboxRepository.findBackfillPage(eq(7L), eq(40L), eq(FROM), eq(TO), any())).thenReturn(List.of(sent));
+
+        service.start(OutboxBackfillRequest.builder()
+                .tenantId(1L).source(OutboxBackfillRequest.Source.OUTBOX).from(FROM).to(TO)
+                .afterId(7L).maxId(40L).runId("run-1")
+                .build());
+        OutboxBackfillStatus status = awaitFinished();
+
+        assertThat(status.state()).isEqualTo(OutboxBackfillStatus.State.COMPLETED);
+        assertThat(status.maxId()).isEqualTo(40L);
+        verify(outboxRepository, never()).findMaxId();
+        verify(outboxService).requeue(sent, "run-1");
+    }
+
+    @Test
+    void start_waitsWhileOutboxBacklogIsFull() throws Exception {
+        when(outboxRepository.countByStatus(OutboxEntity.STATUS_PENDING)).thenReturn(10L, 10L, 0L);
+        when(appointmentRepository.findBackfillPage(anyLong(), any(), any(), any())).thenReturn(List.of());
+
+        service.start(request(OutboxBackfillRequest.Source.APPOINTMENTS, 0L));
+        awaitFinished();
+
+        verify(outboxRepository, times(3)).countByStatus(OutboxEntity.STATUS_PENDING);
+        verify(appointmentRepository).findBackfillPage(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void start_whenPageFails_reportsFailedWithLastCommittedCursor() throws Exception {
+        when(appointmentRepository.findBackfillPage(eq(0L), any(), any(), any()))
+                .thenReturn(List.of(appointment(3L), appointment(4L)));
+        when(appointmentRepository.findBackfillPage(eq(4L), any(), any(), any()))
+                .thenThrow(new IllegalStateException("db down"));
+
+        service.start(request(OutboxBackfillRequest.Source.APPOINTMENTS, 0L));
+        OutboxBackfillStatus status = awaitFinished();
+
+        assertThat(status.state()).isEqualTo(OutboxBackfillStatus.State.FAILED);
+        assertThat(status.cursor()).isEqualTo(4L);
+        assertThat(status.error()).isEqualTo("db down");
+    }
+
+    @Test
+    void start_rejectsUnpublishedTenantAndEmptyRange() {
+        assertThatThrownBy(() -> service.start(OutboxBackfillRequest.builder().tenantId(9L).from(FROM).to(TO).build()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.start(OutboxBackfillRequest.builder().tenantId(1L).from(TO).to(FROM).build()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(service.status().state()).isEqualTo(OutboxBackfillStatus.State.IDLE);
+    }
+
+    @Test
+    void cancel_whenIdle_returnsFalse() {
+        assertThat(service.cancel()).isFalse();
+    }
+
+    private static OutboxBackfillRequest request(OutboxBackfillRequest.Source source, long afterId) {
+        return OutboxBackfillRequest.builder()
+                .tenantId(1L)
+                .source(source)
+                .from(FROM)
+                .to(TO)
+                .afterId(afterId)
+                .build();
+    }
+
+    private static Appointment appointment(Long id) {
+        return Appointment.builder().id(id).userId(3L).therapistId(2L).status(AppointmentStatus.BOOKED).version(0L).build();
+    }
+
+    private OutboxBackfillStatus awaitFinished() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (service.status().state() == OutboxBackfillStatus.State.RUNNING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return service.status();
+    }
+}
@@ -4,6 +4,7 @@ import com.theratime.appointment.entity.OutboxEntity;
 import com.theratime.appointment.event.AppointmentEventPublisher;
 import com.theratime.appointment.repository.OutboxRepository;
 import com.theratime.security.TenantContext;
+import com.theratime.tenant.TenantRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -28,6 +29,8 @@ class OutboxPublisherTest {
     private OutboxRepository outboxRepository;
     @Mock
     private AppointmentEventPublisher eventPublisher;
+    @Mock
+    private TenantRegistry tenantRegistry;
 
     @InjectMocks
     private OutboxPublisher publisher;
@@ -38,8 +41,8 @@ class OutboxPublisherTest {
     }
 
     @Test
-    void publishPending_parsesTenantIdsAndPublishes() {
-        ReflectionTestUtils.setField(publisher, "tenantIdsConfig", "1");
+    void publishPending_publishesForRegisteredTenants() {
+        when(tenantRegistry.tenantIds()).thenReturn(List.of(1L));
         ReflectionTestUtils.setField(publisher, "maxAttempts", 5);
 
         OutboxEntity row = OutboxEntity.builder()
@@ -63,7 +66,7 @@ class OutboxPublisherTest {
 
     @Test
     void publishPending_whenAttemptCountExceedsMax_marksFailed() {
-        ReflectionTestUtils.setField(publisher, "tenantIdsConfig", "1");
+        when(tenantRegistry.tenantIds()).thenReturn(List.of(1L));
         ReflectionTestUtils.setField(publisher, "maxAttempts", 3);
 
         OutboxEntity row = OutboxEntity.builder()
@@ -86,7 +89,7 @@ class OutboxPublisherTest {
 
     @Test
     void publishPending_whenSendThrows_incrementsAttemptAndSaves() {
-        ReflectionTestUtils.setField(publisher, "tenantIdsConfig", "1");
+        when(tenantRegistry.tenantIds()).thenReturn(List.of(1L));
         ReflectionTestUtils.setField(publisher, "maxAttempts", 5);
 
         OutboxEntity row = OutboxEntity.builder()
@@ -110,7 +113,7 @@ class OutboxPublisherTest {
 
     @Test
     void publishPending_whenAttemptCountNull_treatsAsZero() {
-        ReflectionTestUtils.setField(publisher, "tenantIdsConfig", "1");
+        when(tenantRegistry.tenantIds()).thenReturn(List.of(1L));
         ReflectionTestUtils.setField(publisher, "maxAttempts", 5);
 
         OutboxEntity row = OutboxEntity.builder()
@@ -25,6 +25,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -43,6 +44,8 @@ class AppointmentsServiceTest {
     @Mock
     private UserService userService;
     @Mock
+    private UserLookupClient userLookupClient;
+    @Mock
     private OutboxService outboxService;
 
     @InjectMocks
@@ -74,10 +77,8 @@ class AppointmentsServiceTest {
         appointment.setUserId(3L);
 
         when(userService.getTenantId(10L)).thenReturn(1L);
-        when(userService.getTenantId(3L)).thenReturn(1L);
-        when(userService.getTenantId(2L)).thenReturn(1L);
-        when(userService.isUserPresent(3L)).thenReturn(true);
-        when(userService.getUserRole(2L)).thenReturn("THERAPIST");
+        when(userLookupClient.findUser(3L)).thenReturn(user(3L, "USER", 1L));
+        when(userLookupClient.findUser(2L)).thenReturn(user(2L, "THERAPIST", 1L));
         when(calendarBlockService.isTherapistBlocked(anyLong(), any(), any())).thenReturn(false);
         when(appointmentMapper.toEntity(request)).thenReturn(appointment);
         when(appointmentMapper.toResponse(appointment)).thenReturn(new AppointmentResponse().id(42L));
@@ -100,10 +101,8 @@ class AppointmentsServiceTest {
                 .endTime(LocalDateTime.now().plusDays(1).plusHours(1).atOffset(java.time.ZoneOffset.UTC));
 
         when(userService.getTenantId(10L)).thenReturn(1L);
-        when(userService.getTenantId(3L)).thenReturn(1L);
-        when(userService.getTenantId(2L)).thenReturn(1L);
-        when(userService.isUserPresent(3L)).thenReturn(true);
-        when(userService.getUserRole(2L)).thenReturn("THERAPIST");
+        when(userLookupClient.findUser(3L)).thenReturn(user(3L, "USER", 1L));
+        when(userLookupClient.findUser(2L)).thenReturn(user(2L, "THERAPIST", 1L));
         when(calendarBlockService.isTherapistBlocked(anyLong(), any(), any())).thenReturn(true);
 
         assertThatThrownBy(() -> appointmentsService.bookAppointment(request))
@@ -126,9 +125,9 @@ class AppointmentsServiceTest {
         appointment.setTherapistId(2L);
         appointment.setUserId(3L);
 
-        when(userService.getTenantId(anyLong())).thenReturn(1L);
-        when(userService.isUserPresent(anyLong())).thenReturn(true);
-        when(userService.getUserRole(anyLong())).thenReturn("THERAPIST");
+        when(userService.getTenantId(10L)).thenReturn(1L);
+        when(userLookupClient.findUser(3L)).thenReturn(user(3L, "USER", 1L));
+        when(userLookupClient.findUser(2L)).thenReturn(user(2L, "THERAPIST", 1L));
         when(calendarBlockService.isTherapistBlocked(anyLong(), any(), any())).thenReturn(false);
         when(appointmentMapper.toEntity(request)).thenReturn(appointment);
         when(appointmentRepository.save(appointment)).thenThrow(new DataIntegrityViolationException("duplicate"));
@@ -189,8 +188,8 @@ class AppointmentsServiceTest {
                 .endTime(LocalDateTime.now().plusDays(1).plusHours(1).atOffset(java.time.ZoneOffset.UTC));
 
         when(userService.getTenantId(10L)).thenReturn(1L);
-        when(userService.isUserPresent(3L)).thenReturn(true);
-        when(userService.getUserRole(2L)).thenReturn("USER");
+        when(userLookupClient.findUser(3L)).thenReturn(user(3L, "USER", 1L));
+        when(userLookupClient.findUser(2L)).thenReturn(user(2L, "USER", 1L));
 
         assertThatThrownBy(() -> appointmentsService.bookAppointment(request))
                 .isInstanceOf(BusinessException.class)
@@ -198,6 +197,25 @@ class AppointmentsServiceTest {
         verify(appointmentRepository, never()).save(any());
     }
 
+    @Test
+    void bookAppointment_patientMissing_throwsResourceNotFound() {
+        BookAppointmentRequest request = new BookAppointmentRequest()
+                .therapistId(2L)
+                .userId(3L)
+                .startTime(LocalDateTime.now().plusDays(1).atOffset(java.time.ZoneOffset.UTC))
+                .endTime(LocalDateTime.now().plusDays(1).plusHours(1).atOffset(java.time.ZoneOffset.UTC));
+
+        when(userService.getTenantId(10L)).thenReturn(1L);
+        when(userLookupClient.findUser(3L)).thenReturn(
+                CompletableFuture.failedFuture(new ResourceNotFoundException("User with ID 3 does not exist")));
+        when(userLookupClient.findUser(2L)).thenReturn(user(2L, "THERAPIST", 1L));
+
+        assertThatThrownBy(() -> appointmentsService.bookAppointment(request))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("User with ID 3");
+        verify(appointmentRepository, never()).save(any());
+    }
+
     @Test
     void bookAppointment_differentTenant_throwsBusinessException() {
         BookAppointmentRequest request = new BookAppointmentRequest()
@@ -207,10 +225,8 @@ class AppointmentsServiceTest {
                 .endTime(LocalDateTime.now().plusDays(1).plusHours(1).atOffset(java.time.ZoneOffset.UTC));
 
         when(userService.getTenantId(10L)).thenReturn(1L);
-        when(userService.getTenantId(3L)).thenReturn(2L);
-        when(userService.getTenantId(2L)).thenReturn(1L);
-        when(userService.isUserPresent(3L)).thenReturn(true);
-        when(userService.getUserRole(2L)).thenReturn("THERAPIST");
+        when(userLookupClient.findUser(3L)).thenReturn(user(3L, "USER", 2L));
+        when(userLookupClient.findUser(2L)).thenReturn(user(2L, "THERAPIST", 1L));
 
         assertThatThrownBy(() -> appointmentsService.bookAppointment(request))
                 .isInstanceOf(BusinessException.class)
@@ -226,9 +242,9 @@ class AppointmentsServiceTest {
                 .startTime(LocalDateTime.now().plusDays(1).atOffset(java.time.ZoneOffset.UTC))
                 .endTime(LocalDateTime.now().plusDays(1).plusHours(1).atOffset(java.time.ZoneOffset.UTC));
 
-        when(userService.getTenantId(anyLong())).thenReturn(1L);
-        when(userService.isUserPresent(anyLong())).thenReturn(true);
-        when(userService.getUserRole(anyLong())).thenReturn("THERAPIST");
+        when(userService.getTenantId(10L)).thenReturn(1L);
+        when(userLookupClient.findUser(3L)).thenReturn(user(3L, "USER", 1L));
+        when(userLookupClient.findUser(2L)).thenReturn(user(2L, "THERAPIST", 1L));
         when(calendarBlockService.isTherapistBlocked(anyLong(), any(), any())).thenReturn(false);
         when(appointmentRepository.existsOverlappingAppointment(eq(2L), any(), any())).thenReturn(true);
 
@@ -364,5 +380,8 @@ class AppointmentsServiceTest {
         verify(appointmentRepository).save(appointment);
         verify(outboxService).enqueueEvent(TenantContext.getTenantId(), appointment, "appointment.cancelled");
     }
-}
 
+    private static CompletableFuture<UserSummary> user(Long id, String role, Long tenantId) {
+        return CompletableFuture.completedFuture(new UserSummary(id, role, tenantId));
+    }
+}
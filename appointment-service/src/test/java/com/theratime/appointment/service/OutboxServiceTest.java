@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.theratime.appointment.entity.Appointment;
 import com.theratime.appointment.entity.AppointmentStatus;
 import com.theratime.appointment.entity.OutboxEntity;
+import com.theratime.appointment.event.AppointmentEventPayload;
 import com.theratime.appointment.repository.OutboxRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,6 +15,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -68,5 +70,63 @@ class OutboxServiceTest {
 
         verify(outboxRepository, never()).save(any());
     }
-}
 
+    @Test
+    void enqueueSnapshot_cancelledAppointment_usesCancelledTypeAndRunScopedEventId() throws Exception {
+        Appointment appointment = Appointment.builder()
+                .id(10L)
+                .userId(3L)
+                .therapistId(2L)
+                .status(AppointmentStatus.CANCELLED)
+                .version(4L)
+                .build();
+        when(objectMapper.writeValueAsString(any())).thenReturn("{}");
+
+        outboxService.enqueueSnapshot(1L, appointment, "run-1");
+
+        ArgumentCaptor<AppointmentEventPayload> payload = ArgumentCaptor.forClass(AppointmentEventPayload.class);
+        verify(objectMapper).writeValueAsString(payload.capture());
+        assertThat(payload.getValue().getEventType()).isEqualTo(AppointmentEventPayload.EVENT_CANCELLED);
+        assertThat(payload.getValue().getEventId()).isEqualTo("backfill-run-1-10");
+        ArgumentCaptor<OutboxEntity> captor = ArgumentCaptor.forClass(OutboxEntity.class);
+        verify(outboxRepository).save(captor.capture());
+        assertThat(captor.getValue().getEventType()).isEqualTo(AppointmentEventPayload.EVENT_CANCELLED);
+    }
+
+    @Test
+    void requeue_savesNewPendingRowWithRunScopedEventId() throws Exception {
+        OutboxEntity sent = OutboxEntity.builder()
+                .id(5L)
+                .tenantId(1L)
+                .eventType("appointment.created")
+                .payload("{\"eventId\":\"e-1\",\"appointmentId\":10}")
+                .status(OutboxEntity.STATUS_SENT)
+                .attemptCount(1)
+                .build();
+        ObjectMapper json = new ObjectMapper();
+        when(objectMapper.readTree(sent.getPayload())).thenReturn(json.readTree(sent.getPayload()));
+        when(objectMapper.writeValueAsString(any())).thenAnswer(invocation -> json.writeValueAsString(invocation.getArgument(0)));
+
+        outboxService.requeue(sent, "run-1");
+
+        ArgumentCaptor<OutboxEntity> captor = ArgumentCaptor.forClass(OutboxEntity.class);
+        verify(outboxRepository).save(captor.capture());
+        OutboxEntity saved = captor.getValue();
+        assertThat(saved.getId()).isNull();
+        assertThat(saved.getEventType()).isEqualTo("appointment.created");
+        assertThat(saved.getPayload()).isEqualTo("{\"eventId\":\"e-1-backfill-run-1\",\"appointmentId\":10}");
+        assertThat(saved.getStatus()).isEqualTo(OutboxEntity.STATUS_PENDING);
+        assertThat(saved.getAttemptCount()).isEqualTo(0);
+    }
+
+    @Test
+    void requeue_whenPayloadIsNotAnObject_throwsAndSavesNothing() throws Exception {
+        OutboxEntity sent = OutboxEntity.builder().id(5L).tenantId(1L).payload("[]").build();
+        when(objectMapper.readTree("[]")).thenReturn(new ObjectMapper().readTree("[]"));
+
+        assertThatThrownBy(() -> outboxService.requeue(sent, "run-1"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Outbox row 5");
+        verify(outboxRepository, never()).save(any());
+    }
+}
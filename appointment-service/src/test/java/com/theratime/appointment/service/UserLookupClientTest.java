@@ -0,0 +1,248 @@
+package com.theratime.appointment.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.theratime.exception.ResourceNotFoundException;
+import com.theratime.security.TenantContext;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.MDC;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.ConnectException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserLookupClientTest {
+
+    @Mock
+    private HttpClient httpClient;
+
+    private ScheduledExecutorService scheduler;
+    private CircuitBreaker circuitBreaker;
+    private Retry retry;
+    private TimeLimiter timeLimiter;
+    private SimpleMeterRegistry meterRegistry;
+    private UserLookupClient client;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        meterRegistry = new SimpleMeterRegistry();
+        circuitBreaker = CircuitBreaker.ofDefaults("test");
+        retry = Retry.of("test", RetryConfig.custom()
+                .maxAttempts(3)
+                .waitDuration(Duration.ofMillis(1))
+                .retryExceptions(ResourceAccessException.class, HttpServerErrorException.class, TimeoutException.class)
+                .build());
+        timeLimiter = TimeLimiter.of(TimeLimiterConfig.custom().timeoutDuration(Duration.ofMillis(200)).build());
+        client = client(latency(false, false));
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+        TenantContext.clear();
+        MDC.clear();
+    }
+
+    @Test
+    void findUser_parsesRoleAndTenant() {
+        CompletableFuture<HttpResponse<Object>> reply = response(200, "{\"id\":2,\"role\":\"THERAPIST\",\"tenantId\":5}");
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(reply);
+
+        UserSummary user = UserLookupClient.await(client.findUser(2L));
+
+        assertThat(user).isEqualTo(new UserSummary(2L, "THERAPIST", 5L));
+    }
+
+    @Test
+    void findUser_missingTenant_defaultsToOne() {
+        CompletableFuture<HttpResponse<Object>> reply = response(200, "{\"id\":3}");
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(reply);
+
+        assertThat(UserLookupClient.await(client.findUser(3L))).isEqualTo(new UserSummary(3L, null, 1L));
+    }
+
+    @Test
+    void findUser_notFound_isNotRetried() {
+        CompletableFuture<HttpResponse<Object>> reply = response(404, "");
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(reply);
+
+        assertThatThrownBy(() -> UserLookupClient.await(client.findUser(9L)))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("does not exist");
+        verify(httpClient, times(1)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    }
+
+    @Test
+    void findUser_serverErrorThenSuccess_isRetried() {
+        CompletableFuture<HttpResponse<Object>> first = response(503, "unavailable");
+        CompletableFuture<HttpResponse<Object>> second = response(200, "{\"id\":2,\"role\":\"THERAPIST\"}");
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(first)
+                .thenReturn(second);
+
+        assertThat(UserLookupClient.await(client.findUser(2L)).role()).isEqualTo("THERAPIST");
+        verify(httpClient, times(2)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    }
+
+    @Test
+    void findUser_connectionFailure_surfacesResourceAccessAfterRetries() {
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.failedFuture(new ConnectException("refused")));
+
+        assertThatThrownBy(() -> UserLookupClient.await(client.findUser(2L)))
+                .isInstanceOf(ResourceAccessException.class);
+        verify(httpClient, times(3)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isEqualTo(3);
+    }
+
+    @Test
+    void findUser_slowAttempt_isTimedOutAndRetried() {
+        CompletableFuture<HttpResponse<Object>> reply = response(200, "{\"id\":2,\"role\":\"THERAPIST\"}");
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(new CompletableFuture<>())
+                .thenReturn(reply);
+
+        assertThat(UserLookupClient.await(client.findUser(2L)).role()).isEqualTo("THERAPIST");
+        verify(httpClient, times(2)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    }
+
+    @Test
+    void findUser_slowRequest_isHedgedAndHedgeWins() {
+        client = client(latency(true, false));
+        CompletableFuture<HttpResponse<Object>> reply = response(200, "{\"id\":2,\"role\":\"THERAPIST\"}");
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(new CompletableFuture<>())
+                .thenReturn(reply);
+
+        assertThat(UserLookupClient.await(client.findUser(2L)).role()).isEqualTo("THERAPIST");
+        verify(httpClient, times(2)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        assertThat(meterRegistry.counter("user.lookup.hedges").count()).isEqualTo(1);
+        // The win is counted just after the result completes, on the HTTP client's thread.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (meterRegistry.counter("user.lookup.hedge.wins").count() == 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(meterRegistry.counter("user.lookup.hedge.wins").count()).isEqualTo(1);
+    }
+
+    @Test
+    void findUser_primaryFailsWhileHedgeInFlight_usesHedge() {
+        client = client(latency(true, false));
+        CompletableFuture<HttpResponse<Object>> primary = new CompletableFuture<>();
+        CompletableFuture<HttpResponse<Object>> hedge = new CompletableFuture<>();
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(primary)
+                .thenReturn(hedge);
+
+        CompletableFuture<UserSummary> lookup = client.findUser(2L);
+        verify(httpClient, timeout(1000).times(2)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        primary.completeExceptionally(new ConnectException("reset"));
+        hedge.complete(response(200, "{\"id\":2,\"role\":\"THERAPIST\"}").join());
+
+        assertThat(UserLookupClient.await(lookup).role()).isEqualTo("THERAPIST");
+    }
+
+    @Test
+    void findUser_hedgeAndResponseHandling_runWithCallersTenantAndMdc() throws Exception {
+        client = client(latency(true, false));
+        TenantContext.setTenantId(7L);
+        MDC.put("correlationId", "c-1");
+        List<String> seen = new CopyOnWriteArrayList<>();
+        CompletableFuture<HttpResponse<Object>> hedge = new CompletableFuture<>();
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(new CompletableFuture<>())
+                .thenAnswer(invocation -> {
+                    seen.add("hedge " + TenantContext.getTenantId() + " " + MDC.get("correlationId"));
+                    return hedge;
+                });
+        @SuppressWarnings("unchecked")
+        HttpResponse<Object> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenAnswer(invocation -> {
+            seen.add("response " + TenantContext.getTenantId() + " " + MDC.get("correlationId"));
+            return 200;
+        });
+        when(response.body()).thenReturn("{\"id\":2,\"role\":\"THERAPIST\"}");
+
+        CompletableFuture<UserSummary> lookup = client.findUser(2L);
+        verify(httpClient, timeout(1000).times(2)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        // Completed from a thread without any context, like the HTTP client's.
+        Thread responder = new Thread(() -> hedge.complete(response));
+        responder.start();
+        responder.join();
+
+        assertThat(UserLookupClient.await(lookup).role()).isEqualTo("THERAPIST");
+        assertThat(seen).containsExactly("hedge 7 c-1", "response 7 c-1");
+    }
+
+    @Test
+    void findUser_adaptiveTimeout_endsAttemptBeforeTimeLimiter() {
+        client = client(latency(false, true));
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(new CompletableFuture<>());
+
+        assertThatThrownBy(() -> UserLookupClient.await(client.findUser(2L)))
+                .isInstanceOf(ResourceAccessException.class)
+                .hasMessageContaining("took longer than 50 ms");
+        verify(httpClient, times(3)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    }
+
+    private UserLookupClient client(UserLookupLatency latency) {
+        return new UserLookupClient(httpClient, new ObjectMapper(), "http://user-service", Duration.ofSeconds(1),
+                retry, circuitBreaker, timeLimiter, latency, scheduler);
+    }
+
+    /** A window already holding 1 ms responses: hedges after the 5 ms minimum, times out after the 50 ms minimum. */
+    private UserLookupLatency latency(boolean hedge, boolean adaptiveTimeout) {
+        UserLookupLatency latency = new UserLookupLatency(meterRegistry, 20, 10, hedge, 0.95, 5, 0.5,
+                adaptiveTimeout, 3, 50, 1000);
+        for (int i = 0; i < 20; i++) {
+            latency.record(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return latency;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<HttpResponse<Object>> response(int status, String body) {
+        HttpResponse<Object> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(status);
+        if (status < 400 || status >= 500) {
+            when(response.body()).thenReturn(body);
+        }
+        return CompletableFuture.completedFuture(response);
+    }
+}
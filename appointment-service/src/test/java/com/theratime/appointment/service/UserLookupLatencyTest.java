@@ -0,0 +1,84 @@
+package com.theratime.appointment.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserLookupLatencyTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void beforeMinSamples_noHedgeAndFullTimeout() {
+        UserLookupLatency latency = latency(0.1);
+        record(latency, 10, 5);
+
+        assertThat(latency.hedgeDelay()).isNull();
+        assertThat(latency.attemptTimeout()).isEqualTo(Duration.ofMillis(2000));
+    }
+
+    @Test
+    void hedgeDelayAndTimeout_followWindowPercentiles() {
+        UserLookupLatency latency = latency(0.1);
+        record(latency, 95, 30);
+        record(latency, 4, 100);
+        record(latency, 1, 300);
+
+        assertThat(latency.hedgeDelay()).isEqualTo(Duration.ofMillis(30));
+        assertThat(latency.attemptTimeout()).isEqualTo(Duration.ofMillis(300));
+    }
+
+    @Test
+    void timeout_isClampedToBounds() {
+        UserLookupLatency fast = latency(0.1);
+        record(fast, 100, 1);
+        assertThat(fast.attemptTimeout()).isEqualTo(Duration.ofMillis(250));
+
+        UserLookupLatency slow = latency(0.1);
+        record(slow, 100, 2500);
+        assertThat(slow.attemptTimeout()).isEqualTo(Duration.ofMillis(2000));
+        // The p95 is past the timeout, so hedging would not help.
+        assertThat(slow.hedgeDelay()).isNull();
+    }
+
+    @Test
+    void window_forgetsOldSamples() {
+        UserLookupLatency latency = latency(0.1);
+        record(latency, 100, 500);
+        record(latency, 100, 10);
+
+        assertThat(latency.hedgeDelay()).isEqualTo(Duration.ofMillis(20));
+    }
+
+    @Test
+    void hedgeBudget_limitsHedgesToMaxRate() {
+        UserLookupLatency latency = latency(0.1);
+        int granted = 0;
+        for (int i = 0; i < 1000; i++) {
+            latency.onRequest();
+            if (latency.tryAcquireHedge()) {
+                granted++;
+            }
+        }
+
+        // Ten saved up at start, then one per ten requests.
+        assertThat(granted).isBetween(100, 110);
+        assertThat(meterRegistry.counter("user.lookup.hedges").count()).isEqualTo(granted);
+        assertThat(meterRegistry.counter("user.lookup.hedges.throttled").count()).isEqualTo(1000 - granted);
+    }
+
+    private UserLookupLatency latency(double maxHedgeRate) {
+        return new UserLookupLatency(meterRegistry, 100, 50, true, 0.95, 20, maxHedgeRate, true, 3, 250, 2000);
+    }
+
+    private static void record(UserLookupLatency latency, int times, long millis) {
+        for (int i = 0; i < times; i++) {
+            latency.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+        latency.recompute();
+    }
+}
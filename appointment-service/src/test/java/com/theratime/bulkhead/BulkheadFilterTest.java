@@ -0,0 +1,114 @@
+package com.theratime.bulkhead;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class BulkheadFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private Bulkhead booking;
+    private Bulkhead calendarView;
+    private BulkheadFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        BulkheadConfig config = BulkheadConfig.custom().maxConcurrentCalls(1).maxWaitDuration(Duration.ZERO).build();
+        booking = Bulkhead.of("booking", config);
+        calendarView = Bulkhead.of("calendarView", config);
+        filter = new BulkheadFilter(true, Map.of(Workload.BOOKING, booking, Workload.CALENDAR_VIEW, calendarView),
+                meterRegistry, new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        WorkloadContext.clear();
+    }
+
+    @Test
+    void admittedRequest_runsWithWorkloadAndReleasesPermit() throws Exception {
+        AtomicReference<Workload> seen = new AtomicReference<>();
+        FilterChain chain = (req, res) -> seen.set(WorkloadContext.get());
+
+        filter.doFilter(request("GET", "/calendar/view"), new MockHttpServletResponse(), chain);
+
+        assertThat(seen.get()).isEqualTo(Workload.CALENDAR_VIEW);
+        assertThat(WorkloadContext.get()).isNull();
+        assertThat(calendarView.getMetrics().getAvailableConcurrentCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void fullBulkhead_rejectsWith429WithoutCallingChain() throws Exception {
+        assertThat(calendarView.tryAcquirePermission()).isTrue();
+        FilterChain chain = mock(FilterChain.class);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("GET", "/calendar/view"), response, chain);
+
+        verify(chain, never()).doFilter(any(), any());
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader("Retry-After")).isEqualTo(BulkheadFilter.RETRY_AFTER_SECONDS);
+        assertThat(response.getContentAsString()).contains("\"status\":429", "calendarView");
+        assertThat(meterRegistry.counter("http.bulkhead.rejected", "workload", "calendarView").count()).isEqualTo(1);
+    }
+
+    @Test
+    void fullCalendarBulkhead_doesNotAffectBooking() throws Exception {
+        assertThat(calendarView.tryAcquirePermission()).isTrue();
+        FilterChain chain = mock(FilterChain.class);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("POST", "/appointments/book"), response, chain);
+
+        verify(chain).doFilter(any(), any());
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void permitIsReleasedWhenChainThrows() {
+        FilterChain chain = (req, res) -> {
+            throw new IllegalStateException("boom");
+        };
+
+        assertThatThrownBy(() -> filter.doFilter(request("POST", "/appointments/book"), new MockHttpServletResponse(), chain))
+                .hasMessage("boom");
+
+        assertThat(booking.getMetrics().getAvailableConcurrentCalls()).isEqualTo(1);
+        assertThat(WorkloadContext.get()).isNull();
+    }
+
+    @Test
+    void unclassifiedOrDisabled_isNotLimited() throws Exception {
+        assertThat(booking.tryAcquirePermission()).isTrue();
+        FilterChain chain = mock(FilterChain.class);
+
+        filter.doFilter(request("POST", "/calendar/block"), new MockHttpServletResponse(), chain);
+        new BulkheadFilter(false, Map.of(Workload.BOOKING, booking), meterRegistry, new ObjectMapper())
+                .doFilter(request("POST", "/appointments/book"), new MockHttpServletResponse(), chain);
+
+        verify(chain, times(2)).doFilter(any(), any());
+    }
+
+    private static MockHttpServletRequest request(String method, String uri) {
+        return new MockHttpServletRequest(method, uri);
+    }
+}
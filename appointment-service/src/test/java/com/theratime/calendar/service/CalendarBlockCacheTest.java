@@ -0,0 +1,147 @@
+package com.theratime.calendar.service;
+
+import com.theratime.appointment.entity.CalendarBlock;
+import com.theratime.calendar.repository.CalendarBlockRepository;
+import com.theratime.security.TenantContext;
+import com.theratime.tenant.TenantProvisionedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CalendarBlockCacheTest {
+
+    private static final LocalDateTime NINE = LocalDateTime.of(2025, 6, 10, 9, 0);
+
+    @Mock
+    private CalendarBlockRepository repository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CalendarBlockCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CalendarBlockCache(repository, meterRegistry, false, true, Duration.ofMinutes(1), 100);
+        TenantContext.setTenantId(1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void isTherapistBlocked_loadsOnceAndChecksOverlapInMemory() {
+        when(repository.findByTherapistId(2L)).thenReturn(List.of(block(NINE, NINE.plusHours(1))));
+
+        assertThat(cache.isTherapistBlocked(2L, NINE.plusMinutes(30), NINE.plusHours(2))).isTrue();
+        assertThat(cache.isTherapistBlocked(2L, NINE.plusHours(1), NINE.plusHours(2))).isFalse();
+        assertThat(cache.isTherapistBlocked(2L, NINE.minusHours(1), NINE)).isFalse();
+
+        verify(repository, times(1)).findByTherapistId(2L);
+        assertThat(meterRegistry.counter("calendar.block.cache.hits").count()).isEqualTo(2);
+        assertThat(meterRegistry.counter("calendar.block.cache.misses").count()).isEqualTo(1);
+    }
+
+    @Test
+    void findByTherapistId_isPartitionedByTenant() {
+        when(repository.findByTherapistId(2L)).thenReturn(List.of());
+
+        cache.findByTherapistId(2L);
+        TenantContext.setTenantId(3L);
+        cache.findByTherapistId(2L);
+
+        verify(repository, times(2)).findByTherapistId(2L);
+        assertThat(meterRegistry.get("calendar.block.cache.size").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void onTenantProvisioned_dropsOnlyThatTenantsEntries() {
+        when(repository.findByTherapistId(2L)).thenReturn(List.of());
+        cache.findByTherapistId(2L);
+        TenantContext.setTenantId(3L);
+        cache.findByTherapistId(2L);
+
+        cache.onTenantProvisioned(new TenantProvisionedEvent(3L));
+        cache.findByTherapistId(2L);
+        TenantContext.setTenantId(1L);
+        cache.findByTherapistId(2L);
+
+        verify(repository, times(3)).findByTherapistId(2L);
+    }
+
+    @Test
+    void invalidateAll_dropsEveryTenantsEntries() {
+        when(repository.findByTherapistId(2L)).thenReturn(List.of());
+        cache.findByTherapistId(2L);
+        TenantContext.setTenantId(3L);
+        cache.findByTherapistId(2L);
+
+        cache.invalidateAll();
+
+        assertThat(meterRegistry.get("calendar.block.cache.size").gauge().value()).isZero();
+    }
+
+    @Test
+    void evict_dropsEntryNowAndAfterCompletion() {
+        when(repository.findByTherapistId(2L)).thenReturn(List.of());
+        cache.findByTherapistId(2L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.evict(2L);
+        cache.findByTherapistId(2L);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        cache.findByTherapistId(2L);
+
+        verify(repository, times(3)).findByTherapistId(2L);
+        assertThat(meterRegistry.counter("calendar.block.cache.evictions").count()).isEqualTo(2);
+    }
+
+    @Test
+    void maxSize_boundsEntries() {
+        cache = new CalendarBlockCache(repository, meterRegistry, false, true, Duration.ofMinutes(1), 2);
+        when(repository.findByTherapistId(any())).thenReturn(List.of());
+
+        cache.findByTherapistId(1L);
+        cache.findByTherapistId(2L);
+        cache.findByTherapistId(3L);
+
+        assertThat(meterRegistry.get("calendar.block.cache.size").gauge().value()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void disabled_delegatesToRepository() {
+        cache = new CalendarBlockCache(repository, meterRegistry, false, false, Duration.ofMinutes(1), 100);
+        when(repository.isTherapistBlocked(2L, NINE, NINE.plusHours(1))).thenReturn(true);
+
+        assertThat(cache.isTherapistBlocked(2L, NINE, NINE.plusHours(1))).isTrue();
+        verify(repository, never()).findByTherapistId(any());
+    }
+
+    private static CalendarBlock block(LocalDateTime start, LocalDateTime end) {
+        CalendarBlock block = new CalendarBlock();
+        block.setTherapistId(2L);
+        block.setStartTime(start);
+        block.setEndTime(end);
+        return block;
+    }
+}
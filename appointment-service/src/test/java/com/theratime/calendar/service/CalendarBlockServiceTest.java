@@ -37,6 +37,8 @@ class CalendarBlockServiceTest {
     @Mock
     private CalendarBlockRepository calendarBlockRepository;
     @Mock
+    private CalendarBlockCache calendarBlockCache;
+    @Mock
     private AppointmentRepository appointmentRepository;
     @Mock
     private CalendarBlockMapper mapper;
@@ -61,13 +63,13 @@ class CalendarBlockServiceTest {
 
     @Test
     void isTherapistBlocked_returnsTrueWhenBlocked() {
-        when(calendarBlockRepository.isTherapistBlocked(eq(2L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
+        when(calendarBlockCache.isTherapistBlocked(eq(2L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
         assertThat(service.isTherapistBlocked(2L, LocalDateTime.now(), LocalDateTime.now().plusHours(1))).isTrue();
     }
 
     @Test
     void isTherapistBlocked_returnsFalseWhenNotBlocked() {
-        when(calendarBlockRepository.isTherapistBlocked(eq(2L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(false);
+        when(calendarBlockCache.isTherapistBlocked(eq(2L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(false);
         assertThat(service.isTherapistBlocked(2L, LocalDateTime.now(), LocalDateTime.now().plusHours(1))).isFalse();
     }
 
@@ -95,6 +97,7 @@ class CalendarBlockServiceTest {
 
         assertThat(result.getId()).isEqualTo(1L);
         verify(calendarBlockRepository).save(block);
+        verify(calendarBlockCache).evict(2L);
     }
 
     @Test
@@ -154,14 +157,14 @@ class CalendarBlockServiceTest {
         when(userService.getUserRole(2L)).thenReturn("THERAPIST");
         when(userService.getTenantId(2L)).thenReturn(1L);
         when(appointmentRepository.findByTherapistId(2L)).thenReturn(List.of());
-        when(calendarBlockRepository.findByTherapistId(2L)).thenReturn(List.of());
+        when(calendarBlockCache.findByTherapistId(2L)).thenReturn(List.of());
 
         var result = service.viewCalendar(therapistId, null, null);
 
         assertThat(result.getAppointments()).isEmpty();
         assertThat(result.getBlocks()).isEmpty();
         verify(appointmentRepository).findByTherapistId(2L);
-        verify(calendarBlockRepository).findByTherapistId(2L);
+        verify(calendarBlockCache).findByTherapistId(2L);
     }
 
     @Test
@@ -182,7 +185,7 @@ class CalendarBlockServiceTest {
         when(userService.getUserRole(2L)).thenReturn("THERAPIST");
         when(userService.getTenantId(2L)).thenReturn(1L);
         when(appointmentRepository.findByTherapistId(2L)).thenReturn(List.of(apt));
-        when(calendarBlockRepository.findByTherapistId(2L)).thenReturn(List.of(block));
+        when(calendarBlockCache.findByTherapistId(2L)).thenReturn(List.of(block));
         when(appointmentMapper.toResponse(apt)).thenReturn(new AppointmentResponse().id(1L));
         when(mapper.toResponse(block)).thenReturn(new CalendarBlockResponse().id(1L));
 
@@ -0,0 +1,50 @@
+package com.theratime.config;
+
+import com.theratime.security.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class RowLevelTenantDataSourceTest {
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void getConnection_setsSharedSearchPathAndTenant() throws SQLException {
+        TenantContext.setTenantId(7L);
+        Connection conn = mock(Connection.class);
+        Statement stmt = mock(Statement.class);
+        when(conn.createStatement()).thenReturn(stmt);
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenReturn(conn);
+
+        Connection result = new RowLevelTenantDataSource(target).getConnection();
+
+        assertThat(result).isSameAs(conn);
+        verify(stmt).execute("SET search_path TO shared_tenants");
+        verify(stmt).execute("SET app.tenant_id TO '7'");
+    }
+
+    @Test
+    void getConnection_withoutTenant_usesDefaultTenant() throws SQLException {
+        Connection conn = mock(Connection.class);
+        Statement stmt = mock(Statement.class);
+        when(conn.createStatement()).thenReturn(stmt);
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection("user", "pass")).thenReturn(conn);
+
+        new RowLevelTenantDataSource(target).getConnection("user", "pass");
+
+        verify(stmt).execute("SET app.tenant_id TO '1'");
+    }
+}
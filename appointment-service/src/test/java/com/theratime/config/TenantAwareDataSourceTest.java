@@ -8,8 +8,11 @@ import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -53,4 +56,30 @@ class TenantAwareDataSourceTest {
         assertThat(result).isSameAs(conn);
         verify(stmt).execute("SET search_path TO tenant_3");
     }
+
+    @Test
+    void getConnection_runsSchemaPreparerBeforeBorrowing() throws SQLException {
+        TenantContext.setTenantId(4L);
+        Connection conn = mock(Connection.class);
+        when(conn.createStatement()).thenReturn(mock(Statement.class));
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenReturn(conn);
+        List<String> prepared = new ArrayList<>();
+
+        new TenantAwareDataSource(target, prepared::add).getConnection();
+
+        assertThat(prepared).containsExactly("tenant_4");
+    }
+
+    @Test
+    void getConnection_whenSchemaPreparerFails_throwsWithoutBorrowing() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        TenantAwareDataSource ds = new TenantAwareDataSource(target, schema -> {
+            throw new IllegalStateException("migration failed");
+        });
+
+        assertThatThrownBy(ds::getConnection).isInstanceOf(SQLException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        verify(target, never()).getConnection();
+    }
 }
@@ -0,0 +1,68 @@
+package com.theratime.config;
+
+import com.theratime.security.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class TenantConnectionProviderTest {
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void getConnection_usesSessionTenantInsteadOfTenantContext() throws SQLException {
+        TenantContext.setTenantId(1L);
+        Statement stmt = mock(Statement.class);
+        DataSource target = targetReturning(stmt);
+        List<String> migrated = new ArrayList<>();
+        TenantSchemaMigrator migrator = mock(TenantSchemaMigrator.class);
+        doAnswer(invocation -> migrated.add(invocation.getArgument(1))).when(migrator).ensureMigrated(eq(target), anyString());
+        TenantConnectionProvider provider = new TenantConnectionProvider(
+                new TenantDataSourceFactory(target, null, migrator, DataSourceConfig.TenancyMode.SCHEMA), target);
+
+        provider.getConnection(5L);
+
+        verify(stmt).execute("SET search_path TO tenant_5");
+        assertThat(migrated).containsExactly("tenant_5");
+    }
+
+    @Test
+    void getConnection_inRowMode_setsTenantSetting() throws SQLException {
+        Statement stmt = mock(Statement.class);
+        DataSource target = targetReturning(stmt);
+        TenantConnectionProvider provider = new TenantConnectionProvider(
+                new TenantDataSourceFactory(target, null, mock(TenantSchemaMigrator.class), DataSourceConfig.TenancyMode.ROW),
+                target);
+
+        provider.getConnection(6L);
+
+        verify(stmt).execute("SET app.tenant_id TO '6'");
+    }
+
+    @Test
+    void resolver_readsTenantContext() {
+        TenantContext.setTenantId(8L);
+
+        assertThat(new TenantIdentifierResolver().resolveCurrentTenantIdentifier()).isEqualTo(8L);
+    }
+
+    private static DataSource targetReturning(Statement stmt) throws SQLException {
+        Connection conn = mock(Connection.class);
+        when(conn.createStatement()).thenReturn(stmt);
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenReturn(conn);
+        return target;
+    }
+}
@@ -0,0 +1,134 @@
+package com.theratime.config;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class TenantSchemaMigratorTest {
+
+    @Test
+    void migrateAll_migratesEveryTenantSchema() throws SQLException {
+        DataSource dataSource = dataSourceListing("tenant_1", "tenant_2");
+        List<String> migrated = Collections.synchronizedList(new ArrayList<>());
+        Flyway flyway = flywayReturning(result());
+
+        TenantSchemaMigrator migrator = new TenantSchemaMigrator((ds, schema) -> {
+            assertThat(ds).isSameAs(dataSource);
+            migrated.add(schema);
+            return flyway;
+        }, TenantSchemaMigrator.Mode.EAGER, 2);
+        migrator.migrateAll(dataSource);
+
+        assertThat(migrated).containsExactlyInAnyOrder("tenant_1", "tenant_2");
+        verify(flyway, times(2)).migrate();
+    }
+
+    @Test
+    void migrateAll_whenOneSchemaFails_migratesTheOthersAndReportsIt() throws SQLException {
+        DataSource dataSource = dataSourceListing("tenant_1", "tenant_2");
+        Flyway ok = flywayReturning(result());
+        Flyway broken = mock(Flyway.class);
+        when(broken.migrate()).thenThrow(new FlywayException("checksum mismatch"));
+
+        TenantSchemaMigrator migrator = new TenantSchemaMigrator(
+                (ds, schema) -> schema.equals("tenant_1") ? broken : ok, TenantSchemaMigrator.Mode.EAGER, 2);
+
+        assertThatThrownBy(() -> migrator.migrateAll(dataSource))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("[tenant_1]");
+        verify(ok).migrate();
+    }
+
+    @Test
+    void migrateOnStartup_lazy_migratesOnlyTemplateThenEachTenantOnceOnFirstUse() {
+        DataSource dataSource = mock(DataSource.class);
+        List<String> migrated = Collections.synchronizedList(new ArrayList<>());
+        Flyway flyway = flywayReturning(result());
+        TenantSchemaMigrator migrator = new TenantSchemaMigrator((ds, schema) -> {
+            migrated.add(schema);
+            return flyway;
+        }, TenantSchemaMigrator.Mode.LAZY, 2);
+
+        migrator.ensureMigrated(dataSource, "tenant_1");
+        assertThat(migrated).isEmpty();
+
+        migrator.migrateOnStartup(dataSource);
+        migrator.ensureMigrated(dataSource, "tenant_1");
+        migrator.ensureMigrated(dataSource, "tenant_1");
+        migrator.markMigrated("tenant_9");
+        migrator.ensureMigrated(dataSource, "tenant_9");
+
+        assertThat(migrated).containsExactly("tenant_template", "tenant_1");
+    }
+
+    @Test
+    void ensureMigrated_lazy_whenMigrationFails_retriesOnNextAccess() {
+        DataSource dataSource = mock(DataSource.class);
+        Flyway flyway = mock(Flyway.class);
+        when(flyway.migrate()).thenReturn(result()).thenThrow(new FlywayException("lock timeout")).thenReturn(result());
+        TenantSchemaMigrator migrator = new TenantSchemaMigrator((ds, schema) -> flyway, TenantSchemaMigrator.Mode.LAZY, 1);
+        migrator.migrateOnStartup(dataSource);
+
+        assertThatThrownBy(() -> migrator.ensureMigrated(dataSource, "tenant_3")).isInstanceOf(FlywayException.class);
+        migrator.ensureMigrated(dataSource, "tenant_3");
+        migrator.ensureMigrated(dataSource, "tenant_3");
+
+        verify(flyway, times(3)).migrate();
+    }
+
+    @Test
+    void ensureMigrated_eager_doesNothing() {
+        TenantSchemaMigrator migrator = new TenantSchemaMigrator((ds, schema) -> {
+            throw new AssertionError("unexpected migration of " + schema);
+        }, TenantSchemaMigrator.Mode.EAGER, 1);
+
+        migrator.ensureMigrated(mock(DataSource.class), "tenant_1");
+    }
+
+    @Test
+    void tenantSchemas_whenListingFails_throws() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        assertThatThrownBy(() -> new TenantSchemaMigrator("eager", 1).tenantSchemas(dataSource))
+                .isInstanceOf(IllegalStateException.class)
+                .hasCauseInstanceOf(SQLException.class);
+    }
+
+    private static MigrateResult result() {
+        return new MigrateResult("9.22.0", "PostgreSQL", "tenant");
+    }
+
+    private static Flyway flywayReturning(MigrateResult result) {
+        Flyway flyway = mock(Flyway.class);
+        when(flyway.migrate()).thenReturn(result);
+        return flyway;
+    }
+
+    private static DataSource dataSourceListing(String first, String second) throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(TenantSchemaMigrator.TENANT_SCHEMAS_SQL)).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getString(1)).thenReturn(first, second);
+        return dataSource;
+    }
+}
@@ -0,0 +1,48 @@
+package com.theratime.config;
+
+import com.theratime.bulkhead.Workload;
+import com.theratime.bulkhead.WorkloadContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WorkloadRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource calendarView = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection calendarConnection = mock(Connection.class);
+
+    @AfterEach
+    void tearDown() {
+        WorkloadContext.clear();
+    }
+
+    @Test
+    void calendarViewWorkload_usesItsPool() throws Exception {
+        when(calendarView.getConnection()).thenReturn(calendarConnection);
+        WorkloadContext.set(Workload.CALENDAR_VIEW);
+
+        assertThat(routing().getConnection()).isSameAs(calendarConnection);
+    }
+
+    @Test
+    void otherWorkloads_usePrimary() throws Exception {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertThat(routing().getConnection()).isSameAs(primaryConnection);
+        WorkloadContext.set(Workload.BOOKING);
+        assertThat(routing().getConnection()).isSameAs(primaryConnection);
+    }
+
+    private WorkloadRoutingDataSource routing() {
+        return new WorkloadRoutingDataSource(primary, Map.of(Workload.CALENDAR_VIEW, calendarView));
+    }
+}
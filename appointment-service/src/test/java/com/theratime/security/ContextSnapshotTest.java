@@ -0,0 +1,115 @@
+package com.theratime.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContextSnapshotTest {
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+        SecurityContextHolder.clearContext();
+        MDC.clear();
+    }
+
+    @Test
+    void propagating_runsTasksWithSubmitterContext() throws Exception {
+        ExecutorService executor = ContextSnapshot.propagating(Executors.newSingleThreadExecutor());
+        try {
+            setRequestContext(7L, 42L, "corr-1");
+
+            String seen = executor.submit(() -> TenantContext.getTenantId() + "/" + TenantContext.getCurrentUserId()
+                    + "/" + MDC.get("correlationId")).get(5, TimeUnit.SECONDS);
+
+            assertThat(seen).isEqualTo("7/42/corr-1");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void propagating_doesNotLeakContextToLaterTasks() throws Exception {
+        ExecutorService executor = ContextSnapshot.propagating(Executors.newSingleThreadExecutor());
+        try {
+            setRequestContext(7L, 42L, "corr-1");
+            executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+            tearDown();
+
+            // Same pool thread, submitted without a context.
+            String seen = executor.submit(() -> TenantContext.peekTenantId() + "/" + MDC.get("correlationId"))
+                    .get(5, TimeUnit.SECONDS);
+
+            assertThat(seen).isEqualTo("null/null");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void wrap_supplierWorksWithCompletableFuture() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            setRequestContext(3L, 9L, "corr-2");
+
+            Supplier<Long> tenantId = TenantContext::getTenantId;
+            Long tenant = CompletableFuture.supplyAsync(ContextSnapshot.capture().wrap(tenantId), executor).join();
+
+            assertThat(tenant).isEqualTo(3L);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void open_restoresPreviousContextOnClose() {
+        setRequestContext(5L, 1L, "outer");
+        TenantContext.setTenantId(5L);
+        ContextSnapshot outer = ContextSnapshot.capture();
+        TenantContext.setTenantId(6L);
+        MDC.put("correlationId", "inner");
+
+        try (ContextSnapshot.Scope ignored = outer.open()) {
+            assertThat(TenantContext.getTenantId()).isEqualTo(5L);
+            assertThat(MDC.get("correlationId")).isEqualTo("outer");
+        }
+
+        assertThat(TenantContext.getTenantId()).isEqualTo(6L);
+        assertThat(MDC.get("correlationId")).isEqualTo("inner");
+    }
+
+    @Test
+    void taskDecorator_propagatesContext() throws Exception {
+        setRequestContext(4L, 8L, "corr-3");
+        Runnable decorated = new ContextPropagatingTaskDecorator().decorate(() -> MDC.put("seen", TenantContext.getTenantId().toString()));
+        tearDown();
+
+        Thread thread = new Thread(() -> {
+            decorated.run();
+            assertThat(MDC.get("seen")).isNull();
+        });
+        thread.start();
+        thread.join();
+
+        assertThat(TenantContext.peekTenantId()).isNull();
+    }
+
+    private static void setRequestContext(Long tenantId, Long userId, String correlationId) {
+        TenantContext.setTenantId(tenantId);
+        var auth = new TestingAuthenticationToken("u", null);
+        auth.setAuthenticated(true);
+        auth.setDetails(userId);
+        SecurityContextHolder.getContext().setAuthentication(auth);
+        MDC.put("correlationId", correlationId);
+    }
+}
@@ -10,9 +10,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.MDC;
 import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -87,4 +95,36 @@ class TenantContextFilterTest {
         verify(filterChain).doFilter(request, response);
         assertThat(TenantContext.getTenantId()).isEqualTo(1L);
     }
+
+    /** Each request keeps its own tenant and MDC on virtual threads, and nothing leaks to the next one. */
+    @Test
+    void doFilterInternal_onVirtualThreads_keepsTenantAndMdcPerRequest() throws Exception {
+        when(userService.getTenantId(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (long userId = 1; userId <= 500; userId++) {
+                long expectedTenant = userId;
+                results.add(virtualThreads.submit(() -> {
+                    var auth = new TestingAuthenticationToken("u", "p");
+                    auth.setAuthenticated(true);
+                    auth.setDetails(expectedTenant);
+                    SecurityContextHolder.getContext().setAuthentication(auth);
+                    AtomicBoolean matched = new AtomicBoolean();
+                    filter.doFilterInternal(request, response, (req, res) -> {
+                        Thread.yield();
+                        matched.set(TenantContext.getTenantId() == expectedTenant
+                                && String.valueOf(expectedTenant).equals(MDC.get("tenantId")));
+                    });
+                    SecurityContextHolder.clearContext();
+                    return matched.get() && MDC.get("tenantId") == null && TenantContext.getTenantId() == 1L;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            virtualThreads.shutdownNow();
+        }
+    }
 }
@@ -0,0 +1,134 @@
+package com.theratime.tenant;
+
+import com.theratime.security.TenantContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TenancyMigrationServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private TenantProvisioningService provisioningService;
+
+    private TenancyMigrationService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TenancyMigrationService(jdbcTemplate, new TransactionTemplate(transactionManager),
+                provisioningService, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void migrate_toRow_copiesTenantTablesIntoSharedSchemaAndSyncsSequences() {
+        when(jdbcTemplate.queryForObject(TenantProvisioningService.SCHEMA_EXISTS_SQL, Boolean.class, "tenant_3")).thenReturn(true);
+        when(jdbcTemplate.update(anyString(), eq(3L))).thenReturn(4, 2, 5);
+
+        TenancyMigrationResult result = service.migrate(3L, TenancyMigrationResult.Direction.TO_ROW);
+
+        assertThat(result.error()).isNull();
+        assertThat(result.appointments()).isEqualTo(4);
+        assertThat(result.calendarBlocks()).isEqualTo(2);
+        assertThat(result.outbox()).isEqualTo(5);
+        verify(jdbcTemplate).queryForObject(TenancyMigrationService.SET_TENANT_SQL, String.class, "3");
+        verify(jdbcTemplate).update("INSERT INTO shared_tenants.calendar_blocks (tenant_id, id, therapist_id, start_time, end_time, reason) "
+                + "SELECT ?, id, therapist_id, start_time, end_time, reason FROM tenant_3.calendar_blocks ON CONFLICT DO NOTHING", 3L);
+        verify(jdbcTemplate).queryForObject(TenancyMigrationService.SYNC_SEQUENCE_SQL.formatted("shared_tenants.appointments"),
+                Long.class, "shared_tenants.appointments", "shared_tenants.appointments");
+        verify(transactionManager).commit(any());
+        verifyNoInteractions(provisioningService);
+        assertThat(TenantContext.getTenantId()).isEqualTo(1L);
+    }
+
+    @Test
+    void migrate_copiesUnderMigratedTenantAndRestoresCallersTenant() {
+        TenantContext.setTenantId(7L);
+        List<Long> tenantsWhileCopying = new ArrayList<>();
+        when(jdbcTemplate.queryForObject(TenantProvisioningService.SCHEMA_EXISTS_SQL, Boolean.class, "tenant_3")).thenReturn(true);
+        when(jdbcTemplate.update(anyString(), eq(3L))).thenAnswer(invocation -> {
+            tenantsWhileCopying.add(TenantContext.getTenantId());
+            return 1;
+        });
+
+        service.migrate(3L, TenancyMigrationResult.Direction.TO_ROW);
+        assertThat(TenantContext.getTenantId()).isEqualTo(7L);
+
+        when(jdbcTemplate.update(anyString(), eq(3L))).thenThrow(new DataIntegrityViolationException("duplicate"));
+        service.migrate(3L, TenancyMigrationResult.Direction.TO_ROW);
+
+        assertThat(tenantsWhileCopying).containsOnly(3L);
+        assertThat(TenantContext.getTenantId()).isEqualTo(7L);
+    }
+
+    @Test
+    void migrate_toSchema_provisionsSchemaAndCopiesOutboxWithTenantColumn() {
+        when(provisioningService.provision(4L))
+                .thenReturn(new TenantProvisioningResult(4L, TenantProvisioningResult.Status.CREATED, 1, null));
+
+        TenancyMigrationResult result = service.migrate(4L, TenancyMigrationResult.Direction.TO_SCHEMA);
+
+        assertThat(result.error()).isNull();
+        verify(jdbcTemplate).update("INSERT INTO tenant_4.outbox (id, event_type, payload, status, created_at, last_attempt_at, attempt_count, tenant_id) "
+                + "SELECT id, event_type, payload, status, created_at, last_attempt_at, attempt_count, tenant_id "
+                + "FROM shared_tenants.outbox WHERE tenant_id = ? ON CONFLICT DO NOTHING", 4L);
+        verify(jdbcTemplate).queryForObject(TenancyMigrationService.SYNC_SEQUENCE_SQL.formatted("tenant_4.outbox"),
+                Long.class, "tenant_4.outbox", "tenant_4.outbox");
+    }
+
+    @Test
+    void migrate_toRow_whenSchemaMissing_failsWithoutCopying() {
+        when(jdbcTemplate.queryForObject(TenantProvisioningService.SCHEMA_EXISTS_SQL, Boolean.class, "tenant_9")).thenReturn(false);
+
+        TenancyMigrationResult result = service.migrate(9L, TenancyMigrationResult.Direction.TO_ROW);
+
+        assertThat(result.error()).isEqualTo("Schema tenant_9 does not exist");
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void migrate_whenCopyFails_rollsBackAndReportsError() {
+        when(jdbcTemplate.queryForObject(TenantProvisioningService.SCHEMA_EXISTS_SQL, Boolean.class, "tenant_3")).thenReturn(true);
+        when(jdbcTemplate.update(anyString(), eq(3L))).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        TenancyMigrationResult result = service.migrate(3L, TenancyMigrationResult.Direction.TO_ROW);
+
+        assertThat(result.error()).isEqualTo("duplicate");
+        assertThat(result.appointments()).isZero();
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void migrateAll_rejectsInvalidIdsBeforeCopying() {
+        assertThatThrownBy(() -> service.migrateAll(List.of(1L, 0L), TenancyMigrationResult.Direction.TO_ROW))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(jdbcTemplate, provisioningService);
+    }
+}
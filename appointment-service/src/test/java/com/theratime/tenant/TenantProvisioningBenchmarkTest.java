@@ -0,0 +1,76 @@
+package com.theratime.tenant;
+
+import com.theratime.config.TenantSchemaMigrator;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Provisioning time at scale against a real PostgreSQL, serial vs parallel. Not part of the normal build:
+ * {@code mvn test -Dtest=TenantProvisioningBenchmarkTest -Dbenchmark.tenants=1000 [-Dbenchmark.parallelism=8]}
+ * (needs Docker). Logs total and per-tenant time for each run.
+ */
+@Slf4j
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "benchmark.tenants", matches = "\\d+")
+class TenantProvisioningBenchmarkTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("appointmentsdb")
+            .withUsername("appointment_user")
+            .withPassword("appointment_pass");
+
+    @Test
+    void provisionTenants() {
+        int tenants = Integer.getInteger("benchmark.tenants");
+        int parallelism = Integer.getInteger("benchmark.parallelism", 8);
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setJdbcUrl(postgres.getJdbcUrl());
+            dataSource.setUsername(postgres.getUsername());
+            dataSource.setPassword(postgres.getPassword());
+            dataSource.setMaximumPoolSize(parallelism + 2);
+            Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+            new TenantSchemaMigrator("eager", parallelism).migrateAll(dataSource);
+
+            run(dataSource, "serial", 1, 1_000, tenants);
+            run(dataSource, "parallel", parallelism, 100_000, tenants);
+        }
+    }
+
+    private static void run(HikariDataSource dataSource, String name, int threads, long firstId, int tenants) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TenantSchemaMigrator schemaMigrator = new TenantSchemaMigrator("eager", threads);
+        TenantRegistry registry = new TenantRegistry(dataSource, schemaMigrator, event -> { }, "1");
+        TenantProvisioningService service = new TenantProvisioningService(jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), registry, schemaMigrator,
+                new SimpleMeterRegistry(), Executors.newFixedThreadPool(threads));
+        try {
+            List<Long> ids = LongStream.range(firstId, firstId + tenants).boxed().toList();
+            long startedAt = System.nanoTime();
+            List<TenantProvisioningResult> results = service.provisionAll(ids);
+            long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+
+            assertThat(results).allMatch(r -> r.status() == TenantProvisioningResult.Status.CREATED);
+            log.info("{} ({} thread(s)): {} tenants in {} ms, {} ms/tenant",
+                    name, threads, tenants, elapsedMs, String.format("%.2f", (double) elapsedMs / tenants));
+        } finally {
+            service.shutdown();
+        }
+    }
+}
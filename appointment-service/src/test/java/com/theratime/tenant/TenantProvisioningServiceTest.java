@@ -0,0 +1,120 @@
+package com.theratime.tenant;
+
+import com.theratime.config.TenantSchemaMigrator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TenantProvisioningServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private TenantRegistry tenantRegistry;
+    @Mock
+    private TenantSchemaMigrator schemaMigrator;
+
+    private TenantProvisioningService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new TenantProvisioningService(jdbcTemplate, new TransactionTemplate(transactionManager), tenantRegistry,
+                schemaMigrator, new SimpleMeterRegistry(), Executors.newFixedThreadPool(2));
+        lenient().when(jdbcTemplate.queryForList(TenantProvisioningService.TABLES_SQL, String.class, "tenant_template"))
+                .thenReturn(List.of("appointments", "flyway_tenant_history"));
+        ResultSet sequence = mock(ResultSet.class);
+        lenient().when(sequence.getString("table_name")).thenReturn("appointments");
+        lenient().when(sequence.getString("column_name")).thenReturn("id");
+        lenient().when(sequence.getString("sequence_name")).thenReturn("appointments_id_seq");
+        lenient().doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(sequence);
+            return null;
+        }).when(jdbcTemplate).query(eq(TenantProvisioningService.OWNED_SEQUENCES_SQL), any(RowCallbackHandler.class), eq("tenant_template"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void provision_clonesTemplateInOneBatchAndRegistersTenant() {
+        when(jdbcTemplate.queryForObject(TenantProvisioningService.SCHEMA_EXISTS_SQL, Boolean.class, "tenant_5")).thenReturn(false);
+
+        TenantProvisioningResult result = service.provision(5L);
+
+        assertThat(result.status()).isEqualTo(TenantProvisioningResult.Status.CREATED);
+        ArgumentCaptor<String[]> statements = ArgumentCaptor.forClass(String[].class);
+        verify(jdbcTemplate).batchUpdate(statements.capture());
+        assertThat(statements.getValue()).containsExactly(
+                "CREATE SCHEMA tenant_5",
+                "CREATE TABLE tenant_5.\"appointments\" (LIKE tenant_template.\"appointments\" INCLUDING ALL)",
+                "CREATE TABLE tenant_5.\"flyway_tenant_history\" (LIKE tenant_template.\"flyway_tenant_history\" INCLUDING ALL)",
+                "CREATE SEQUENCE tenant_5.\"appointments_id_seq\" OWNED BY tenant_5.\"appointments\".\"id\"",
+                "ALTER TABLE tenant_5.\"appointments\" ALTER COLUMN \"id\" SET DEFAULT nextval('tenant_5.\"appointments_id_seq\"')",
+                "INSERT INTO tenant_5.flyway_tenant_history SELECT * FROM tenant_template.flyway_tenant_history");
+        verify(transactionManager).commit(any());
+        verify(schemaMigrator).markMigrated("tenant_5");
+        verify(tenantRegistry).register(5L);
+    }
+
+    @Test
+    void provision_whenSchemaExists_onlyRegisters() {
+        when(jdbcTemplate.queryForObject(TenantProvisioningService.SCHEMA_EXISTS_SQL, Boolean.class, "tenant_2")).thenReturn(true);
+
+        TenantProvisioningResult result = service.provision(2L);
+
+        assertThat(result.status()).isEqualTo(TenantProvisioningResult.Status.ALREADY_EXISTS);
+        verify(jdbcTemplate, never()).batchUpdate(any(String[].class));
+        verify(tenantRegistry).register(2L);
+    }
+
+    @Test
+    void provision_whenCloneFails_rollsBackAndDoesNotRegister() {
+        when(jdbcTemplate.queryForObject(TenantProvisioningService.SCHEMA_EXISTS_SQL, Boolean.class, "tenant_6")).thenReturn(false);
+        when(jdbcTemplate.batchUpdate(any(String[].class))).thenThrow(new DataIntegrityViolationException("schema exists"));
+
+        TenantProvisioningResult result = service.provision(6L);
+
+        assertThat(result.status()).isEqualTo(TenantProvisioningResult.Status.FAILED);
+        assertThat(result.error()).isEqualTo("schema exists");
+        verify(transactionManager).rollback(any());
+        verify(tenantRegistry, never()).register(anyLong());
+    }
+
+    @Test
+    void provisionAll_buildsCloneScriptOnceAndKeepsInputOrder() {
+        when(jdbcTemplate.queryForObject(eq(TenantProvisioningService.SCHEMA_EXISTS_SQL), eq(Boolean.class), anyString()))
+                .thenReturn(false);
+
+        List<TenantProvisioningResult> results = service.provisionAll(List.of(7L, 8L, 9L));
+
+        assertThat(results).extracting(TenantProvisioningResult::tenantId).containsExactly(7L, 8L, 9L);
+        assertThat(results).allMatch(r -> r.status() == TenantProvisioningResult.Status.CREATED);
+        verify(jdbcTemplate, times(1)).queryForList(TenantProvisioningService.TABLES_SQL, String.class, "tenant_template");
+        verify(jdbcTemplate, times(3)).batchUpdate(any(String[].class));
+    }
+}
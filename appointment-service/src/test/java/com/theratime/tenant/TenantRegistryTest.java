@@ -0,0 +1,42 @@
+package com.theratime.tenant;
+
+import com.theratime.config.TenantSchemaMigrator;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class TenantRegistryTest {
+
+    private final DataSource dataSource = mock(DataSource.class);
+    private final TenantSchemaMigrator schemaMigrator = mock(TenantSchemaMigrator.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    @Test
+    void refresh_addsTenantSchemasAndPublishesOnlyNewTenants() {
+        TenantRegistry registry = new TenantRegistry(dataSource, schemaMigrator, eventPublisher, "1, 2");
+        when(schemaMigrator.tenantSchemas(dataSource)).thenReturn(List.of("tenant_1", "tenant_12", "tenant_3", "tenant_template"));
+
+        registry.refresh();
+
+        assertThat(registry.tenantIds()).containsExactly(1L, 2L, 3L, 12L);
+        verify(eventPublisher).publishEvent(new TenantProvisionedEvent(12L));
+        verify(eventPublisher).publishEvent(new TenantProvisionedEvent(3L));
+        verifyNoMoreInteractions(eventPublisher);
+    }
+
+    @Test
+    void refresh_whenSchemasCannotBeListed_keepsKnownTenants() {
+        TenantRegistry registry = new TenantRegistry(dataSource, schemaMigrator, eventPublisher, "1");
+        when(schemaMigrator.tenantSchemas(dataSource)).thenThrow(new IllegalStateException("db down"));
+
+        registry.refresh();
+
+        assertThat(registry.tenantIds()).containsExactly(1L);
+        assertThat(registry.register(1L)).isFalse();
+    }
+}
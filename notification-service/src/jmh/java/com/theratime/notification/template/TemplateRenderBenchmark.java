@@ -0,0 +1,63 @@
+package com.theratime.notification.template;
+
+import com.theratime.notification.event.AppointmentEventPayload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering cost per message: the previous {@code String.format} body versus a precompiled template.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec} from notification-service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateRenderBenchmark {
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final AppointmentEventPayload event = AppointmentEventPayload.builder()
+            .tenantId(1L)
+            .appointmentId(4242L)
+            .therapistId(5L)
+            .userId(7L)
+            .eventType(AppointmentEventPayload.EVENT_RESCHEDULED)
+            .startTime(LocalDateTime.of(2025, 6, 1, 10, 0))
+            .endTime(LocalDateTime.of(2025, 6, 1, 11, 0))
+            .build();
+
+    private final CompiledTemplate text = CompiledTemplate.compile(NotificationTemplates.DEFAULT_TEXT, false);
+    private final CompiledTemplate html = CompiledTemplate.compile(
+            "<p>Your appointment <b>#{{appointmentId}}</b> is now {{startTime}} - {{endTime}}.</p>", true);
+
+    @Benchmark
+    public String stringFormat() {
+        String start = event.getStartTime() != null ? event.getStartTime().format(DATE_TIME) : "-";
+        String end = event.getEndTime() != null ? event.getEndTime().format(DATE_TIME) : "-";
+        return String.format("Appointment id: %s | %s - %s | Therapist: %s | User: %s",
+                event.getAppointmentId(), start, end, event.getTherapistId(), event.getUserId());
+    }
+
+    @Benchmark
+    public String compiledText() {
+        return text.render(event);
+    }
+
+    @Benchmark
+    public String compiledHtml() {
+        return html.render(event);
+    }
+}
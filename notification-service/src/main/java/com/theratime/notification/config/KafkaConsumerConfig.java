@@ -0,0 +1,118 @@
+package com.theratime.notification.config;
+
+import com.theratime.notification.service.ProcessedEventFilter;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.util.Collection;
+
+/**
+ * Listener containers for the non-default consumer modes (app.kafka.consumer.mode).
+ * {@code record} (default) uses Boot's container with {@code @RetryableTopic}; the other modes cannot,
+ * so they retry with the same app.kafka.retry.* backoff and dead-letter to the same {@code .dlq} topic.
+ */
+@Configuration
+public class KafkaConsumerConfig {
+
+    public static final String BATCH_LISTENER_CONTAINER_FACTORY = "batchKafkaListenerContainerFactory";
+    public static final String TENANT_PARALLEL_LISTENER_CONTAINER_FACTORY = "tenantParallelKafkaListenerContainerFactory";
+
+    private static final String DLT_SUFFIX = ".dlq";
+
+    @Value("${app.kafka.retry.attempts:4}")
+    private int attempts;
+
+    @Value("${app.kafka.retry.delay:1000}")
+    private long delayMs;
+
+    @Value("${app.kafka.retry.max-delay:60000}")
+    private long maxDelayMs;
+
+    @Value("${app.kafka.retry.multiplier:2.0}")
+    private double multiplier;
+
+    @Bean(BATCH_LISTENER_CONTAINER_FACTORY)
+    @ConditionalOnProperty(name = "app.kafka.consumer.mode", havingValue = "batch")
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            DeadLetterPublishingRecoverer deadLetterPublishingRecoverer) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(Math.max(attempts - 1, 0));
+        backOff.setInitialInterval(delayMs);
+        backOff.setMultiplier(multiplier);
+        backOff.setMaxInterval(maxDelayMs);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(deadLetterPublishingRecoverer, backOff));
+        return factory;
+    }
+
+    /**
+     * Record listener with manual, out-of-order acknowledgments: records are handed to worker threads and
+     * acked on completion; the container commits each partition only up to its lowest unacked offset and
+     * pauses the consumer until the previous poll is fully acked, which bounds in-flight records to one poll.
+     */
+    @Bean(TENANT_PARALLEL_LISTENER_CONTAINER_FACTORY)
+    @ConditionalOnProperty(name = "app.kafka.consumer.mode", havingValue = "tenant-parallel")
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> tenantParallelKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAsyncAcks(true);
+        return factory;
+    }
+
+    /** Retries a single event in-thread for the tenant-parallel mode (blocks only that tenant's lane). */
+    @Bean
+    @ConditionalOnProperty(name = "app.kafka.consumer.mode", havingValue = "tenant-parallel")
+    public RetryTemplate notificationRetryTemplate() {
+        return RetryTemplate.builder()
+                .maxAttempts(Math.max(attempts, 1))
+                .exponentialBackoff(delayMs, multiplier, maxDelayMs)
+                .build();
+    }
+
+    /**
+     * Applied by Boot to every listener container (all modes): after partitions are assigned, records that
+     * another instance already processed may be redelivered here, which this instance's in-memory
+     * processed-event filter does not know about, so it falls back to the database until rebuilt.
+     */
+    @Bean
+    public ConsumerAwareRebalanceListener processedEventFilterRebalanceListener(ProcessedEventFilter processedEventFilter) {
+        return new ConsumerAwareRebalanceListener() {
+            @Override
+            public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                if (!partitions.isEmpty()) {
+                    processedEventFilter.markStale();
+                }
+            }
+        };
+    }
+
+    /** Publishes exhausted records to {@code <topic>.dlq}, like {@code @RetryableTopic} does in record mode. */
+    @Bean
+    @ConditionalOnExpression("'${app.kafka.consumer.mode:record}' != 'record'")
+    public DeadLetterPublishingRecoverer deadLetterPublishingRecoverer(KafkaTemplate<?, ?> kafkaTemplate) {
+        return new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, ex) -> new TopicPartition(record.topic() + DLT_SUFFIX, -1));
+    }
+}
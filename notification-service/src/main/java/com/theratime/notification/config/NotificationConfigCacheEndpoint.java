@@ -0,0 +1,38 @@
+package com.theratime.notification.config;
+
+import com.theratime.notification.send.SmtpTransportPool;
+import com.theratime.notification.template.NotificationTemplates;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint to drop cached notification configs and templates after rows in
+ * {@code notification_config} or {@code notification_template} change:
+ * {@code DELETE /actuator/notificationconfigcache/{tenantId}} or {@code DELETE /actuator/notificationconfigcache}.
+ * Dropping all also closes pooled SMTP connections, so senders for replaced SMTP settings do not wait for idle eviction.
+ */
+@Component
+@Endpoint(id = "notificationconfigcache")
+@RequiredArgsConstructor
+public class NotificationConfigCacheEndpoint {
+
+    private final NotificationConfigResolver resolver;
+    private final NotificationTemplates templates;
+    private final SmtpTransportPool smtpTransportPool;
+
+    @DeleteOperation
+    public void invalidateAll() {
+        resolver.invalidateAll();
+        templates.invalidateAll();
+        smtpTransportPool.invalidateAll();
+    }
+
+    @DeleteOperation
+    public void invalidateTenant(@Selector Long tenantId) {
+        resolver.invalidateTenant(tenantId);
+        templates.invalidateTenant(tenantId);
+    }
+}
@@ -2,26 +2,95 @@ package com.theratime.notification.config;
 
 import com.theratime.notification.entity.NotificationConfigEntity;
 import com.theratime.notification.repository.NotificationConfigRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Iterator;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Resolves notification config: per-therapist first, then tenant default.
  * (tenant_id, therapist_id) -> row; else (tenant_id, null) -> tenant default.
+ * <p>
+ * Results, including "no config", are cached per (tenant, therapist) for {@code app.notification-config.cache.ttl}.
+ * After changing a tenant's rows call {@link #invalidateTenant(Long)} (exposed via {@link NotificationConfigCacheEndpoint}).
  */
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class NotificationConfigResolver {
 
     private final NotificationConfigRepository repository;
+    private final long ttlMs;
+    private final int maxSize;
+    private final ConcurrentHashMap<ConfigKey, CachedConfig> cache = new ConcurrentHashMap<>();
+    /** Bumped on invalidation so a load that started before it does not re-insert a stale result. */
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+
+    public NotificationConfigResolver(NotificationConfigRepository repository,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${app.notification-config.cache.ttl:PT5M}") Duration ttl,
+                                      @Value("${app.notification-config.cache.max-size:10000}") int maxSize) {
+        this.repository = repository;
+        this.ttlMs = ttl.toMillis();
+        this.maxSize = Math.max(maxSize, 1);
+        this.hits = meterRegistry.counter("notification.config.cache.hits");
+        this.misses = meterRegistry.counter("notification.config.cache.misses");
+        Gauge.builder("notification.config.cache.size", cache, ConcurrentHashMap::size)
+                .description("Cached (tenant, therapist) notification config lookups")
+                .register(meterRegistry);
+    }
 
     /**
      * Returns config for tenant and optional therapist.
      * Lookup order: (tenantId, therapistId), then (tenantId, null).
      */
     public Optional<NotificationConfigEntity> resolve(Long tenantId, Long therapistId) {
+        ConfigKey key = new ConfigKey(tenantId, therapistId);
+        long now = System.currentTimeMillis();
+        CachedConfig cached = cache.get(key);
+        if (cached != null && now < cached.expiresAt()) {
+            hits.increment();
+            return cached.config();
+        }
+        misses.increment();
+        long loadGeneration = generation.get();
+        Optional<NotificationConfigEntity> config = load(tenantId, therapistId);
+        if (loadGeneration == generation.get()) {
+            if (cached == null && cache.size() >= maxSize) {
+                evict(now);
+            }
+            cache.put(key, new CachedConfig(config, now + ttlMs));
+        }
+        return config;
+    }
+
+    /** Drops every cached entry of the tenant; a tenant default change affects all of its therapists. */
+    public void invalidateTenant(Long tenantId) {
+        generation.incrementAndGet();
+        cache.keySet().removeIf(key -> key.tenantId().equals(tenantId));
+        log.info("Invalidated notification config cache for tenant {}", tenantId);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.clear();
+        log.info("Invalidated notification config cache");
+    }
+
+    int cachedEntries() {
+        return cache.size();
+    }
+
+    private Optional<NotificationConfigEntity> load(Long tenantId, Long therapistId) {
         if (therapistId != null) {
             Optional<NotificationConfigEntity> byTherapist = repository.findByTenantIdAndTherapistId(tenantId, therapistId);
             if (byTherapist.isPresent()) {
@@ -30,4 +99,20 @@ public class NotificationConfigResolver {
         }
         return repository.findByTenantIdAndTherapistIdIsNull(tenantId);
     }
+
+    /** Removes expired entries; if still full, drops arbitrary entries down to 90% of capacity. */
+    private void evict(long now) {
+        cache.values().removeIf(entry -> now >= entry.expiresAt());
+        Iterator<ConfigKey> it = cache.keySet().iterator();
+        while (cache.size() >= maxSize * 9 / 10 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private record ConfigKey(Long tenantId, Long therapistId) {
+    }
+
+    private record CachedConfig(Optional<NotificationConfigEntity> config, long expiresAt) {
+    }
 }
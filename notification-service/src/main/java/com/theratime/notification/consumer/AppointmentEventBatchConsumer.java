@@ -0,0 +1,73 @@
+package com.theratime.notification.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.theratime.notification.config.KafkaConsumerConfig;
+import com.theratime.notification.event.AppointmentEventPayload;
+import com.theratime.notification.service.NotificationBatchException;
+import com.theratime.notification.service.NotificationHandler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batch alternative to {@link AppointmentEventConsumer}: receives a poll's worth of records and hands them
+ * to {@link NotificationHandler#handleBatch} so idempotency is one read and one write per batch.
+ * A failing record is reported as {@link BatchListenerFailedException}; offsets before it are committed
+ * and the container retries from it (then dead-letters it) per {@link KafkaConsumerConfig}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "app.kafka.consumer.mode", havingValue = "batch")
+public class AppointmentEventBatchConsumer {
+
+    private final ObjectMapper objectMapper;
+    private final NotificationHandler notificationHandler;
+
+    @KafkaListener(
+            topics = "${app.kafka.topic.appointment-events:appointment.events}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = KafkaConsumerConfig.BATCH_LISTENER_CONTAINER_FACTORY
+    )
+    public void consume(List<String> messages) {
+        List<AppointmentEventPayload> payloads = new ArrayList<>(messages.size());
+        // Position of each payload in the polled batch, so failures map back to the right record
+        List<Integer> recordIndexes = new ArrayList<>(messages.size());
+        Integer unreadableIndex = null;
+        Exception unreadableCause = null;
+
+        for (int i = 0; i < messages.size(); i++) {
+            AppointmentEventPayload payload;
+            try {
+                payload = objectMapper.readValue(messages.get(i), AppointmentEventPayload.class);
+            } catch (Exception e) {
+                unreadableIndex = i;
+                unreadableCause = e;
+                break;
+            }
+            if (payload.getTenantId() == null) {
+                log.warn("Ignoring event with missing tenantId");
+                continue;
+            }
+            payloads.add(payload);
+            recordIndexes.add(i);
+        }
+
+        try {
+            notificationHandler.handleBatch(payloads);
+        } catch (NotificationBatchException e) {
+            int recordIndex = recordIndexes.get(e.getFailedIndex());
+            throw new BatchListenerFailedException(e.getMessage(), e.getCause(), recordIndex);
+        }
+
+        if (unreadableIndex != null) {
+            throw new BatchListenerFailedException("Failed to deserialize appointment event", unreadableCause, unreadableIndex);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.theratime.notification.event.AppointmentEventPayload;
 import com.theratime.notification.service.NotificationHandler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.annotation.RetryableTopic;
@@ -16,6 +17,7 @@ import org.springframework.stereotype.Component;
 @Component
 @RequiredArgsConstructor
 @Slf4j
+@ConditionalOnProperty(name = "app.kafka.consumer.mode", havingValue = "record", matchIfMissing = true)
 public class AppointmentEventConsumer {
 
     private final ObjectMapper objectMapper;
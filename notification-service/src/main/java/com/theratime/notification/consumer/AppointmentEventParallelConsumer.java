@@ -0,0 +1,99 @@
+package com.theratime.notification.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.theratime.notification.config.KafkaConsumerConfig;
+import com.theratime.notification.event.AppointmentEventPayload;
+import com.theratime.notification.service.NotificationHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tenant-parallel alternative to {@link AppointmentEventConsumer}: the consumer thread only deserializes and
+ * hands each record to a {@link TenantOrderedExecutor} lane keyed by tenant id, so a slow tenant SMTP server
+ * delays only that tenant. Each record is acknowledged when its lane finishes it; out-of-order acks are
+ * committed per partition up to the lowest completed offset (see {@link KafkaConsumerConfig}).
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "app.kafka.consumer.mode", havingValue = "tenant-parallel")
+public class AppointmentEventParallelConsumer implements DisposableBean {
+
+    private final ObjectMapper objectMapper;
+    private final NotificationHandler notificationHandler;
+    private final RetryTemplate retryTemplate;
+    private final DeadLetterPublishingRecoverer deadLetterRecoverer;
+    private final TenantOrderedExecutor executor;
+
+    public AppointmentEventParallelConsumer(ObjectMapper objectMapper,
+                                            NotificationHandler notificationHandler,
+                                            RetryTemplate retryTemplate,
+                                            DeadLetterPublishingRecoverer deadLetterRecoverer,
+                                            @Value("${app.kafka.consumer.tenant-parallel.threads:8}") int threads,
+                                            @Value("${app.kafka.consumer.tenant-parallel.max-concurrency:200}") int maxConcurrency,
+                                            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.objectMapper = objectMapper;
+        this.notificationHandler = notificationHandler;
+        this.retryTemplate = retryTemplate;
+        this.deadLetterRecoverer = deadLetterRecoverer;
+        this.executor = virtualThreads
+                ? TenantOrderedExecutor.ofVirtualThreads(maxConcurrency)
+                : new TenantOrderedExecutor(threads);
+    }
+
+    @KafkaListener(
+            topics = "${app.kafka.topic.appointment-events:appointment.events}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = KafkaConsumerConfig.TENANT_PARALLEL_LISTENER_CONTAINER_FACTORY
+    )
+    public void consume(ConsumerRecord<String, String> record, Acknowledgment ack) {
+        AppointmentEventPayload payload;
+        try {
+            payload = objectMapper.readValue(record.value(), AppointmentEventPayload.class);
+        } catch (Exception e) {
+            deadLetter(record, e);
+            ack.acknowledge();
+            return;
+        }
+        if (payload.getTenantId() == null) {
+            log.warn("Ignoring event with missing tenantId");
+            ack.acknowledge();
+            return;
+        }
+        executor.submit(payload.getTenantId(), () -> {
+            try {
+                retryTemplate.execute(context -> {
+                    notificationHandler.handle(payload);
+                    return null;
+                });
+            } catch (Exception e) {
+                deadLetter(record, e);
+            } finally {
+                ack.acknowledge();
+            }
+        });
+    }
+
+    private void deadLetter(ConsumerRecord<String, String> record, Exception e) {
+        try {
+            deadLetterRecoverer.accept(record, e);
+            log.error("Message sent to dead-letter topic for appointment events. Exception: {}, payload: {}",
+                    e.getMessage(), record.value());
+        } catch (Exception dltError) {
+            log.error("Failed to dead-letter appointment event at {}-{}@{}: {}; payload: {}",
+                    record.topic(), record.partition(), record.offset(), dltError.getMessage(), record.value());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.close();
+    }
+}
@@ -0,0 +1,100 @@
+package com.theratime.notification.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks on a bounded pool while keeping tasks with the same tenant id strictly sequential.
+ * Each tenant has a chain of futures; a new task runs after the tenant's previous task finishes
+ * (successfully or not), so different tenants progress in parallel and one tenant never overtakes itself.
+ * {@link #ofVirtualThreads} runs each task on its own virtual thread instead, so a lane blocked on SMTP or WhatsApp
+ * holds no platform thread; a semaphore bounds how many tasks run at once.
+ */
+@Slf4j
+public class TenantOrderedExecutor implements AutoCloseable {
+
+    private final ExecutorService pool;
+    /** Bounds running tasks on virtual threads; {@code null} when the pool itself is the bound. */
+    private final Semaphore permits;
+    private final ConcurrentHashMap<Long, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+    /** Runs tasks on {@code threads} platform threads. */
+    public TenantOrderedExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "notification-tenant-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.pool = Executors.newFixedThreadPool(threads, threadFactory);
+        this.permits = null;
+    }
+
+    private TenantOrderedExecutor(ExecutorService pool, Semaphore permits) {
+        this.pool = pool;
+        this.permits = permits;
+    }
+
+    /** Runs each task on a new virtual thread, at most {@code maxConcurrency} at once. */
+    public static TenantOrderedExecutor ofVirtualThreads(int maxConcurrency) {
+        return new TenantOrderedExecutor(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("notification-tenant-", 1).factory()),
+                new Semaphore(Math.max(maxConcurrency, 1)));
+    }
+
+    public CompletableFuture<Void> submit(Long tenantId, Runnable task) {
+        CompletableFuture<Void> next = tails.compute(tenantId, (key, tail) -> {
+            CompletableFuture<?> previous = tail != null ? tail : CompletableFuture.completedFuture(null);
+            return previous.handle((result, error) -> null).thenRunAsync(bounded(task), pool);
+        });
+        next.whenComplete((result, error) -> tails.remove(tenantId, next));
+        return next;
+    }
+
+    private Runnable bounded(Runnable task) {
+        if (permits == null) {
+            return task;
+        }
+        return () -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Tenant executor is shutting down");
+            }
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        };
+    }
+
+    /** Number of tenants with queued or running work. */
+    public int activeTenants() {
+        return tails.size();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Tenant executor did not drain within 30s; unacked records will be redelivered");
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+        }
+    }
+}
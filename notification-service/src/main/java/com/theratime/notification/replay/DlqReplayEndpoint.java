@@ -0,0 +1,79 @@
+package com.theratime.notification.replay;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Actuator endpoint for {@link DlqReplayService}:
+ * {@code POST /actuator/dlqreplay} with a JSON body of optional {@code from}, {@code to} (ISO-8601 instants),
+ * {@code fromOffset}, {@code tenantIds} and {@code eventTypes} (comma-separated), {@code mode}
+ * ({@code reinject} or {@code direct}) and {@code ratePerSecond}; {@code GET /actuator/dlqreplay} for progress;
+ * {@code DELETE /actuator/dlqreplay} to cancel. Starting while a replay runs returns 409.
+ */
+@Component
+@Endpoint(id = "dlqreplay")
+@RequiredArgsConstructor
+public class DlqReplayEndpoint {
+
+    private final DlqReplayService replayService;
+
+    @ReadOperation
+    public DlqReplayStatus status() {
+        return replayService.status();
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Object> start(@Nullable String from, @Nullable String to, @Nullable Long fromOffset,
+                                             @Nullable String tenantIds, @Nullable String eventTypes,
+                                             @Nullable String mode, @Nullable Double ratePerSecond) {
+        DlqReplayRequest request;
+        try {
+            request = DlqReplayRequest.builder()
+                    .from(from != null ? Instant.parse(from) : null)
+                    .to(to != null ? Instant.parse(to) : null)
+                    .fromOffset(fromOffset)
+                    .tenantIds(split(tenantIds).stream().map(Long::valueOf).collect(Collectors.toUnmodifiableSet()))
+                    .eventTypes(split(eventTypes))
+                    .mode(mode != null ? DlqReplayRequest.Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT)) : DlqReplayRequest.Mode.REINJECT)
+                    .ratePerSecond(ratePerSecond)
+                    .build();
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return new WebEndpointResponse<>(e.getMessage(), WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        try {
+            return new WebEndpointResponse<>(replayService.start(request));
+        } catch (IllegalStateException e) {
+            return new WebEndpointResponse<>(replayService.status(), 409);
+        }
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<DlqReplayStatus> cancel() {
+        boolean cancelled = replayService.cancel();
+        return new WebEndpointResponse<>(replayService.status(),
+                cancelled ? WebEndpointResponse.STATUS_OK : WebEndpointResponse.STATUS_NOT_FOUND);
+    }
+
+    private static Set<String> split(String values) {
+        if (values == null || values.isBlank()) {
+            return Set.of();
+        }
+        return Arrays.stream(values.split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+}
@@ -0,0 +1,36 @@
+package com.theratime.notification.replay;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * What to replay from the dead-letter topic. The range starts at {@code from} (record timestamp) or, if unset,
+ * at {@code fromOffset} on every partition, or else at the beginning; it ends at {@code to} or at the end
+ * offsets seen when the replay starts. Empty filters match everything.
+ */
+@Value
+@Builder
+public class DlqReplayRequest {
+
+    public enum Mode {
+        /** Publish the record to the main topic again; the normal consumer handles it. */
+        REINJECT,
+        /** Call {@code NotificationHandler.handle} on the replay thread. */
+        DIRECT
+    }
+
+    Instant from;
+    Instant to;
+    Long fromOffset;
+    @Builder.Default
+    Set<Long> tenantIds = Set.of();
+    @Builder.Default
+    Set<String> eventTypes = Set.of();
+    @Builder.Default
+    Mode mode = Mode.REINJECT;
+    /** Records per second; null uses {@code app.kafka.dlq-replay.default-rate-per-second}. */
+    Double ratePerSecond;
+}
@@ -0,0 +1,358 @@
+package com.theratime.notification.replay;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.theratime.notification.event.AppointmentEventPayload;
+import com.theratime.notification.send.TokenBucket;
+import com.theratime.notification.service.NotificationHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Replays records from {@code <appointment-events topic>.dlq}, e.g. after an SMTP outage. A replay reads a
+ * range of the dead-letter topic with its own consumer (assigned partitions, no group offsets), filters by
+ * tenant and event type, and either re-publishes each record to the main topic or handles it directly, at
+ * most {@code ratePerSecond} records per second. One replay runs at a time on a dedicated thread.
+ * <p>
+ * Replays are safe to repeat: channels already delivered for an event are skipped by {@link NotificationHandler}
+ * (see {@code notification_delivery_attempts}). Metrics: {@code notification.dlq.replay.records} tagged
+ * {@code result=replayed|skipped|failed} and the {@code notification.dlq.replay.remaining} gauge.
+ */
+@Component
+@Slf4j
+public class DlqReplayService {
+
+    /** Header on re-published records: the dead-letter record they came from ("topic-partition@offset"). */
+    static final String REPLAY_SOURCE_HEADER = "x-dlq-replay-source";
+
+    private static final long SEND_TIMEOUT_SECONDS = 30;
+
+    private final Supplier<Consumer<Object, Object>> consumerSupplier;
+    private final KafkaTemplate<Object, Object> kafkaTemplate;
+    private final NotificationHandler notificationHandler;
+    private final ObjectMapper objectMapper;
+    private final String mainTopic;
+    private final String dlqTopic;
+    private final double defaultRatePerSecond;
+    private final double maxRatePerSecond;
+    private final Duration pollTimeout;
+    private final ExecutorService executor;
+    private final Counter replayed;
+    private final Counter skipped;
+    private final Counter failed;
+
+    private volatile Run current;
+
+    @Autowired
+    public DlqReplayService(ConsumerFactory<Object, Object> consumerFactory,
+                            KafkaTemplate<Object, Object> kafkaTemplate,
+                            NotificationHandler notificationHandler,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.kafka.topic.appointment-events:appointment.events}") String mainTopic,
+                            @Value("${app.kafka.dlq-replay.default-rate-per-second:20}") double defaultRatePerSecond,
+                            @Value("${app.kafka.dlq-replay.max-rate-per-second:200}") double maxRatePerSecond,
+                            @Value("${app.kafka.dlq-replay.poll-timeout-ms:1000}") long pollTimeoutMs) {
+        this(() -> consumerFactory.createConsumer("notification-dlq-replay", null, null, replayConsumerProperties()),
+                kafkaTemplate, notificationHandler, objectMapper, meterRegistry, mainTopic,
+                defaultRatePerSecond, maxRatePerSecond, pollTimeoutMs);
+    }
+
+    DlqReplayService(Supplier<Consumer<Object, Object>> consumerSupplier,
+                     KafkaTemplate<Object, Object> kafkaTemplate,
+                     NotificationHandler notificationHandler,
+                     ObjectMapper objectMapper,
+                     MeterRegistry meterRegistry,
+                     String mainTopic,
+                     double defaultRatePerSecond,
+                     double maxRatePerSecond,
+                     long pollTimeoutMs) {
+        this.consumerSupplier = consumerSupplier;
+        this.kafkaTemplate = kafkaTemplate;
+        this.notificationHandler = notificationHandler;
+        this.objectMapper = objectMapper;
+        this.mainTopic = mainTopic;
+        this.dlqTopic = mainTopic + ".dlq";
+        this.maxRatePerSecond = Math.max(maxRatePerSecond, 0.1);
+        this.defaultRatePerSecond = Math.min(Math.max(defaultRatePerSecond, 0.1), this.maxRatePerSecond);
+        this.pollTimeout = Duration.ofMillis(pollTimeoutMs);
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dlq-replay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("notification.dlq.replay.remaining", this, service -> service.status().remaining().values()
+                        .stream().mapToLong(Long::longValue).sum())
+                .description("Dead-letter records left in the running replay's range")
+                .register(meterRegistry);
+        this.replayed = meterRegistry.counter("notification.dlq.replay.records", "result", "replayed");
+        this.skipped = meterRegistry.counter("notification.dlq.replay.records", "result", "skipped");
+        this.failed = meterRegistry.counter("notification.dlq.replay.records", "result", "failed");
+    }
+
+    /**
+     * Starts a replay in the background and returns its initial status.
+     *
+     * @throws IllegalStateException when a replay is already running
+     */
+    public synchronized DlqReplayStatus start(DlqReplayRequest request) {
+        Run running = current;
+        if (running != null && running.state == DlqReplayStatus.State.RUNNING) {
+            throw new IllegalStateException("A DLQ replay is already running");
+        }
+        double rate = request.getRatePerSecond() != null ? request.getRatePerSecond() : defaultRatePerSecond;
+        Run run = new Run(request, Math.min(Math.max(rate, 0.1), maxRatePerSecond));
+        current = run;
+        executor.execute(() -> execute(run));
+        return run.snapshot();
+    }
+
+    public DlqReplayStatus status() {
+        Run run = current;
+        return run != null ? run.snapshot() : DlqReplayStatus.idle();
+    }
+
+    /** Stops the running replay after the record in progress; returns false if none is running. */
+    public boolean cancel() {
+        Run run = current;
+        if (run == null || run.state != DlqReplayStatus.State.RUNNING) {
+            return false;
+        }
+        run.cancelled = true;
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    private void execute(Run run) {
+        DlqReplayRequest request = run.request;
+        log.info("Starting DLQ replay of {}: {}", dlqTopic, request);
+        try (Consumer<Object, Object> consumer = consumerSupplier.get()) {
+            List<TopicPartition> partitions = consumer.partitionsFor(dlqTopic).stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList();
+            consumer.assign(partitions);
+            Map<TopicPartition, Long> endOffsets = rangeEnd(consumer, partitions, request.getTo());
+            seekToRangeStart(consumer, partitions, request, endOffsets);
+
+            Set<TopicPartition> active = new LinkedHashSet<>();
+            for (TopicPartition partition : partitions) {
+                long remaining = endOffsets.get(partition) - consumer.position(partition);
+                run.remaining.put(partition.toString(), Math.max(remaining, 0));
+                if (remaining > 0) {
+                    active.add(partition);
+                }
+            }
+            TokenBucket bucket = new TokenBucket(Math.max(run.ratePerSecond, 1), run.ratePerSecond);
+            while (!active.isEmpty() && !run.cancelled) {
+                for (ConsumerRecord<Object, Object> record : consumer.poll(pollTimeout)) {
+                    TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                    long end = endOffsets.get(partition);
+                    if (run.cancelled || !active.contains(partition) || record.offset() >= end) {
+                        continue;
+                    }
+                    if (!replay(run, record, bucket)) {
+                        break;
+                    }
+                    run.remaining.put(partition.toString(), Math.max(end - record.offset() - 1, 0));
+                }
+                for (TopicPartition partition : new ArrayList<>(active)) {
+                    if (consumer.position(partition) >= endOffsets.get(partition)) {
+                        active.remove(partition);
+                        run.remaining.put(partition.toString(), 0L);
+                        consumer.pause(List.of(partition));
+                    }
+                }
+            }
+            run.finish(run.cancelled ? DlqReplayStatus.State.CANCELLED : DlqReplayStatus.State.COMPLETED, null);
+        } catch (RuntimeException e) {
+            log.error("DLQ replay failed: {}", e.getMessage(), e);
+            run.finish(DlqReplayStatus.State.FAILED, e.getMessage());
+        }
+        log.info("DLQ replay {}: read={}, replayed={}, skipped={}, failed={}",
+                run.state, run.read.get(), run.replayed.get(), run.skipped.get(), run.failed.get());
+    }
+
+    /** Replays one record (after a rate token) unless filtered out; false when cancelled while waiting. */
+    private boolean replay(Run run, ConsumerRecord<Object, Object> record, TokenBucket bucket) {
+        run.read.incrementAndGet();
+        String value = record.value() != null ? record.value().toString() : null;
+        AppointmentEventPayload payload;
+        try {
+            payload = value != null ? objectMapper.readValue(value, AppointmentEventPayload.class) : null;
+        } catch (JsonProcessingException e) {
+            payload = null;
+        }
+        if (payload == null || !matches(run.request, payload)) {
+            if (payload == null) {
+                log.warn("Skipping unreadable DLQ record {}-{}@{}", record.topic(), record.partition(), record.offset());
+            }
+            run.skipped.incrementAndGet();
+            skipped.increment();
+            return true;
+        }
+        if (!awaitToken(bucket, run)) {
+            return false;
+        }
+        try {
+            if (run.request.getMode() == DlqReplayRequest.Mode.DIRECT) {
+                notificationHandler.handle(payload);
+            } else {
+                ProducerRecord<Object, Object> replay = new ProducerRecord<>(mainTopic, record.key(), record.value());
+                String source = record.topic() + "-" + record.partition() + "@" + record.offset();
+                replay.headers().add(REPLAY_SOURCE_HEADER, source.getBytes(StandardCharsets.UTF_8));
+                kafkaTemplate.send(replay).get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+            run.replayed.incrementAndGet();
+            replayed.increment();
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            run.failed.incrementAndGet();
+            failed.increment();
+            log.warn("Failed to replay DLQ record {}-{}@{} (event {}): {}",
+                    record.topic(), record.partition(), record.offset(), payload.getEventId(), e.getMessage());
+        }
+        return true;
+    }
+
+    static boolean matches(DlqReplayRequest request, AppointmentEventPayload payload) {
+        if (payload.getTenantId() == null) {
+            return false;
+        }
+        if (!request.getTenantIds().isEmpty() && !request.getTenantIds().contains(payload.getTenantId())) {
+            return false;
+        }
+        return request.getEventTypes().isEmpty() || request.getEventTypes().contains(payload.getEventType());
+    }
+
+    /** Waits for a rate token on the replay thread; returns false if cancelled or interrupted meanwhile. */
+    private static boolean awaitToken(TokenBucket bucket, Run run) {
+        while (bucket.tryAcquireUpTo(1) == 0) {
+            if (run.cancelled) {
+                return false;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(Math.min(bucket.nanosUntilAvailable(), TimeUnit.MILLISECONDS.toNanos(100)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                run.cancelled = true;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<TopicPartition, Long> rangeEnd(Consumer<Object, Object> consumer, List<TopicPartition> partitions,
+                                                      Instant to) {
+        Map<TopicPartition, Long> endOffsets = new HashMap<>(consumer.endOffsets(partitions));
+        if (to != null) {
+            offsetsForTime(consumer, partitions, to).forEach((partition, offset) -> {
+                if (offset != null) {
+                    endOffsets.put(partition, offset.offset());
+                }
+            });
+        }
+        return endOffsets;
+    }
+
+    private static void seekToRangeStart(Consumer<Object, Object> consumer, List<TopicPartition> partitions,
+                                         DlqReplayRequest request, Map<TopicPartition, Long> endOffsets) {
+        if (request.getFrom() != null) {
+            Map<TopicPartition, OffsetAndTimestamp> start = offsetsForTime(consumer, partitions, request.getFrom());
+            for (TopicPartition partition : partitions) {
+                OffsetAndTimestamp offset = start.get(partition);
+                // No record at or after "from": nothing to replay on this partition.
+                consumer.seek(partition, offset != null ? offset.offset() : endOffsets.get(partition));
+            }
+        } else if (request.getFromOffset() != null) {
+            Map<TopicPartition, Long> beginning = consumer.beginningOffsets(partitions);
+            for (TopicPartition partition : partitions) {
+                consumer.seek(partition, Math.max(request.getFromOffset(), beginning.get(partition)));
+            }
+        } else {
+            consumer.seekToBeginning(partitions);
+        }
+    }
+
+    private static Map<TopicPartition, OffsetAndTimestamp> offsetsForTime(Consumer<Object, Object> consumer,
+                                                                          List<TopicPartition> partitions, Instant time) {
+        Map<TopicPartition, Long> query = new HashMap<>();
+        partitions.forEach(partition -> query.put(partition, time.toEpochMilli()));
+        return consumer.offsetsForTimes(query);
+    }
+
+    private static Properties replayConsumerProperties() {
+        Properties properties = new Properties();
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        return properties;
+    }
+
+    /** State of one replay; counters are written by the replay thread and read by status calls. */
+    private static final class Run {
+        private final DlqReplayRequest request;
+        private final double ratePerSecond;
+        private final Instant startedAt = Instant.now();
+        private final AtomicLong read = new AtomicLong();
+        private final AtomicLong replayed = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final Map<String, Long> remaining = new ConcurrentHashMap<>();
+        private volatile DlqReplayStatus.State state = DlqReplayStatus.State.RUNNING;
+        private volatile boolean cancelled;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        private Run(DlqReplayRequest request, double ratePerSecond) {
+            this.request = request;
+            this.ratePerSecond = ratePerSecond;
+        }
+
+        private void finish(DlqReplayStatus.State finalState, String failure) {
+            error = failure;
+            finishedAt = Instant.now();
+            state = finalState;
+        }
+
+        private DlqReplayStatus snapshot() {
+            return new DlqReplayStatus(state, request, startedAt, finishedAt, read.get(), replayed.get(),
+                    skipped.get(), failed.get(), Map.copyOf(remaining), error);
+        }
+    }
+}
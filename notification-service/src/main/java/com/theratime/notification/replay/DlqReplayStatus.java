@@ -0,0 +1,32 @@
+package com.theratime.notification.replay;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Progress of the current or last replay, as returned by {@code GET /actuator/dlqreplay}.
+ * {@code remaining} is per partition ("topic-partition" to records left before the end offset).
+ */
+public record DlqReplayStatus(State state,
+                              DlqReplayRequest request,
+                              Instant startedAt,
+                              Instant finishedAt,
+                              long read,
+                              long replayed,
+                              long skipped,
+                              long failed,
+                              Map<String, Long> remaining,
+                              String error) {
+
+    public enum State {
+        IDLE,
+        RUNNING,
+        COMPLETED,
+        CANCELLED,
+        FAILED
+    }
+
+    static DlqReplayStatus idle() {
+        return new DlqReplayStatus(State.IDLE, null, null, null, 0, 0, 0, 0, Map.of(), null);
+    }
+}
@@ -0,0 +1,113 @@
+package com.theratime.notification.repository;
+
+import com.theratime.notification.send.NotificationChannel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-channel delivery state of events that had a partial failure (see the V5 migration), keyed by
+ * (event_id, channel). Fully delivered events on the first attempt only get a {@code processed_events} row.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DeliveryAttemptRepository {
+
+    public enum Status {
+        DELIVERED,
+        FAILED
+    }
+
+    /** Latest state of one channel of an event. */
+    public record Attempt(NotificationChannel channel, Status status, int attemptCount) {
+
+        public boolean delivered() {
+            return status == Status.DELIVERED;
+        }
+    }
+
+    static final int MAX_ERROR_LENGTH = 512;
+
+    /** A DELIVERED channel stays delivered; every recorded attempt bumps the count. */
+    private static final String UPSERT_ATTEMPT_SQL =
+            "INSERT INTO notification_delivery_attempts "
+                    + "(event_id, channel, tenant_id, status, attempt_count, last_error, updated_at) "
+                    + "VALUES (?, ?, ?, ?, 1, ?, ?) "
+                    + "ON CONFLICT (event_id, channel) DO UPDATE SET "
+                    + "status = CASE WHEN notification_delivery_attempts.status = 'DELIVERED' "
+                    + "THEN 'DELIVERED' ELSE EXCLUDED.status END, "
+                    + "attempt_count = notification_delivery_attempts.attempt_count + 1, "
+                    + "last_error = EXCLUDED.last_error, "
+                    + "updated_at = EXCLUDED.updated_at";
+    /** A late success of an attempt already counted as failed (timeout); does not bump the count. */
+    private static final String MARK_DELIVERED_SQL =
+            "INSERT INTO notification_delivery_attempts "
+                    + "(event_id, channel, tenant_id, status, attempt_count, last_error, updated_at) "
+                    + "VALUES (?, ?, ?, 'DELIVERED', 1, NULL, ?) "
+                    + "ON CONFLICT (event_id, channel) DO UPDATE SET "
+                    + "status = 'DELIVERED', last_error = NULL, updated_at = EXCLUDED.updated_at";
+    private static final String SELECT_BY_EVENT_IDS_SQL =
+            "SELECT event_id, channel, status, attempt_count FROM notification_delivery_attempts WHERE event_id IN (%s)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Map<NotificationChannel, Attempt> findAttempts(String eventId) {
+        return findAttempts(List.of(eventId)).getOrDefault(eventId, Collections.emptyMap());
+    }
+
+    /** Channel state per event id, in one IN query; ids without rows are absent from the map. */
+    public Map<String, Map<NotificationChannel, Attempt>> findAttempts(Collection<String> eventIds) {
+        if (eventIds == null || eventIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(eventIds.size(), "?"));
+        Map<String, Map<NotificationChannel, Attempt>> attempts = new HashMap<>();
+        jdbcTemplate.query(String.format(SELECT_BY_EVENT_IDS_SQL, placeholders), (RowCallbackHandler) rs -> {
+            NotificationChannel channel = NotificationChannel.valueOf(rs.getString(2));
+            attempts.computeIfAbsent(rs.getString(1), id -> new EnumMap<>(NotificationChannel.class))
+                    .put(channel, new Attempt(channel, Status.valueOf(rs.getString(3)), rs.getInt(4)));
+        }, eventIds.toArray());
+        return attempts;
+    }
+
+    /**
+     * Records one attempt per channel in a single batch: {@code delivered} as DELIVERED, {@code failures}
+     * (channel to error message) as FAILED.
+     */
+    public void recordAttempts(String eventId, Long tenantId, Collection<NotificationChannel> delivered,
+                               Map<NotificationChannel, String> failures) {
+        if (delivered.isEmpty() && failures.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(delivered.size() + failures.size());
+        for (NotificationChannel channel : delivered) {
+            rows.add(new Object[]{eventId, channel.name(), tenantId, Status.DELIVERED.name(), null, now});
+        }
+        failures.forEach((channel, error) ->
+                rows.add(new Object[]{eventId, channel.name(), tenantId, Status.FAILED.name(), truncate(error), now}));
+        jdbcTemplate.batchUpdate(UPSERT_ATTEMPT_SQL, rows);
+    }
+
+    public void markDelivered(String eventId, Long tenantId, NotificationChannel channel) {
+        jdbcTemplate.update(MARK_DELIVERED_SQL, eventId, channel.name(), tenantId, Timestamp.from(Instant.now()));
+    }
+
+    private static String truncate(String error) {
+        if (error == null || error.length() <= MAX_ERROR_LENGTH) {
+            return error;
+        }
+        return error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
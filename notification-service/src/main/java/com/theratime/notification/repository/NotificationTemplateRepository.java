@@ -0,0 +1,13 @@
+package com.theratime.notification.repository;
+
+import com.theratime.notification.entity.NotificationTemplateEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface NotificationTemplateRepository extends JpaRepository<NotificationTemplateEntity, Long> {
+
+    Optional<NotificationTemplateEntity> findByTenantIdAndEventType(Long tenantId, String eventType);
+}
@@ -0,0 +1,118 @@
+package com.theratime.notification.repository;
+
+import com.theratime.notification.service.ProcessedEventFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the daily partitions of {@code processed_events} (see V3 migration): creates partitions
+ * {@code app.idempotency.partitions-ahead} days ahead and drops those entirely older than
+ * {@code app.idempotency.retention-days}, and deletes {@code notification_delivery_attempts} rows past the same
+ * retention. Retention must be at least the Kafka topic retention,
+ * otherwise a replayed record could be sent twice.
+ */
+@Component
+@Slf4j
+public class ProcessedEventPartitionManager {
+
+    static final String PARENT_TABLE = "processed_events";
+    static final String DEFAULT_PARTITION = "processed_events_default";
+    static final String ATTEMPTS_TABLE = "notification_delivery_attempts";
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final Pattern DAILY_PARTITION = Pattern.compile("processed_events_(\\d{8})");
+    private static final String LIST_PARTITIONS_SQL =
+            "SELECT c.relname FROM pg_inherits i "
+                    + "JOIN pg_class c ON c.oid = i.inhrelid "
+                    + "JOIN pg_class p ON p.oid = i.inhparent "
+                    + "WHERE p.relname = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProcessedEventFilter processedEventFilter;
+    private final int retentionDays;
+    private final int partitionsAhead;
+    private final Clock clock;
+
+    @Autowired
+    public ProcessedEventPartitionManager(JdbcTemplate jdbcTemplate,
+                                          ProcessedEventFilter processedEventFilter,
+                                          @Value("${app.idempotency.retention-days:7}") int retentionDays,
+                                          @Value("${app.idempotency.partitions-ahead:3}") int partitionsAhead) {
+        this(jdbcTemplate, processedEventFilter, retentionDays, partitionsAhead, Clock.systemDefaultZone());
+    }
+
+    ProcessedEventPartitionManager(JdbcTemplate jdbcTemplate, ProcessedEventFilter processedEventFilter,
+                                   int retentionDays, int partitionsAhead, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.processedEventFilter = processedEventFilter;
+        this.retentionDays = Math.max(retentionDays, 1);
+        this.partitionsAhead = Math.max(partitionsAhead, 1);
+        this.clock = clock;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.idempotency.maintenance-interval-ms:3600000}",
+            initialDelayString = "${app.idempotency.maintenance-interval-ms:3600000}")
+    public void maintain() {
+        LocalDate today = LocalDate.now(clock);
+        for (int day = 0; day <= partitionsAhead; day++) {
+            createPartition(today.plusDays(day));
+        }
+        int dropped = dropExpired(today.minusDays(retentionDays));
+        if (dropped > 0) {
+            // Dropped ids only cause false positives, but rebuilding keeps the filter from saturating.
+            processedEventFilter.rebuildAsync();
+        }
+    }
+
+    private void createPartition(LocalDate day) {
+        String sql = "CREATE TABLE IF NOT EXISTS " + PARENT_TABLE + "_" + day.format(SUFFIX)
+                + " PARTITION OF " + PARENT_TABLE
+                + " FOR VALUES FROM ('" + day + "') TO ('" + day.plusDays(1) + "')";
+        try {
+            jdbcTemplate.execute(sql);
+        } catch (DataAccessException e) {
+            // Typically the default partition already holds rows for that day; they expire from there.
+            log.warn("Could not create processed_events partition for {}: {}", day, e.getMessage());
+        }
+    }
+
+    private int dropExpired(LocalDate cutoff) {
+        int dropped = 0;
+        List<String> partitions = jdbcTemplate.queryForList(LIST_PARTITIONS_SQL, String.class, PARENT_TABLE);
+        for (String partition : partitions) {
+            Matcher matcher = DAILY_PARTITION.matcher(partition);
+            if (matcher.matches() && LocalDate.parse(matcher.group(1), SUFFIX).isBefore(cutoff)) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+                log.info("Dropped expired partition {}", partition);
+                dropped++;
+            }
+        }
+        int deleted = jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE processed_at < ?",
+                Timestamp.valueOf(cutoff.atStartOfDay()));
+        if (deleted > 0) {
+            log.info("Deleted {} expired rows from {}", deleted, DEFAULT_PARTITION);
+        }
+        int deletedAttempts = jdbcTemplate.update("DELETE FROM " + ATTEMPTS_TABLE + " WHERE updated_at < ?",
+                Timestamp.valueOf(cutoff.atStartOfDay()));
+        if (deletedAttempts > 0) {
+            log.info("Deleted {} expired rows from {}", deletedAttempts, ATTEMPTS_TABLE);
+        }
+        return dropped + (deleted > 0 ? 1 : 0);
+    }
+}
@@ -2,9 +2,19 @@ package com.theratime.notification.repository;
 
 import com.theratime.notification.entity.ProcessedEventEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Set;
+
 @Repository
-public interface ProcessedEventRepository extends JpaRepository<ProcessedEventEntity, String> {
-}
+public interface ProcessedEventRepository extends JpaRepository<ProcessedEventEntity, String>, ProcessedEventRepositoryCustom {
 
+    /**
+     * Returns the subset of the given ids that are already recorded (single IN query per batch).
+     */
+    @Query("SELECT p.eventId FROM ProcessedEventEntity p WHERE p.eventId IN :eventIds")
+    Set<String> findExistingEventIds(@Param("eventIds") Collection<String> eventIds);
+}
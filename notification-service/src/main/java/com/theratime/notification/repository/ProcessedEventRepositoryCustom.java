@@ -0,0 +1,25 @@
+package com.theratime.notification.repository;
+
+import com.theratime.notification.entity.ProcessedEventEntity;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Bulk idempotency writes that Spring Data derived queries cannot express.
+ */
+public interface ProcessedEventRepositoryCustom {
+
+    /**
+     * Inserts all rows in one JDBC batch; conflicting rows are skipped (INSERT ... ON CONFLICT DO NOTHING),
+     * so concurrent consumers cannot fail the batch.
+     */
+    void insertAllIgnoringDuplicates(Collection<ProcessedEventEntity> events);
+
+    /**
+     * Streams the ids recorded since the given time, including partially delivered events from
+     * {@code notification_delivery_attempts} (used to rebuild the in-memory filter).
+     */
+    void forEachEventIdSince(Instant since, Consumer<String> action);
+}
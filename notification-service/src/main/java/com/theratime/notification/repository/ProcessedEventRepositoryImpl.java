@@ -0,0 +1,53 @@
+package com.theratime.notification.repository;
+
+import com.theratime.notification.entity.ProcessedEventEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+public class ProcessedEventRepositoryImpl implements ProcessedEventRepositoryCustom {
+
+    private static final String INSERT_IGNORE_SQL =
+            "INSERT INTO processed_events (event_id, tenant_id, processed_at) VALUES (?, ?, ?) "
+                    + "ON CONFLICT DO NOTHING";
+    private static final String EVENT_IDS_SINCE_SQL =
+            "SELECT event_id FROM processed_events WHERE processed_at >= ? "
+                    + "UNION ALL SELECT event_id FROM notification_delivery_attempts WHERE updated_at >= ?";
+    private static final int EVENT_ID_FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAllIgnoringDuplicates(Collection<ProcessedEventEntity> events) {
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(events.size());
+        Instant now = Instant.now();
+        for (ProcessedEventEntity event : events) {
+            Instant processedAt = event.getProcessedAt() != null ? event.getProcessedAt() : now;
+            rows.add(new Object[]{event.getEventId(), event.getTenantId(), Timestamp.from(processedAt)});
+        }
+        jdbcTemplate.batchUpdate(INSERT_IGNORE_SQL, rows);
+    }
+
+    @Override
+    public void forEachEventIdSince(Instant since, Consumer<String> action) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(EVENT_IDS_SINCE_SQL);
+            statement.setFetchSize(EVENT_ID_FETCH_SIZE);
+            statement.setTimestamp(1, Timestamp.from(since));
+            statement.setTimestamp(2, Timestamp.from(since));
+            return statement;
+        }, (RowCallbackHandler) rs -> action.accept(rs.getString(1)));
+    }
+}
@@ -0,0 +1,230 @@
+package com.theratime.notification.send;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivery queue that decouples email sending from the Kafka listener thread.
+ * Deliveries are queued per SMTP host and run on a worker pool with at most
+ * {@code max-concurrency-per-host} in flight per host; failed attempts are re-queued by a scheduler
+ * after exponential backoff instead of sleeping on a thread.
+ * Exposes notification.email.queue.depth / notification.email.in_flight gauges and
+ * notification.email.delivered / .retries / .failed counters.
+ */
+@Component
+@Slf4j
+public class EmailDeliveryQueue {
+
+    /** One SMTP attempt; throws to request a retry. */
+    @FunctionalInterface
+    public interface DeliveryAttempt {
+        void run() throws Exception;
+    }
+
+    private final int maxAttempts;
+    private final long initialDelayMs;
+    private final long maxDelayMs;
+    private final int maxConcurrencyPerHost;
+    private final int capacity;
+
+    private final ExecutorService workers;
+    private final ScheduledExecutorService retryScheduler;
+    private final ConcurrentHashMap<String, HostLane> lanes = new ConcurrentHashMap<>();
+    /** Queued plus waiting-for-retry deliveries (not yet handed to a worker). */
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Counter delivered;
+    private final Counter retries;
+    private final Counter failed;
+
+    public EmailDeliveryQueue(MeterRegistry meterRegistry,
+                              @Value("${app.email.retry.max-attempts:3}") int maxAttempts,
+                              @Value("${app.email.retry.initial-delay-ms:1000}") long initialDelayMs,
+                              @Value("${app.email.retry.max-delay-ms:10000}") long maxDelayMs,
+                              @Value("${app.email.delivery.threads:4}") int threads,
+                              @Value("${app.email.delivery.max-concurrency-per-host:2}") int maxConcurrencyPerHost,
+                              @Value("${app.email.delivery.queue-capacity:10000}") int capacity) {
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.initialDelayMs = initialDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.maxConcurrencyPerHost = Math.max(maxConcurrencyPerHost, 1);
+        this.capacity = capacity;
+
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(threads, 1), runnable -> {
+            Thread thread = new Thread(runnable, "email-delivery-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "email-retry-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("notification.email.queue.depth", depth, AtomicInteger::get)
+                .description("Emails waiting for a delivery slot or a retry")
+                .register(meterRegistry);
+        Gauge.builder("notification.email.in_flight", inFlight, AtomicInteger::get)
+                .description("Emails currently being sent")
+                .register(meterRegistry);
+        this.delivered = meterRegistry.counter("notification.email.delivered");
+        this.retries = meterRegistry.counter("notification.email.retries");
+        this.failed = meterRegistry.counter("notification.email.failed");
+    }
+
+    /**
+     * Queues a delivery and returns immediately. The returned future completes when the email is sent, or
+     * exceptionally with the last error once retries are exhausted (or the queue shuts down).
+     *
+     * @throws RejectedExecutionException when the queue is full, so the caller's event is retried later
+     */
+    public CompletableFuture<Void> submit(String smtpHost, String recipient, DeliveryAttempt attempt) {
+        if (depth.incrementAndGet() > capacity) {
+            depth.decrementAndGet();
+            throw new RejectedExecutionException("Email delivery queue is full (" + capacity + ")");
+        }
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        enqueue(new Delivery(smtpHost, recipient, attempt, 1, result));
+        return result;
+    }
+
+    public int depth() {
+        return depth.get();
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private void enqueue(Delivery delivery) {
+        HostLane lane = lanes.computeIfAbsent(delivery.smtpHost, host -> new HostLane(maxConcurrencyPerHost));
+        lane.pending.add(delivery);
+        drain(lane);
+    }
+
+    private void drain(HostLane lane) {
+        while (true) {
+            if (!lane.permits.tryAcquire()) {
+                return;
+            }
+            Delivery next = lane.pending.poll();
+            if (next == null) {
+                lane.permits.release();
+                if (lane.pending.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            depth.decrementAndGet();
+            inFlight.incrementAndGet();
+            try {
+                workers.execute(() -> {
+                    try {
+                        attempt(next);
+                    } finally {
+                        inFlight.decrementAndGet();
+                        lane.permits.release();
+                        drain(lane);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.decrementAndGet();
+                lane.permits.release();
+                failed.increment();
+                log.warn("Email delivery to {} dropped: delivery queue is shut down", next.recipient);
+                next.result.completeExceptionally(e);
+                return;
+            }
+        }
+    }
+
+    private void attempt(Delivery delivery) {
+        try {
+            delivery.attempt.run();
+            delivered.increment();
+            log.info("Email sent to {} (tenant config) on attempt {}", delivery.recipient, delivery.attemptNumber);
+            delivery.result.complete(null);
+        } catch (Exception e) {
+            if (delivery.attemptNumber >= maxAttempts) {
+                failed.increment();
+                log.warn("Failed to send email to {} after {} attempts: {}", delivery.recipient, delivery.attemptNumber, e.getMessage());
+                delivery.result.completeExceptionally(e);
+                return;
+            }
+            long delay = retryDelayMs(delivery.attemptNumber);
+            log.warn("Failed to send email to {} on attempt {}: {}. Retrying in {} ms",
+                    delivery.recipient, delivery.attemptNumber, e.getMessage(), delay);
+            retries.increment();
+            depth.incrementAndGet();
+            try {
+                retryScheduler.schedule(() -> enqueue(delivery.next()), delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException rejected) {
+                depth.decrementAndGet();
+                failed.increment();
+                log.warn("Email retry to {} dropped: delivery queue is shut down", delivery.recipient);
+                delivery.result.completeExceptionally(rejected);
+            }
+        }
+    }
+
+    long retryDelayMs(int attemptNumber) {
+        long delay = initialDelayMs;
+        for (int i = 1; i < attemptNumber && delay < maxDelayMs; i++) {
+            delay *= 2;
+        }
+        return Math.min(delay, maxDelayMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdownNow();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+        if (depth.get() > 0) {
+            log.warn("Email delivery queue shut down with {} undelivered emails", depth.get());
+        }
+    }
+
+    private static final class HostLane {
+        private final Semaphore permits;
+        private final Queue<Delivery> pending = new ConcurrentLinkedQueue<>();
+
+        private HostLane(int permits) {
+            this.permits = new Semaphore(permits);
+        }
+    }
+
+    private record Delivery(String smtpHost, String recipient, DeliveryAttempt attempt, int attemptNumber,
+                            CompletableFuture<Void> result) {
+
+        private Delivery next() {
+            return new Delivery(smtpHost, recipient, attempt, attemptNumber + 1, result);
+        }
+    }
+}
@@ -9,4 +9,6 @@ public class EmailRequest {
     private String to;
     private String subject;
     private String body;
+    /** Optional HTML alternative; when null, {@code body} is sent as the (HTML) body. */
+    private String htmlBody;
 }
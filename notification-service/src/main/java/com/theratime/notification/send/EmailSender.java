@@ -1,5 +1,7 @@
 package com.theratime.notification.send;
 
+import java.util.concurrent.CompletionStage;
+
 /**
  * Sends email using tenant-scoped settings (from NotificationConfigEntity).
  */
@@ -7,6 +9,7 @@ public interface EmailSender {
 
     /**
      * Sends an email. Config holds SMTP and from address for the tenant/therapist.
+     * The stage completes once the email is delivered, or exceptionally when delivery finally fails.
      */
-    void send(EmailRequest request, TenantMailConfig config);
+    CompletionStage<Void> send(EmailRequest request, TenantMailConfig config);
 }
@@ -0,0 +1,292 @@
+package com.theratime.notification.send;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WhatsApp over a provider HTTP API, fully asynchronous: {@link #send} only enqueues and returns a stage.
+ * Each provider account ({@code phoneOrApiKey}) has its own queue and {@link TokenBucket}
+ * ({@code app.whatsapp.rate.*}), so throughput follows the provider quota instead of listener threads,
+ * and one throttled tenant does not delay another.
+ * <p>
+ * Provider contract: {@code POST {base-url}/messages} with {@code {"to","text"}}, or, when
+ * {@code app.whatsapp.http.batch-size} &gt; 1, {@code POST {base-url}/messages/batch} with
+ * {@code {"messages":[...]}}; bearer auth with the tenant key; any 2xx accepts the whole request.
+ * <p>
+ * A lane with nothing queued is dropped after {@code app.whatsapp.lane-idle-timeout-ms}, but never before its bucket
+ * would have refilled, so a new lane's full bucket does not exceed the quota. On shutdown, queued and in-flight
+ * messages fail and the HTTP client's threads stop.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "app.whatsapp.stub", havingValue = "false")
+public class HttpWhatsAppSender implements WhatsAppSender {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final URI messagesUri;
+    private final URI batchUri;
+    private final Duration requestTimeout;
+    private final double ratePerSecond;
+    private final double burst;
+    private final int batchSize;
+    private final int maxQueuedPerAccount;
+    private final long laneIdleTimeoutNanos;
+    private final ConcurrentHashMap<String, AccountLane> lanes = new ConcurrentHashMap<>();
+    private final Set<PendingMessage> inFlight = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService httpExecutor;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter sent;
+    private final Counter failed;
+    private final Counter throttled;
+
+    @Autowired
+    public HttpWhatsAppSender(ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.whatsapp.http.base-url}") String baseUrl,
+                              @Value("${app.whatsapp.http.timeout-ms:10000}") long timeoutMs,
+                              @Value("${app.whatsapp.http.batch-size:1}") int batchSize,
+                              @Value("${app.whatsapp.rate.per-second:10}") double ratePerSecond,
+                              @Value("${app.whatsapp.rate.burst:20}") double burst,
+                              @Value("${app.whatsapp.max-queued-per-account:10000}") int maxQueuedPerAccount,
+                              @Value("${app.whatsapp.lane-idle-timeout-ms:300000}") long laneIdleTimeoutMs) {
+        this(objectMapper, meterRegistry, baseUrl, timeoutMs, batchSize, ratePerSecond, burst, maxQueuedPerAccount,
+                laneIdleTimeoutMs, Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "whatsapp-dispatch");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    HttpWhatsAppSender(ObjectMapper objectMapper, MeterRegistry meterRegistry, String baseUrl, long timeoutMs,
+                       int batchSize, double ratePerSecond, double burst, int maxQueuedPerAccount,
+                       long laneIdleTimeoutMs, ScheduledExecutorService scheduler) {
+        this.objectMapper = objectMapper;
+        String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.messagesUri = URI.create(base + "/messages");
+        this.batchUri = URI.create(base + "/messages/batch");
+        this.requestTimeout = Duration.ofMillis(timeoutMs);
+        this.batchSize = Math.max(batchSize, 1);
+        this.ratePerSecond = ratePerSecond;
+        this.burst = Math.max(burst, 1);
+        this.maxQueuedPerAccount = Math.max(maxQueuedPerAccount, 1);
+        // A lane is only dropped once its bucket would be full again anyway.
+        long refillNanos = ratePerSecond > 0 ? (long) (this.burst / ratePerSecond * 1e9) : Long.MAX_VALUE;
+        this.laneIdleTimeoutNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(laneIdleTimeoutMs), refillNanos);
+        this.scheduler = scheduler;
+        this.httpExecutor = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "whatsapp-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(requestTimeout)
+                .executor(httpExecutor)
+                .build();
+        long evictPeriodMs = Math.max(laneIdleTimeoutMs / 2, 1000);
+        scheduler.scheduleWithFixedDelay(this::evictIdleLanes, evictPeriodMs, evictPeriodMs, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("notification.whatsapp.queue.depth", queued, AtomicInteger::get)
+                .description("WhatsApp messages waiting for a rate-limit token or a provider response")
+                .register(meterRegistry);
+        this.sent = meterRegistry.counter("notification.whatsapp.sent");
+        this.failed = meterRegistry.counter("notification.whatsapp.failed");
+        this.throttled = meterRegistry.counter("notification.whatsapp.throttled");
+    }
+
+    @Override
+    public CompletionStage<Void> send(WhatsAppRequest request, TenantWhatsAppConfig config) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        String account = config.getPhoneOrApiKey();
+        if (account == null) {
+            result.completeExceptionally(new IllegalArgumentException("WhatsApp config has no phoneOrApiKey"));
+            return result;
+        }
+        PendingMessage message = new PendingMessage(request, result);
+        AtomicBoolean accepted = new AtomicBoolean();
+        // Reserved under the map's per-key lock, so evictIdleLanes cannot drop the lane in between.
+        AccountLane lane = lanes.compute(account, (key, existing) -> {
+            AccountLane target = existing != null ? existing : new AccountLane(key);
+            target.lastUsedAt = System.nanoTime();
+            if (target.size.get() < maxQueuedPerAccount) {
+                target.size.incrementAndGet();
+                target.pending.add(message);
+                accepted.set(true);
+            }
+            return target;
+        });
+        if (!accepted.get()) {
+            failed.increment();
+            result.completeExceptionally(new RejectedExecutionException("WhatsApp queue full for account"));
+            return result;
+        }
+        queued.incrementAndGet();
+        lane.scheduleDrain(0);
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        RejectedExecutionException shutDown = new RejectedExecutionException("WhatsApp sender shut down");
+        List<PendingMessage> unsent = new ArrayList<>();
+        lanes.values().forEach(lane -> {
+            PendingMessage message;
+            while ((message = lane.pending.poll()) != null) {
+                lane.size.decrementAndGet();
+                unsent.add(message);
+            }
+        });
+        lanes.clear();
+        inFlight.addAll(unsent);
+        if (!inFlight.isEmpty()) {
+            complete(new ArrayList<>(inFlight), shutDown);
+        }
+        httpExecutor.shutdownNow();
+    }
+
+    /** Drops lanes with nothing queued that have been unused for the idle timeout. */
+    void evictIdleLanes() {
+        long now = System.nanoTime();
+        lanes.forEach((account, lane) -> lanes.computeIfPresent(account, (key, current) ->
+                current.size.get() == 0 && now - current.lastUsedAt >= laneIdleTimeoutNanos ? null : current));
+    }
+
+    int laneCount() {
+        return lanes.size();
+    }
+
+    private void post(String account, List<PendingMessage> batch) {
+        inFlight.addAll(batch);
+        HttpRequest request;
+        try {
+            Object body = batch.size() == 1
+                    ? toJson(batch.get(0).request())
+                    : Map.of("messages", batch.stream().map(m -> toJson(m.request())).toList());
+            request = HttpRequest.newBuilder(batch.size() == 1 ? messagesUri : batchUri)
+                    .timeout(requestTimeout)
+                    .header("Authorization", "Bearer " + account)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            complete(batch, e);
+            return;
+        }
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        complete(batch, error);
+                    } else if (response.statusCode() / 100 != 2) {
+                        complete(batch, new WhatsAppDeliveryException(response.statusCode(), response.body()));
+                    } else {
+                        complete(batch, null);
+                    }
+                });
+    }
+
+    /** Completes each message once, so a batch failed by {@link #shutdown} is not counted again on its response. */
+    private void complete(List<PendingMessage> batch, Throwable error) {
+        for (PendingMessage message : batch) {
+            if (!inFlight.remove(message)) {
+                continue;
+            }
+            queued.decrementAndGet();
+            if (error == null) {
+                sent.increment();
+                message.result().complete(null);
+            } else {
+                failed.increment();
+                message.result().completeExceptionally(error);
+            }
+        }
+        if (error != null) {
+            log.warn("WhatsApp provider rejected {} message(s): {}", batch.size(), error.getMessage());
+        }
+    }
+
+    private static Map<String, String> toJson(WhatsAppRequest request) {
+        return Map.of("to", request.getToPhone(), "text", request.getMessage());
+    }
+
+    /** Messages of one provider account, drained in order on the scheduler thread as tokens allow. */
+    private final class AccountLane {
+        private final String account;
+        private final Queue<PendingMessage> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean drainScheduled = new AtomicBoolean();
+        private final TokenBucket bucket = new TokenBucket(burst, ratePerSecond);
+        private volatile long lastUsedAt = System.nanoTime();
+
+        private AccountLane(String account) {
+            this.account = account;
+        }
+
+        private void scheduleDrain(long delayNanos) {
+            if (drainScheduled.compareAndSet(false, true)) {
+                try {
+                    scheduler.schedule(this::drain, delayNanos, TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException e) {
+                    drainScheduled.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            drainScheduled.set(false);
+            lastUsedAt = System.nanoTime();
+            while (!pending.isEmpty()) {
+                int granted = bucket.tryAcquireUpTo(Math.min(batchSize, Math.max(size.get(), 1)));
+                if (granted == 0) {
+                    throttled.increment();
+                    scheduleDrain(bucket.nanosUntilAvailable());
+                    return;
+                }
+                List<PendingMessage> batch = new ArrayList<>(granted);
+                PendingMessage message;
+                while (batch.size() < granted && (message = pending.poll()) != null) {
+                    batch.add(message);
+                }
+                size.addAndGet(-batch.size());
+                if (!batch.isEmpty()) {
+                    post(account, batch);
+                }
+            }
+        }
+    }
+
+    private record PendingMessage(WhatsAppRequest request, CompletableFuture<Void> result) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.theratime.notification.send;
+
+/**
+ * Delivery channels of a notification; stored by name in {@code notification_delivery_attempts}.
+ */
+public enum NotificationChannel {
+    EMAIL,
+    WHATSAPP
+}
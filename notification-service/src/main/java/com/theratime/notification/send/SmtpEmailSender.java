@@ -1,67 +1,50 @@
 package com.theratime.notification.send;
 
-import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Queues email on {@link EmailDeliveryQueue}; the queue performs the SMTP attempt (and retries)
+ * off the caller's thread, so a failing SMTP server never stalls the Kafka listener.
+ * Connections come from {@link SmtpTransportPool} and are reused across sends with the same SMTP settings.
+ */
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class SmtpEmailSender implements EmailSender {
 
-    @Value("${app.email.retry.max-attempts:3}")
-    private int maxAttempts;
-
-    @Value("${app.email.retry.initial-delay-ms:1000}")
-    private long initialDelayMs;
-
-    @Value("${app.email.retry.max-delay-ms:10000}")
-    private long maxDelayMs;
+    private final EmailDeliveryQueue deliveryQueue;
+    private final SmtpTransportPool transportPool;
 
     @Override
-    public void send(EmailRequest request, TenantMailConfig config) {
+    public CompletionStage<Void> send(EmailRequest request, TenantMailConfig config) {
         if (config.getSmtpHost() == null || config.getFrom() == null) {
+            // A retry cannot fix the config, so this is not reported as a failed delivery.
             log.warn("Email config incomplete: missing smtpHost or from");
-            return;
+            return CompletableFuture.completedFuture(null);
         }
+        return deliveryQueue.submit(config.getSmtpHost(), request.getTo(), () -> deliver(request, config));
+    }
 
-        long delayMillis = initialDelayMs;
-
-        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
-            try {
-                JavaMailSenderImpl sender = new JavaMailSenderImpl();
-                sender.setHost(config.getSmtpHost());
-                sender.setPort(config.getSmtpPort() != null ? config.getSmtpPort() : 25);
-                if (config.getSmtpUsername() != null) {
-                    sender.setUsername(config.getSmtpUsername());
-                    sender.setPassword(config.getSmtpPassword());
-                }
-                MimeMessage message = sender.createMimeMessage();
-                MimeMessageHelper helper = new MimeMessageHelper(message, true);
-                helper.setFrom(config.getFrom());
-                helper.setTo(request.getTo());
-                helper.setSubject(request.getSubject());
+    /**
+     * Performs a single SMTP send over a pooled connection; exceptions are retried by the delivery queue.
+     */
+    void deliver(EmailRequest request, TenantMailConfig config) throws Exception {
+        transportPool.send(config, message -> {
+            MimeMessageHelper helper = new MimeMessageHelper(message, true);
+            helper.setFrom(config.getFrom());
+            helper.setTo(request.getTo());
+            helper.setSubject(request.getSubject());
+            if (request.getHtmlBody() != null) {
+                helper.setText(request.getBody(), request.getHtmlBody());
+            } else {
                 helper.setText(request.getBody(), true);
-                sender.send(message);
-                log.info("Email sent to {} (tenant config) on attempt {}", request.getTo(), attempt);
-                return;
-            } catch (Exception e) {
-                if (attempt == maxAttempts) {
-                    log.warn("Failed to send email to {} after {} attempts: {}", request.getTo(), attempt, e.getMessage());
-                } else {
-                    log.warn("Failed to send email to {} on attempt {}: {}. Retrying...", request.getTo(), attempt, e.getMessage());
-                    try {
-                        Thread.sleep(delayMillis);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        log.warn("Email retry interrupted");
-                        return;
-                    }
-                    delayMillis = Math.min(delayMillis * 2, maxDelayMs);
-                }
             }
-        }
+        });
     }
 }
@@ -0,0 +1,256 @@
+package com.theratime.notification.send;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessagePreparator;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caches one configured {@link JavaMailSenderImpl} per distinct SMTP setting (host, port, credentials)
+ * and keeps its connected SMTP transports open between sends, so a burst of emails for one practice
+ * pays the connect/handshake/auth cost once.
+ * A changed tenant config is a different key and gets a fresh sender; the stale one is closed by idle
+ * eviction, or at once by {@link #invalidateAll()} (called by {@code DELETE /actuator/notificationconfigcache}).
+ */
+@Component
+@Slf4j
+public class SmtpTransportPool {
+
+    /** Opens a connected transport for a cached sender; replaced in tests. */
+    @FunctionalInterface
+    interface TransportConnector {
+        Transport connect(JavaMailSenderImpl sender) throws MessagingException;
+    }
+
+    private final int maxIdlePerKey;
+    private final long idleTimeoutMs;
+    private final ConcurrentHashMap<SmtpKey, PooledSender> senders = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService evictor;
+    private final AtomicInteger idleTransports = new AtomicInteger();
+    private final Counter connects;
+    private final Counter reuses;
+    private TransportConnector connector = SmtpTransportPool::connectTransport;
+
+    public SmtpTransportPool(MeterRegistry meterRegistry,
+                             @Value("${app.email.transport.max-idle-per-key:2}") int maxIdlePerKey,
+                             @Value("${app.email.transport.idle-timeout-ms:60000}") long idleTimeoutMs) {
+        this.maxIdlePerKey = Math.max(maxIdlePerKey, 0);
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "smtp-transport-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(idleTimeoutMs / 2, 1000);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("notification.email.transport.idle", idleTransports, AtomicInteger::get)
+                .description("Open SMTP connections waiting for reuse")
+                .register(meterRegistry);
+        Gauge.builder("notification.email.transport.senders", senders, ConcurrentHashMap::size)
+                .description("Cached mail senders (distinct SMTP settings)")
+                .register(meterRegistry);
+        this.connects = meterRegistry.counter("notification.email.transport.connects");
+        this.reuses = meterRegistry.counter("notification.email.transport.reuses");
+    }
+
+    /**
+     * Prepares a message with the cached sender's session and sends it over a pooled connection.
+     * A transport that fails is closed rather than returned to the pool.
+     */
+    public void send(TenantMailConfig config, MimeMessagePreparator preparator) throws Exception {
+        PooledSender pooled = senders.computeIfAbsent(SmtpKey.of(config), this::createSender);
+        MimeMessage message = pooled.mailSender.createMimeMessage();
+        preparator.prepare(message);
+        message.saveChanges();
+
+        Transport transport = pooled.borrow();
+        boolean reusable = false;
+        try {
+            transport.sendMessage(message, message.getAllRecipients());
+            reusable = true;
+        } finally {
+            if (reusable) {
+                pooled.release(transport);
+            } else {
+                closeQuietly(transport);
+            }
+        }
+    }
+
+    /** Drops every cached sender and closes its idle connections; in-use ones are closed when released. */
+    public void invalidateAll() {
+        senders.keySet().forEach(key -> {
+            PooledSender removed = senders.remove(key);
+            if (removed != null) {
+                removed.close();
+            }
+        });
+    }
+
+    void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMs;
+        for (var entry : senders.entrySet()) {
+            PooledSender pooled = entry.getValue();
+            pooled.closeIdleSince(cutoff);
+            if (pooled.isUnusedSince(cutoff) && senders.remove(entry.getKey(), pooled)) {
+                pooled.close();
+                log.debug("Evicted idle mail sender for {}", entry.getKey());
+            }
+        }
+    }
+
+    void setConnector(TransportConnector connector) {
+        this.connector = connector;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        evictor.shutdownNow();
+        invalidateAll();
+    }
+
+    private PooledSender createSender(SmtpKey key) {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost(key.host());
+        sender.setPort(key.port());
+        if (key.username() != null) {
+            sender.setUsername(key.username());
+            sender.setPassword(key.password());
+        }
+        return new PooledSender(sender);
+    }
+
+    private static Transport connectTransport(JavaMailSenderImpl sender) throws MessagingException {
+        Transport transport = sender.getSession().getTransport(sender.getProtocol());
+        transport.connect(sender.getHost(), sender.getPort(), sender.getUsername(), sender.getPassword());
+        return transport;
+    }
+
+    private void closeQuietly(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("Error closing SMTP transport: {}", e.getMessage());
+        }
+    }
+
+    private final class PooledSender {
+        private final JavaMailSenderImpl mailSender;
+        private final Deque<IdleTransport> idle = new ArrayDeque<>();
+        private volatile long lastUsedAt = System.currentTimeMillis();
+        private boolean closed;
+
+        private PooledSender(JavaMailSenderImpl mailSender) {
+            this.mailSender = mailSender;
+        }
+
+        private Transport borrow() throws MessagingException {
+            lastUsedAt = System.currentTimeMillis();
+            while (true) {
+                IdleTransport candidate;
+                synchronized (this) {
+                    candidate = idle.pollFirst();
+                }
+                if (candidate == null) {
+                    break;
+                }
+                idleTransports.decrementAndGet();
+                // isConnected() issues an SMTP NOOP, so server-side timeouts are detected here
+                if (candidate.transport.isConnected()) {
+                    reuses.increment();
+                    return candidate.transport;
+                }
+                closeQuietly(candidate.transport);
+            }
+            connects.increment();
+            return connector.connect(mailSender);
+        }
+
+        private void release(Transport transport) {
+            lastUsedAt = System.currentTimeMillis();
+            synchronized (this) {
+                if (!closed && idle.size() < maxIdlePerKey) {
+                    idle.addFirst(new IdleTransport(transport, lastUsedAt));
+                    idleTransports.incrementAndGet();
+                    return;
+                }
+            }
+            closeQuietly(transport);
+        }
+
+        private void closeIdleSince(long cutoff) {
+            List<Transport> expired = new ArrayList<>();
+            synchronized (this) {
+                Iterator<IdleTransport> it = idle.iterator();
+                while (it.hasNext()) {
+                    IdleTransport candidate = it.next();
+                    if (candidate.idleSince < cutoff) {
+                        it.remove();
+                        idleTransports.decrementAndGet();
+                        expired.add(candidate.transport);
+                    }
+                }
+            }
+            // Closed outside the monitor: SMTP QUIT blocks, and senders waiting on it would pin virtual threads.
+            expired.forEach(SmtpTransportPool.this::closeQuietly);
+        }
+
+        private boolean isUnusedSince(long cutoff) {
+            synchronized (this) {
+                return idle.isEmpty() && lastUsedAt < cutoff;
+            }
+        }
+
+        private void close() {
+            List<Transport> remaining = new ArrayList<>();
+            synchronized (this) {
+                closed = true;
+                for (IdleTransport candidate : idle) {
+                    idleTransports.decrementAndGet();
+                    remaining.add(candidate.transport);
+                }
+                idle.clear();
+            }
+            remaining.forEach(SmtpTransportPool.this::closeQuietly);
+        }
+    }
+
+    private record IdleTransport(Transport transport, long idleSince) {
+    }
+
+    /** Cache key: every setting that affects the connection. */
+    private record SmtpKey(String host, int port, String username, String password) {
+
+        private static SmtpKey of(TenantMailConfig config) {
+            return new SmtpKey(config.getSmtpHost(),
+                    config.getSmtpPort() != null ? config.getSmtpPort() : 25,
+                    config.getSmtpUsername(),
+                    config.getSmtpUsername() != null ? config.getSmtpPassword() : null);
+        }
+
+        @Override
+        public String toString() {
+            return (username != null ? username + "@" : "") + host + ":" + port;
+        }
+    }
+}
@@ -4,9 +4,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 /**
- * Stub implementation: logs the message. Wire a real WhatsApp client (e.g. Twilio, WhatsApp Business API)
- * by implementing WhatsAppSender and excluding this bean when not using stub.
+ * Stub implementation: logs the message. With {@code app.whatsapp.stub=false} the {@link HttpWhatsAppSender}
+ * is used instead.
  */
 @Component
 @Slf4j
@@ -14,8 +17,9 @@ import org.springframework.stereotype.Component;
 public class StubWhatsAppSender implements WhatsAppSender {
 
     @Override
-    public void send(WhatsAppRequest request, TenantWhatsAppConfig config) {
+    public CompletionStage<Void> send(WhatsAppRequest request, TenantWhatsAppConfig config) {
         log.info("[WhatsApp stub] tenant config key/phone={}, to={}, message={}",
                 config.getPhoneOrApiKey(), request.getToPhone(), request.getMessage());
+        return CompletableFuture.completedFuture(null);
     }
 }
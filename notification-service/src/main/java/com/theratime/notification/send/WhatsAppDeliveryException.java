@@ -0,0 +1,17 @@
+package com.theratime.notification.send;
+
+import lombok.Getter;
+
+/**
+ * The WhatsApp provider answered with a non-2xx status.
+ */
+@Getter
+public class WhatsAppDeliveryException extends RuntimeException {
+
+    private final int statusCode;
+
+    public WhatsAppDeliveryException(int statusCode, String responseBody) {
+        super("WhatsApp provider returned HTTP " + statusCode + (responseBody != null && !responseBody.isBlank() ? ": " + responseBody : ""));
+        this.statusCode = statusCode;
+    }
+}
@@ -1,9 +1,13 @@
 package com.theratime.notification.send;
 
+import java.util.concurrent.CompletionStage;
+
 /**
  * Sends WhatsApp using tenant-scoped settings (phone or API key from config).
+ * Implementations must not block the caller on the provider: the returned stage completes when the
+ * provider accepted (or rejected) the message.
  */
 public interface WhatsAppSender {
 
-    void send(WhatsAppRequest request, TenantWhatsAppConfig config);
+    CompletionStage<Void> send(WhatsAppRequest request, TenantWhatsAppConfig config);
 }
@@ -0,0 +1,37 @@
+package com.theratime.notification.service;
+
+import com.theratime.notification.send.NotificationChannel;
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Thrown by {@link NotificationHandler} when at least one channel of an event failed or timed out.
+ * Channels that succeeded are already recorded, so the retry of the event only re-sends {@link #getFailedChannels()}.
+ */
+@Getter
+public class ChannelDeliveryException extends RuntimeException {
+
+    private final String eventId;
+    private final Set<NotificationChannel> failedChannels;
+
+    public ChannelDeliveryException(String eventId, Map<NotificationChannel, Throwable> failures) {
+        super("Delivery failed for event " + eventId + " on " + failures.keySet() + ": " + describe(failures),
+                failures.values().iterator().next());
+        this.eventId = eventId;
+        this.failedChannels = Set.copyOf(failures.keySet());
+        failures.values().stream().skip(1).forEach(this::addSuppressed);
+    }
+
+    private static String describe(Map<NotificationChannel, Throwable> failures) {
+        StringBuilder description = new StringBuilder();
+        failures.forEach((channel, error) -> {
+            if (!description.isEmpty()) {
+                description.append("; ");
+            }
+            description.append(channel).append('=').append(error.getMessage());
+        });
+        return description.toString();
+    }
+}
@@ -0,0 +1,102 @@
+package com.theratime.notification.service;
+
+import com.theratime.notification.send.NotificationChannel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Starts every channel of a notification at once and waits for all of them, each bounded by its own
+ * {@code app.notification.channels.*-timeout-ms}. The caller waits for the slowest channel rather than the
+ * sum of all, and a slow SMTP server no longer delays WhatsApp. Records {@code notification.channel.latency}
+ * and {@code notification.channel.outcome} per channel.
+ */
+@Component
+public class ChannelDispatcher {
+
+    /** Per-channel outcome of one {@link #deliver} call. */
+    public record ChannelResults(Set<NotificationChannel> delivered, Map<NotificationChannel, Throwable> failed) {
+
+        public boolean allDelivered() {
+            return failed.isEmpty();
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Map<NotificationChannel, Long> timeoutsNanos = new EnumMap<>(NotificationChannel.class);
+
+    public ChannelDispatcher(MeterRegistry meterRegistry,
+                             @Value("${app.notification.channels.email-timeout-ms:30000}") long emailTimeoutMs,
+                             @Value("${app.notification.channels.whatsapp-timeout-ms:15000}") long whatsAppTimeoutMs) {
+        this.meterRegistry = meterRegistry;
+        this.timeoutsNanos.put(NotificationChannel.EMAIL, TimeUnit.MILLISECONDS.toNanos(Math.max(emailTimeoutMs, 1)));
+        this.timeoutsNanos.put(NotificationChannel.WHATSAPP, TimeUnit.MILLISECONDS.toNanos(Math.max(whatsAppTimeoutMs, 1)));
+    }
+
+    /**
+     * Starts all channels, then waits for each until its deadline. A channel that throws while starting counts
+     * as failed. A channel that times out keeps running; if it later succeeds, {@code onLateDelivery} is
+     * called (on the completing thread) so the success can still be recorded before the retry.
+     */
+    public ChannelResults deliver(Map<NotificationChannel, Supplier<CompletionStage<Void>>> channels,
+                                  Consumer<NotificationChannel> onLateDelivery) {
+        long startedAt = System.nanoTime();
+        Map<NotificationChannel, CompletableFuture<Void>> started = new EnumMap<>(NotificationChannel.class);
+        channels.forEach((channel, send) -> started.put(channel, start(channel, send, startedAt)));
+
+        Set<NotificationChannel> delivered = EnumSet.noneOf(NotificationChannel.class);
+        Map<NotificationChannel, Throwable> failed = new EnumMap<>(NotificationChannel.class);
+        started.forEach((channel, future) -> {
+            long remaining = startedAt + timeoutsNanos.get(channel) - System.nanoTime();
+            try {
+                future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+                delivered.add(channel);
+            } catch (TimeoutException e) {
+                outcome(channel, "timeout");
+                failed.put(channel, new TimeoutException(channel + " did not complete within "
+                        + TimeUnit.NANOSECONDS.toMillis(timeoutsNanos.get(channel)) + " ms"));
+                future.thenRun(() -> onLateDelivery.accept(channel));
+            } catch (ExecutionException e) {
+                failed.put(channel, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.put(channel, e);
+            }
+        });
+        return new ChannelResults(Collections.unmodifiableSet(delivered), Collections.unmodifiableMap(failed));
+    }
+
+    private CompletableFuture<Void> start(NotificationChannel channel, Supplier<CompletionStage<Void>> send, long startedAt) {
+        CompletableFuture<Void> future;
+        try {
+            future = send.get().toCompletableFuture();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((ignored, error) -> {
+            Timer.builder("notification.channel.latency")
+                    .tag("channel", channel.name())
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            outcome(channel, error == null ? "delivered" : "failed");
+        });
+    }
+
+    private void outcome(NotificationChannel channel, String outcome) {
+        meterRegistry.counter("notification.channel.outcome", "channel", channel.name(), "outcome", outcome).increment();
+    }
+}
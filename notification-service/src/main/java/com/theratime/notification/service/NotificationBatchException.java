@@ -0,0 +1,18 @@
+package com.theratime.notification.service;
+
+import lombok.Getter;
+
+/**
+ * Thrown by {@link NotificationHandler#handleBatch} when an event fails. Events before
+ * {@code failedIndex} have been handled and recorded; the caller retries from that index.
+ */
+@Getter
+public class NotificationBatchException extends RuntimeException {
+
+    private final int failedIndex;
+
+    public NotificationBatchException(int failedIndex, Throwable cause) {
+        super("Notification batch failed at index " + failedIndex + ": " + cause.getMessage(), cause);
+        this.failedIndex = failedIndex;
+    }
+}
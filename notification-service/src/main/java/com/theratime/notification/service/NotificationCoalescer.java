@@ -0,0 +1,198 @@
+package com.theratime.notification.service;
+
+import com.theratime.notification.event.AppointmentEventPayload;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Buffers events per (tenant, recipient) for {@code app.notification.digest.window-ms} and hands them to
+ * the flush action as one digest. Within a window, events for the same appointment collapse into one:
+ * the latest event wins, a booking followed by reschedules is still reported as a booking (with the
+ * latest times), and a booking cancelled inside the window is dropped entirely.
+ * With a window of 0 the coalescer is disabled and {@link NotificationHandler} sends each event directly.
+ * <p>
+ * Open digests are flushed when the context stops ({@link SmartLifecycle}), after the Kafka listener containers and
+ * before any bean is destroyed, so the email queue and WhatsApp sender still accept them.
+ */
+@Component
+@Slf4j
+public class NotificationCoalescer implements SmartLifecycle {
+
+    /** Stops after the listener containers, so no event is buffered after the final flush. */
+    static final int PHASE = AbstractMessageListenerContainer.DEFAULT_PHASE - 100;
+
+    /** Who a digest goes to; the tenant plus the resolved recipients. */
+    public record RecipientKey(Long tenantId, String toEmail, String toPhone) {
+    }
+
+    private final long windowMs;
+    private final int maxEvents;
+    private final ConcurrentHashMap<RecipientKey, PendingDigest> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final Counter buffered;
+    private final Counter collapsed;
+    private final Counter digests;
+    private final Counter flushFailures;
+    private volatile boolean running;
+
+    public NotificationCoalescer(MeterRegistry meterRegistry,
+                                 @Value("${app.notification.digest.window-ms:0}") long windowMs,
+                                 @Value("${app.notification.digest.max-events:50}") int maxEvents) {
+        this.windowMs = Math.max(windowMs, 0);
+        this.maxEvents = Math.max(maxEvents, 1);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-digest");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("notification.digest.pending", pending, ConcurrentHashMap::size)
+                .description("Recipients with an open digest window")
+                .register(meterRegistry);
+        this.buffered = meterRegistry.counter("notification.digest.buffered");
+        this.collapsed = meterRegistry.counter("notification.digest.collapsed");
+        this.digests = meterRegistry.counter("notification.digest.sent");
+        this.flushFailures = meterRegistry.counter("notification.digest.failed");
+    }
+
+    public boolean isEnabled() {
+        return windowMs > 0;
+    }
+
+    /**
+     * Adds the event to the recipient's open digest, opening one (and scheduling its flush) if needed.
+     * The flush action of the latest event is used, so the digest goes out with the newest config.
+     * A digest reaching {@code max-events} appointments is flushed immediately.
+     */
+    public void add(RecipientKey key, AppointmentEventPayload event, Consumer<List<AppointmentEventPayload>> flushAction) {
+        buffered.increment();
+        PendingDigest digest = pending.compute(key, (k, existing) -> {
+            PendingDigest target = existing != null ? existing : new PendingDigest();
+            target.add(event, flushAction);
+            return target;
+        });
+        if (digest.scheduled.compareAndSet(false, true)) {
+            scheduler.schedule(() -> flush(key, digest), windowMs, TimeUnit.MILLISECONDS);
+        }
+        if (digest.size() >= maxEvents) {
+            flush(key, digest);
+        }
+    }
+
+    /** Sends every open digest now; used on shutdown so buffered events are not lost. */
+    public void flushAll() {
+        scheduler.shutdownNow();
+        pending.forEach(this::flush);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        flushAll();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    int pendingRecipients() {
+        return pending.size();
+    }
+
+    private void flush(RecipientKey key, PendingDigest digest) {
+        if (!pending.remove(key, digest)) {
+            return;
+        }
+        List<AppointmentEventPayload> events;
+        Consumer<List<AppointmentEventPayload>> flushAction;
+        synchronized (digest) {
+            events = new ArrayList<>(digest.byAppointment.values());
+            events.removeIf(Objects::isNull);
+            flushAction = digest.flushAction;
+        }
+        if (events.isEmpty()) {
+            log.debug("Digest for tenant {} collapsed to nothing; not sending", key.tenantId());
+            return;
+        }
+        try {
+            flushAction.accept(events);
+            digests.increment();
+        } catch (RuntimeException e) {
+            flushFailures.increment();
+            log.error("Failed to send digest of {} events for tenant {}: {}", events.size(), key.tenantId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Collapses the newer event onto the one already buffered for the same appointment.
+     * Returns null when the two cancel out (booked and cancelled within the window).
+     */
+    static AppointmentEventPayload merge(AppointmentEventPayload previous, AppointmentEventPayload next) {
+        if (previous == null) {
+            return next;
+        }
+        boolean bookedInWindow = AppointmentEventPayload.EVENT_CREATED.equals(previous.getEventType());
+        if (bookedInWindow && AppointmentEventPayload.EVENT_CANCELLED.equals(next.getEventType())) {
+            return null;
+        }
+        if (bookedInWindow && AppointmentEventPayload.EVENT_RESCHEDULED.equals(next.getEventType())) {
+            return next.toBuilder().eventType(AppointmentEventPayload.EVENT_CREATED).build();
+        }
+        return next;
+    }
+
+    private final class PendingDigest {
+        private final Map<Long, AppointmentEventPayload> byAppointment = new LinkedHashMap<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private Consumer<List<AppointmentEventPayload>> flushAction;
+        private long withoutAppointmentId;
+
+        private synchronized void add(AppointmentEventPayload event, Consumer<List<AppointmentEventPayload>> action) {
+            flushAction = action;
+            Long appointmentId = event.getAppointmentId();
+            if (appointmentId == null) {
+                // Cannot be collapsed; keep it under a unique negative key (appointment ids are positive).
+                byAppointment.put(--withoutAppointmentId, event);
+                return;
+            }
+            boolean seen = byAppointment.containsKey(appointmentId);
+            AppointmentEventPayload merged = merge(byAppointment.get(appointmentId), event);
+            if (seen) {
+                collapsed.increment();
+            }
+            byAppointment.put(appointmentId, merged);
+        }
+
+        private synchronized int size() {
+            return byAppointment.size();
+        }
+    }
+}
@@ -2,52 +2,236 @@ package com.theratime.notification.service;
 
 import com.theratime.notification.config.NotificationConfigResolver;
 import com.theratime.notification.entity.NotificationConfigEntity;
+import com.theratime.notification.entity.ProcessedEventEntity;
 import com.theratime.notification.event.AppointmentEventPayload;
+import com.theratime.notification.repository.DeliveryAttemptRepository;
 import com.theratime.notification.repository.ProcessedEventRepository;
 import com.theratime.notification.send.*;
+import com.theratime.notification.template.NotificationTemplates;
+import com.theratime.notification.template.RenderedNotification;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
 
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class NotificationHandler {
 
-    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-
     private final NotificationConfigResolver configResolver;
     private final EmailSender emailSender;
     private final WhatsAppSender whatsAppSender;
     private final ProcessedEventRepository processedEventRepository;
+    private final NotificationCoalescer coalescer;
+    private final ProcessedEventFilter processedEventFilter;
+    private final NotificationTemplates templates;
+    private final DeliveryAttemptRepository deliveryAttemptRepository;
+    private final ChannelDispatcher channelDispatcher;
 
+    /**
+     * Sends the event unless it was processed before. If a previous attempt (a Kafka retry or a DLQ replay)
+     * delivered some channels ({@code notification_delivery_attempts}), only the remaining ones are sent.
+     *
+     * @throws ChannelDeliveryException when a channel failed; the attempt of every channel is recorded first
+     */
     public void handle(AppointmentEventPayload event) {
         String eventId = buildEventId(event);
-        boolean alreadyProcessed = processedEventRepository.existsById(eventId);
-        if (alreadyProcessed) {
+        boolean maybeSeen = processedEventFilter.mightContain(eventId);
+        if (maybeSeen && processedEventRepository.existsById(eventId)) {
             log.debug("Skipping already processed event {}", eventId);
             return;
         }
+        Map<NotificationChannel, DeliveryAttemptRepository.Attempt> attempts =
+                maybeSeen ? deliveryAttemptRepository.findAttempts(eventId) : Map.of();
+        if (dispatch(event, eventId, attempts)) {
+            processedEventRepository.save(NotificationIdempotencyMapper.toEntity(eventId, event));
+            processedEventFilter.put(eventId);
+        }
+    }
+
+    /**
+     * Handles a poll's worth of events: one IN query for the ids the filter cannot rule out, then one batched
+     * insert for the idempotency rows of the events handled here. Duplicates inside the batch are
+     * sent once. On failure, rows for the events handled so far are still written before
+     * {@link NotificationBatchException} reports the failing index.
+     */
+    public void handleBatch(List<AppointmentEventPayload> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<String> eventIds = new ArrayList<>(events.size());
+        for (AppointmentEventPayload event : events) {
+            eventIds.add(buildEventId(event));
+        }
+        Set<String> maybeProcessed = new LinkedHashSet<>();
+        for (String eventId : eventIds) {
+            if (processedEventFilter.mightContain(eventId)) {
+                maybeProcessed.add(eventId);
+            }
+        }
+        Set<String> alreadyProcessed = maybeProcessed.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(processedEventRepository.findExistingEventIds(maybeProcessed));
+        maybeProcessed.removeAll(alreadyProcessed);
+        Map<String, Map<NotificationChannel, DeliveryAttemptRepository.Attempt>> attempts = maybeProcessed.isEmpty()
+                ? Collections.emptyMap()
+                : deliveryAttemptRepository.findAttempts(maybeProcessed);
+
+        List<ProcessedEventEntity> handled = new ArrayList<>();
+        try {
+            for (int i = 0; i < events.size(); i++) {
+                String eventId = eventIds.get(i);
+                if (!alreadyProcessed.add(eventId)) {
+                    log.debug("Skipping already processed event {}", eventId);
+                    continue;
+                }
+                try {
+                    if (dispatch(events.get(i), eventId, attempts.getOrDefault(eventId, Map.of()))) {
+                        handled.add(NotificationIdempotencyMapper.toEntity(eventId, events.get(i)));
+                    }
+                } catch (RuntimeException e) {
+                    throw new NotificationBatchException(i, e);
+                }
+            }
+        } finally {
+            processedEventRepository.insertAllIgnoringDuplicates(handled);
+            for (ProcessedEventEntity entity : handled) {
+                processedEventFilter.put(entity.getEventId());
+            }
+        }
+    }
 
+    /**
+     * Sends the event on every enabled channel not already DELIVERED in {@code attempts}, or hands it to the
+     * digest window when coalescing is on. Returns false when nothing was configured to send, in which case
+     * the event is not recorded as processed (a config added later still applies).
+     */
+    private boolean dispatch(AppointmentEventPayload event, String eventId,
+                             Map<NotificationChannel, DeliveryAttemptRepository.Attempt> attempts) {
         Optional<NotificationConfigEntity> configOpt = configResolver.resolve(event.getTenantId(), event.getTherapistId());
         if (configOpt.isEmpty()) {
             log.debug("No notification config for tenant {} therapist {}", event.getTenantId(), event.getTherapistId());
-            return;
+            return false;
         }
         NotificationConfigEntity config = configOpt.get();
-        String subject = buildSubject(event);
-        String body = buildBody(event);
-        String message = subject + "\n" + body;
 
         String toEmail = config.getDefaultToEmail();
         String toPhone = config.getDefaultToPhone();
         if (toEmail == null && toPhone == null) {
             log.debug("No default_to_email or default_to_phone for tenant {}; skipping send", event.getTenantId());
+            return false;
+        }
+
+        if (coalescer.isEnabled()) {
+            NotificationCoalescer.RecipientKey key = new NotificationCoalescer.RecipientKey(event.getTenantId(), toEmail, toPhone);
+            coalescer.add(key, event, events -> sendDigest(config, events));
+            return true;
+        }
+        Map<NotificationChannel, Supplier<CompletionStage<Void>>> channels = channels(config, templates.render(event));
+        attempts.values().stream()
+                .filter(DeliveryAttemptRepository.Attempt::delivered)
+                .forEach(attempt -> channels.remove(attempt.channel()));
+        if (!channels.isEmpty()) {
+            sendAndTrack(eventId, event.getTenantId(), channels, !attempts.isEmpty());
+        }
+        return true;
+    }
+
+    /**
+     * Sends all channels concurrently. Attempts are recorded only when the event has delivery state already
+     * ({@code tracked}) or a channel failed, so a first-time success costs no extra write. On failure the event
+     * id is put into the filter (so the retry looks its attempts up) before {@link ChannelDeliveryException}.
+     */
+    private void sendAndTrack(String eventId, Long tenantId, Map<NotificationChannel, Supplier<CompletionStage<Void>>> channels,
+                              boolean tracked) {
+        ChannelDispatcher.ChannelResults results = channelDispatcher.deliver(channels,
+                lateChannel -> markDelivered(eventId, tenantId, lateChannel));
+        if (results.allDelivered() && !tracked) {
+            return;
+        }
+        Map<NotificationChannel, String> failures = new EnumMap<>(NotificationChannel.class);
+        results.failed().forEach((channel, error) -> failures.put(channel, String.valueOf(error.getMessage())));
+        try {
+            deliveryAttemptRepository.recordAttempts(eventId, tenantId, results.delivered(), failures);
+        } catch (RuntimeException e) {
+            // The retry then re-sends the delivered channels too; duplicates beat losing the failure.
+            log.warn("Could not record delivery attempts of event {}: {}", eventId, e.getMessage());
+        }
+        if (results.allDelivered()) {
             return;
         }
+        processedEventFilter.put(eventId);
+        throw new ChannelDeliveryException(eventId, results.failed());
+    }
+
+    private void markDelivered(String eventId, Long tenantId, NotificationChannel channel) {
+        try {
+            deliveryAttemptRepository.markDelivered(eventId, tenantId, channel);
+        } catch (RuntimeException e) {
+            log.warn("Could not record late delivery of {} for event {}: {}", channel, eventId, e.getMessage());
+        }
+    }
+
+    /**
+     * Sends one message for a coalesced window; a single event reads exactly like a direct send.
+     * The events were recorded when buffered, so channel results are only logged.
+     */
+    void sendDigest(NotificationConfigEntity config, List<AppointmentEventPayload> events) {
+        if (events.size() == 1) {
+            send(config, templates.render(events.get(0)));
+            return;
+        }
+        List<RenderedNotification> rendered = new ArrayList<>(events.size());
+        boolean anyHtml = false;
+        for (AppointmentEventPayload event : events) {
+            RenderedNotification notification = templates.render(event);
+            rendered.add(notification);
+            anyHtml |= notification.html() != null;
+        }
+        StringBuilder text = new StringBuilder();
+        StringBuilder html = anyHtml ? new StringBuilder() : null;
+        for (RenderedNotification notification : rendered) {
+            if (!text.isEmpty()) {
+                text.append('\n');
+            }
+            text.append(notification.subject()).append(": ").append(notification.text());
+            if (html != null) {
+                html.append(notification.html() != null
+                        ? notification.html()
+                        : "<p>" + HtmlUtils.htmlEscape(notification.subject() + ": " + notification.text()) + "</p>");
+            }
+        }
+        send(config, new RenderedNotification(events.size() + " appointment updates", text.toString(),
+                html != null ? html.toString() : null));
+    }
+
+    private void send(NotificationConfigEntity config, RenderedNotification notification) {
+        channels(config, notification).forEach((channel, send) -> send.get().whenComplete((ignored, error) -> {
+            if (error != null) {
+                log.warn("Digest for tenant {} failed on {}: {}", config.getTenantId(), channel, error.getMessage());
+            }
+        }));
+    }
+
+    /** The enabled channels for this config, each as a deferred send so they can be started together. */
+    private Map<NotificationChannel, Supplier<CompletionStage<Void>>> channels(NotificationConfigEntity config,
+                                                                              RenderedNotification notification) {
+        Map<NotificationChannel, Supplier<CompletionStage<Void>>> channels = new EnumMap<>(NotificationChannel.class);
+        String toEmail = config.getDefaultToEmail();
+        String toPhone = config.getDefaultToPhone();
 
         if (Boolean.TRUE.equals(config.getEmailEnabled()) && toEmail != null) {
             TenantMailConfig mailConfig = TenantMailConfig.builder()
@@ -57,17 +241,24 @@ public class NotificationHandler {
                     .smtpUsername(config.getSmtpUsername())
                     .smtpPassword(config.getSmtpPasswordEncrypted())
                     .build();
-            emailSender.send(EmailRequest.builder().to(toEmail).subject(subject).body(body).build(), mailConfig);
+            EmailRequest request = EmailRequest.builder()
+                    .to(toEmail)
+                    .subject(notification.subject())
+                    .body(notification.text())
+                    .htmlBody(notification.html())
+                    .build();
+            channels.put(NotificationChannel.EMAIL, () -> emailSender.send(request, mailConfig));
         }
 
         if (Boolean.TRUE.equals(config.getWhatsappEnabled()) && toPhone != null && config.getWhatsappPhoneOrApiKey() != null) {
             TenantWhatsAppConfig waConfig = TenantWhatsAppConfig.builder()
                     .phoneOrApiKey(config.getWhatsappPhoneOrApiKey())
                     .build();
-            whatsAppSender.send(WhatsAppRequest.builder().toPhone(toPhone).message(message).build(), waConfig);
+            String message = notification.subject() + "\n" + notification.text();
+            WhatsAppRequest request = WhatsAppRequest.builder().toPhone(toPhone).message(message).build();
+            channels.put(NotificationChannel.WHATSAPP, () -> whatsAppSender.send(request, waConfig));
         }
-
-        processedEventRepository.save(NotificationIdempotencyMapper.toEntity(eventId, event));
+        return channels;
     }
 
     private String buildEventId(AppointmentEventPayload event) {
@@ -78,20 +269,4 @@ public class NotificationHandler {
         String occurredAt = event.getOccurredAt() != null ? event.getOccurredAt().toString() : "";
         return event.getTenantId() + ":" + event.getAppointmentId() + ":" + eventType + ":" + occurredAt;
     }
-
-    private String buildSubject(AppointmentEventPayload event) {
-        return switch (event.getEventType() != null ? event.getEventType() : "") {
-            case AppointmentEventPayload.EVENT_CREATED -> "Appointment booked";
-            case AppointmentEventPayload.EVENT_CANCELLED -> "Appointment cancelled";
-            case AppointmentEventPayload.EVENT_RESCHEDULED -> "Appointment rescheduled";
-            default -> "Appointment update";
-        };
-    }
-
-    private String buildBody(AppointmentEventPayload event) {
-        String start = event.getStartTime() != null ? event.getStartTime().format(DATE_TIME) : "-";
-        String end = event.getEndTime() != null ? event.getEndTime().format(DATE_TIME) : "-";
-        return String.format("Appointment id: %s | %s - %s | Therapist: %s | User: %s",
-                event.getAppointmentId(), start, end, event.getTherapistId(), event.getUserId());
-    }
 }
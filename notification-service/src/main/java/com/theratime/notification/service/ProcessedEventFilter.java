@@ -0,0 +1,232 @@
+package com.theratime.notification.service;
+
+import com.theratime.notification.repository.ProcessedEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory Bloom filter over recently processed event ids, consulted before {@code processed_events}.
+ * {@link #mightContain(String)} returning false means "definitely new", so the common case skips the
+ * existence query; true means "maybe seen" and the caller still checks the database.
+ * <p>
+ * The filter only knows ids this instance recorded plus what was loaded from the database, so it is
+ * rebuilt on startup, after old partitions are dropped, and whenever Kafka partitions are (re)assigned
+ * ({@link #markStale()}): another instance may have processed records this one is about to receive.
+ * Until a rebuild that started after the last {@code markStale()} completes, every id is "maybe seen".
+ */
+@Component
+@Slf4j
+public class ProcessedEventFilter {
+
+    private final ProcessedEventRepository repository;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final Duration retention;
+    private final ExecutorService rebuilder;
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    /** Bumped by {@link #markStale()}; a rebuild only makes the filter authoritative if no bump happened meanwhile. */
+    private final AtomicLong staleGeneration = new AtomicLong();
+    private final Counter definitelyNew;
+    private final Counter maybeSeen;
+    private final Counter notReady;
+
+    private volatile BloomBits current;
+    private volatile BloomBits building;
+    private volatile boolean ready;
+
+    public ProcessedEventFilter(ProcessedEventRepository repository,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.idempotency.bloom.enabled:true}") boolean enabled,
+                                @Value("${app.idempotency.bloom.expected-insertions:1000000}") long expectedInsertions,
+                                @Value("${app.idempotency.bloom.false-positive-rate:0.01}") double falsePositiveRate,
+                                @Value("${app.idempotency.retention-days:7}") int retentionDays) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.expectedInsertions = Math.max(expectedInsertions, 1000);
+        this.falsePositiveRate = falsePositiveRate;
+        this.retention = Duration.ofDays(retentionDays);
+        this.current = new BloomBits(this.expectedInsertions, falsePositiveRate);
+        this.rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "processed-event-filter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.definitelyNew = meterRegistry.counter("notification.idempotency.filter", "result", "new");
+        this.maybeSeen = meterRegistry.counter("notification.idempotency.filter", "result", "maybe");
+        this.notReady = meterRegistry.counter("notification.idempotency.filter", "result", "not_ready");
+    }
+
+    /** False only if the id was definitely never recorded; true means the database must be checked. */
+    public boolean mightContain(String eventId) {
+        if (!enabled) {
+            return true;
+        }
+        if (!ready) {
+            notReady.increment();
+            return true;
+        }
+        if (current.mightContain(eventId)) {
+            maybeSeen.increment();
+            return true;
+        }
+        definitelyNew.increment();
+        return false;
+    }
+
+    /** Records an id; call after its processed_events (or notification_delivery_attempts) row is committed. */
+    public void put(String eventId) {
+        if (!enabled) {
+            return;
+        }
+        // Read building before current: rebuild() publishes current before clearing building.
+        BloomBits next = building;
+        BloomBits active = current;
+        active.put(eventId);
+        if (next != null && next != active) {
+            next.put(eventId);
+        }
+    }
+
+    public void putAll(Collection<String> eventIds) {
+        eventIds.forEach(this::put);
+    }
+
+    /** Stops answering "definitely new" until a fresh rebuild completes (e.g. after a Kafka rebalance). */
+    public void markStale() {
+        if (!enabled) {
+            return;
+        }
+        staleGeneration.incrementAndGet();
+        ready = false;
+        rebuildAsync();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAsync() {
+        if (enabled && rebuildQueued.compareAndSet(false, true)) {
+            rebuilder.execute(() -> {
+                rebuildQueued.set(false);
+                rebuild();
+            });
+        }
+    }
+
+    /**
+     * Loads the ids still within retention into a new filter and swaps it in. Ids recorded while loading
+     * go to both filters ({@link #put(String)}), so a row committed after the load query started is not missed.
+     */
+    void rebuild() {
+        long generation = staleGeneration.get();
+        BloomBits next = new BloomBits(expectedInsertions, falsePositiveRate);
+        building = next;
+        try {
+            AtomicLong loaded = new AtomicLong();
+            repository.forEachEventIdSince(Instant.now().minus(retention), id -> {
+                next.put(id);
+                loaded.incrementAndGet();
+            });
+            current = next;
+            ready = generation == staleGeneration.get();
+            log.info("Rebuilt processed-event filter with {} ids", loaded.get());
+        } catch (RuntimeException e) {
+            log.warn("Failed to rebuild processed-event filter; all events fall back to the database check: {}", e.getMessage());
+        } finally {
+            building = null;
+        }
+    }
+
+    boolean isReady() {
+        return ready;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    /** Fixed-size bit array with k hash functions derived from one 64-bit hash (Kirsch-Mitzenmacher). */
+    static final class BloomBits {
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+
+        BloomBits(long expectedInsertions, double falsePositiveRate) {
+            double ln2 = Math.log(2);
+            long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+            this.words = new AtomicLongArray((int) ((bits + 63) / 64));
+            this.bitCount = (long) words.length() * 64;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * ln2));
+        }
+
+        void put(String value) {
+            long hash = hash64(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = index(h1 + i * h2);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long old;
+                do {
+                    old = words.get(word);
+                    if ((old & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(word, old, old | mask));
+            }
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash64(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = index(h1 + i * h2);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int hashCount() {
+            return hashCount;
+        }
+
+        private long index(int combined) {
+            return (combined & Integer.MAX_VALUE) % bitCount;
+        }
+
+        /** FNV-1a over the UTF-8 bytes followed by a murmur3 finalizer for better bit spread. */
+        private static long hash64(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b;
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb93e5d1e6c53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.theratime.notification.template;
+
+import com.theratime.notification.event.AppointmentEventPayload;
+import org.springframework.web.util.HtmlUtils;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A template parsed once into literal and placeholder segments. Placeholders ({@code {{name}}}) are bound
+ * to plain accessor functions at compile time, so rendering is a single StringBuilder pass with no
+ * parsing, formatting or reflection per message. Unknown placeholders fail compilation.
+ */
+public final class CompiledTemplate {
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    static final Map<String, Function<AppointmentEventPayload, String>> VARIABLES = Map.of(
+            "appointmentId", event -> String.valueOf(event.getAppointmentId()),
+            "startTime", event -> formatTime(event.getStartTime()),
+            "endTime", event -> formatTime(event.getEndTime()),
+            "therapistId", event -> String.valueOf(event.getTherapistId()),
+            "userId", event -> String.valueOf(event.getUserId()),
+            "tenantId", event -> String.valueOf(event.getTenantId()),
+            "eventType", event -> String.valueOf(event.getEventType()),
+            "status", event -> String.valueOf(event.getStatus()));
+
+    private final String[] literals;
+    private final Function<AppointmentEventPayload, String>[] values;
+    private final boolean escapeHtml;
+    private final int literalLength;
+
+    private CompiledTemplate(List<String> literals, List<Function<AppointmentEventPayload, String>> values, boolean escapeHtml) {
+        this.literals = literals.toArray(new String[0]);
+        @SuppressWarnings("unchecked")
+        Function<AppointmentEventPayload, String>[] bound = values.toArray(new Function[0]);
+        this.values = bound;
+        this.escapeHtml = escapeHtml;
+        this.literalLength = literals.stream().mapToInt(String::length).sum();
+    }
+
+    /**
+     * Parses {@code source}; with {@code escapeHtml} every substituted value is HTML-escaped (literals are not).
+     *
+     * @throws IllegalArgumentException for an unknown or unterminated placeholder
+     */
+    public static CompiledTemplate compile(String source, boolean escapeHtml) {
+        List<String> literals = new ArrayList<>();
+        List<Function<AppointmentEventPayload, String>> values = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = source.indexOf(OPEN, position);
+            if (open < 0) {
+                literals.add(source.substring(position));
+                break;
+            }
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Unterminated placeholder at index " + open);
+            }
+            String name = source.substring(open + OPEN.length(), close).trim();
+            Function<AppointmentEventPayload, String> accessor = VARIABLES.get(name);
+            if (accessor == null) {
+                throw new IllegalArgumentException("Unknown placeholder {{" + name + "}}; allowed: " + VARIABLES.keySet());
+            }
+            literals.add(source.substring(position, open));
+            values.add(accessor);
+            position = close + CLOSE.length();
+        }
+        return new CompiledTemplate(literals, values, escapeHtml);
+    }
+
+    /** literals[0] value[0] literals[1] ... value[n-1] literals[n]. */
+    public String render(AppointmentEventPayload event) {
+        StringBuilder out = new StringBuilder(literalLength + values.length * 16);
+        out.append(literals[0]);
+        for (int i = 0; i < values.length; i++) {
+            String value = values[i].apply(event);
+            out.append(escapeHtml ? HtmlUtils.htmlEscape(value) : value);
+            out.append(literals[i + 1]);
+        }
+        return out.toString();
+    }
+
+    private static String formatTime(LocalDateTime time) {
+        return time != null ? time.format(DATE_TIME) : "-";
+    }
+}
@@ -0,0 +1,130 @@
+package com.theratime.notification.template;
+
+import com.theratime.notification.entity.NotificationTemplateEntity;
+import com.theratime.notification.event.AppointmentEventPayload;
+import com.theratime.notification.repository.NotificationTemplateRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Renders subject, text and optional HTML for an event from the tenant's {@code notification_template} row
+ * for that event type, falling back per field to the built-in defaults. Templates are compiled once and
+ * cached per (tenant, event type) for {@code app.notification-template.cache.ttl}, including "no row".
+ */
+@Service
+@Slf4j
+public class NotificationTemplates {
+
+    static final String DEFAULT_TEXT =
+            "Appointment id: {{appointmentId}} | {{startTime}} - {{endTime}} | Therapist: {{therapistId}} | User: {{userId}}";
+
+    private static final TemplateSet FALLBACK = TemplateSet.builtIn("Appointment update");
+    private static final Map<String, TemplateSet> BUILT_IN = Map.of(
+            AppointmentEventPayload.EVENT_CREATED, TemplateSet.builtIn("Appointment booked"),
+            AppointmentEventPayload.EVENT_CANCELLED, TemplateSet.builtIn("Appointment cancelled"),
+            AppointmentEventPayload.EVENT_RESCHEDULED, TemplateSet.builtIn("Appointment rescheduled"));
+
+    private final NotificationTemplateRepository repository;
+    private final long ttlMs;
+    private final int maxSize;
+    private final ConcurrentHashMap<TemplateKey, CachedTemplates> cache = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+
+    public NotificationTemplates(NotificationTemplateRepository repository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.notification-template.cache.ttl:PT5M}") Duration ttl,
+                                 @Value("${app.notification-template.cache.max-size:10000}") int maxSize) {
+        this.repository = repository;
+        this.ttlMs = ttl.toMillis();
+        this.maxSize = Math.max(maxSize, 1);
+        this.hits = meterRegistry.counter("notification.template.cache.hits");
+        this.misses = meterRegistry.counter("notification.template.cache.misses");
+    }
+
+    public RenderedNotification render(AppointmentEventPayload event) {
+        TemplateSet templates = templatesFor(event.getTenantId(), event.getEventType());
+        return new RenderedNotification(
+                templates.subject().render(event),
+                templates.text().render(event),
+                templates.html() != null ? templates.html().render(event) : null);
+    }
+
+    public void invalidateTenant(Long tenantId) {
+        generation.incrementAndGet();
+        cache.keySet().removeIf(key -> key.tenantId().equals(tenantId));
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    TemplateSet templatesFor(Long tenantId, String eventType) {
+        TemplateSet builtIn = eventType != null ? BUILT_IN.getOrDefault(eventType, FALLBACK) : FALLBACK;
+        if (tenantId == null || eventType == null) {
+            return builtIn;
+        }
+        TemplateKey key = new TemplateKey(tenantId, eventType);
+        long now = System.currentTimeMillis();
+        CachedTemplates cached = cache.get(key);
+        if (cached != null && now < cached.expiresAt()) {
+            hits.increment();
+            return cached.templates();
+        }
+        misses.increment();
+        long loadGeneration = generation.get();
+        TemplateSet templates = load(key, builtIn);
+        if (loadGeneration == generation.get()) {
+            if (cached == null && cache.size() >= maxSize) {
+                cache.values().removeIf(entry -> now >= entry.expiresAt());
+                if (cache.size() >= maxSize) {
+                    cache.clear();
+                }
+            }
+            cache.put(key, new CachedTemplates(templates, now + ttlMs));
+        }
+        return templates;
+    }
+
+    private TemplateSet load(TemplateKey key, TemplateSet builtIn) {
+        Optional<NotificationTemplateEntity> row = repository.findByTenantIdAndEventType(key.tenantId(), key.eventType());
+        if (row.isEmpty()) {
+            return builtIn;
+        }
+        NotificationTemplateEntity entity = row.get();
+        try {
+            return new TemplateSet(
+                    entity.getSubjectTemplate() != null ? CompiledTemplate.compile(entity.getSubjectTemplate(), false) : builtIn.subject(),
+                    entity.getTextTemplate() != null ? CompiledTemplate.compile(entity.getTextTemplate(), false) : builtIn.text(),
+                    entity.getHtmlTemplate() != null ? CompiledTemplate.compile(entity.getHtmlTemplate(), true) : null);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid notification template for tenant {} event {}; using built-in: {}",
+                    key.tenantId(), key.eventType(), e.getMessage());
+            return builtIn;
+        }
+    }
+
+    record TemplateSet(CompiledTemplate subject, CompiledTemplate text, CompiledTemplate html) {
+
+        private static TemplateSet builtIn(String subject) {
+            return new TemplateSet(CompiledTemplate.compile(subject, false), CompiledTemplate.compile(DEFAULT_TEXT, false), null);
+        }
+    }
+
+    private record TemplateKey(Long tenantId, String eventType) {
+    }
+
+    private record CachedTemplates(TemplateSet templates, long expiresAt) {
+    }
+}
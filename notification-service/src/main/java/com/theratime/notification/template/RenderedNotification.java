@@ -0,0 +1,8 @@
+package com.theratime.notification.template;
+
+/**
+ * A rendered message; {@code html} is null when the tenant has no HTML template
+ * (the text is then sent as the email body, as before templates existed).
+ */
+public record RenderedNotification(String subject, String text, String html) {
+}
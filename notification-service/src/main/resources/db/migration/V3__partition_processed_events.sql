@@ -0,0 +1,22 @@
+-- Range-partition processed_events by processed_at, one partition per day, so rows older than the
+-- Kafka retention window are removed with DROP TABLE instead of accumulating forever.
+-- Daily partitions are created ahead of time and dropped by ProcessedEventPartitionManager;
+-- the default partition catches rows if maintenance falls behind (and receives the existing rows).
+-- The primary key must include the partition key, so event_id alone is no longer unique:
+-- idempotency relies on the existence check before sending (concurrent duplicates are harmless).
+ALTER TABLE processed_events RENAME TO processed_events_legacy;
+ALTER INDEX processed_events_pkey RENAME TO processed_events_legacy_pkey;
+
+CREATE TABLE processed_events (
+    event_id VARCHAR(128) NOT NULL,
+    tenant_id BIGINT NOT NULL,
+    processed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (event_id, processed_at)
+) PARTITION BY RANGE (processed_at);
+
+CREATE TABLE processed_events_default PARTITION OF processed_events DEFAULT;
+
+INSERT INTO processed_events (event_id, tenant_id, processed_at)
+SELECT event_id, tenant_id, processed_at FROM processed_events_legacy;
+
+DROP TABLE processed_events_legacy;
@@ -0,0 +1,15 @@
+-- Optional per-tenant, per-event-type message templates. Placeholders: {{appointmentId}}, {{startTime}},
+-- {{endTime}}, {{therapistId}}, {{userId}}, {{tenantId}}, {{eventType}}, {{status}}.
+-- No row (or a NULL column) means the built-in default for that event type is used.
+CREATE TABLE notification_template (
+    id BIGSERIAL PRIMARY KEY,
+    tenant_id BIGINT NOT NULL,
+    event_type VARCHAR(64) NOT NULL,
+    subject_template VARCHAR(512),
+    text_template TEXT,
+    html_template TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE UNIQUE INDEX idx_notification_template_tenant_event ON notification_template (tenant_id, event_type);
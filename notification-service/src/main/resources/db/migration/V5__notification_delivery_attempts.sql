@@ -0,0 +1,17 @@
+-- Per-channel delivery state for events that are not fully processed yet: when one channel of an event
+-- fails, every channel's attempt is recorded here with its status and attempt count, so retries and DLQ
+-- replays skip DELIVERED channels and operators can see which channel keeps failing.
+-- Fully processed events live in processed_events.
+-- Rows older than app.idempotency.retention-days are deleted by ProcessedEventPartitionManager.
+CREATE TABLE notification_delivery_attempts (
+    event_id VARCHAR(128) NOT NULL,
+    channel VARCHAR(16) NOT NULL,
+    tenant_id BIGINT NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    attempt_count INT NOT NULL DEFAULT 1,
+    last_error VARCHAR(512),
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (event_id, channel)
+);
+
+CREATE INDEX idx_notification_delivery_attempts_updated_at ON notification_delivery_attempts (updated_at);
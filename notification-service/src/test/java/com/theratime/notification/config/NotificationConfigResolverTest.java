@@ -2,12 +2,14 @@ package com.theratime.notification.config;
 
 import com.theratime.notification.entity.NotificationConfigEntity;
 import com.theratime.notification.repository.NotificationConfigRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -19,9 +21,14 @@ class NotificationConfigResolverTest {
     @Mock
     private NotificationConfigRepository repository;
 
-    @InjectMocks
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
     private NotificationConfigResolver resolver;
 
+    @BeforeEach
+    void setUp() {
+        resolver = new NotificationConfigResolver(repository, meterRegistry, Duration.ofMinutes(5), 100);
+    }
+
     @Test
     void resolve_returnsTherapistSpecificConfigWhenPresent() {
         Long tenantId = 1L;
@@ -98,4 +105,81 @@ class NotificationConfigResolverTest {
 
         assertThat(result).isEmpty();
     }
+
+    @Test
+    void resolve_repeatedLookup_servedFromCache() {
+        NotificationConfigEntity therapistConfig = NotificationConfigEntity.builder()
+                .tenantId(1L)
+                .therapistId(5L)
+                .build();
+        when(repository.findByTenantIdAndTherapistId(1L, 5L)).thenReturn(Optional.of(therapistConfig));
+
+        resolver.resolve(1L, 5L);
+        Optional<NotificationConfigEntity> result = resolver.resolve(1L, 5L);
+
+        assertThat(result).containsSame(therapistConfig);
+        verify(repository, times(1)).findByTenantIdAndTherapistId(1L, 5L);
+        assertThat(meterRegistry.counter("notification.config.cache.hits").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("notification.config.cache.misses").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void resolve_cachesMissingConfig() {
+        when(repository.findByTenantIdAndTherapistIdIsNull(99L)).thenReturn(Optional.empty());
+
+        assertThat(resolver.resolve(99L, null)).isEmpty();
+        assertThat(resolver.resolve(99L, null)).isEmpty();
+
+        verify(repository, times(1)).findByTenantIdAndTherapistIdIsNull(99L);
+    }
+
+    @Test
+    void invalidateTenant_dropsOnlyThatTenantsEntries() {
+        when(repository.findByTenantIdAndTherapistIdIsNull(anyLong())).thenReturn(Optional.empty());
+        when(repository.findByTenantIdAndTherapistId(1L, 5L)).thenReturn(Optional.empty());
+        resolver.resolve(1L, null);
+        resolver.resolve(1L, 5L);
+        resolver.resolve(2L, null);
+
+        resolver.invalidateTenant(1L);
+        resolver.resolve(1L, null);
+        resolver.resolve(2L, null);
+
+        verify(repository, times(3)).findByTenantIdAndTherapistIdIsNull(1L);
+        verify(repository, times(1)).findByTenantIdAndTherapistIdIsNull(2L);
+    }
+
+    @Test
+    void invalidateAll_clearsCache() {
+        when(repository.findByTenantIdAndTherapistIdIsNull(anyLong())).thenReturn(Optional.empty());
+        resolver.resolve(1L, null);
+        resolver.resolve(2L, null);
+
+        resolver.invalidateAll();
+
+        assertThat(resolver.cachedEntries()).isZero();
+    }
+
+    @Test
+    void resolve_atCapacity_evictsInsteadOfGrowing() {
+        resolver = new NotificationConfigResolver(repository, new SimpleMeterRegistry(), Duration.ofMinutes(5), 10);
+        when(repository.findByTenantIdAndTherapistIdIsNull(anyLong())).thenReturn(Optional.empty());
+
+        for (long tenantId = 1; tenantId <= 50; tenantId++) {
+            resolver.resolve(tenantId, null);
+        }
+
+        assertThat(resolver.cachedEntries()).isLessThanOrEqualTo(10);
+    }
+
+    @Test
+    void resolve_expiredEntry_isReloaded() {
+        resolver = new NotificationConfigResolver(repository, new SimpleMeterRegistry(), Duration.ZERO, 100);
+        when(repository.findByTenantIdAndTherapistIdIsNull(1L)).thenReturn(Optional.empty());
+
+        resolver.resolve(1L, null);
+        resolver.resolve(1L, null);
+
+        verify(repository, times(2)).findByTenantIdAndTherapistIdIsNull(1L);
+    }
 }
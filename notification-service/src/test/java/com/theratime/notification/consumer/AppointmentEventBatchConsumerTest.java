@@ -0,0 +1,79 @@
+package com.theratime.notification.consumer;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.theratime.notification.event.AppointmentEventPayload;
+import com.theratime.notification.service.NotificationBatchException;
+import com.theratime.notification.service.NotificationHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AppointmentEventBatchConsumerTest {
+
+    @Mock
+    private ObjectMapper objectMapper;
+
+    @Mock
+    private NotificationHandler notificationHandler;
+
+    @InjectMocks
+    private AppointmentEventBatchConsumer consumer;
+
+    @Test
+    void consume_passesTenantScopedPayloadsToHandlerInOrder() throws Exception {
+        AppointmentEventPayload first = AppointmentEventPayload.builder().eventId("e1").tenantId(1L).build();
+        AppointmentEventPayload noTenant = AppointmentEventPayload.builder().eventId("e2").build();
+        AppointmentEventPayload third = AppointmentEventPayload.builder().eventId("e3").tenantId(2L).build();
+        when(objectMapper.readValue("m1", AppointmentEventPayload.class)).thenReturn(first);
+        when(objectMapper.readValue("m2", AppointmentEventPayload.class)).thenReturn(noTenant);
+        when(objectMapper.readValue("m3", AppointmentEventPayload.class)).thenReturn(third);
+
+        consumer.consume(List.of("m1", "m2", "m3"));
+
+        ArgumentCaptor<List<AppointmentEventPayload>> captor = ArgumentCaptor.forClass(List.class);
+        verify(notificationHandler).handleBatch(captor.capture());
+        assertThat(captor.getValue()).containsExactly(first, third);
+    }
+
+    @Test
+    void consume_handlerFailure_mapsToRecordIndexInPolledBatch() throws Exception {
+        AppointmentEventPayload noTenant = AppointmentEventPayload.builder().eventId("e1").build();
+        AppointmentEventPayload failing = AppointmentEventPayload.builder().eventId("e2").tenantId(1L).build();
+        when(objectMapper.readValue("m1", AppointmentEventPayload.class)).thenReturn(noTenant);
+        when(objectMapper.readValue("m2", AppointmentEventPayload.class)).thenReturn(failing);
+        doThrow(new NotificationBatchException(0, new RuntimeException("smtp down")))
+                .when(notificationHandler).handleBatch(anyList());
+
+        assertThatThrownBy(() -> consumer.consume(List.of("m1", "m2")))
+                .isInstanceOf(BatchListenerFailedException.class)
+                .extracting("index").isEqualTo(1);
+    }
+
+    @Test
+    void consume_unreadableRecord_handlesEarlierRecordsThenFailsAtIt() throws Exception {
+        AppointmentEventPayload first = AppointmentEventPayload.builder().eventId("e1").tenantId(1L).build();
+        when(objectMapper.readValue("m1", AppointmentEventPayload.class)).thenReturn(first);
+        when(objectMapper.readValue("bad", AppointmentEventPayload.class))
+                .thenThrow(new JsonParseException(null, "bad json"));
+
+        assertThatThrownBy(() -> consumer.consume(List.of("m1", "bad", "m3")))
+                .isInstanceOf(BatchListenerFailedException.class)
+                .extracting("index").isEqualTo(1);
+
+        verify(notificationHandler).handleBatch(List.of(first));
+        verify(objectMapper, never()).readValue("m3", AppointmentEventPayload.class);
+    }
+}
@@ -0,0 +1,98 @@
+package com.theratime.notification.consumer;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.theratime.notification.event.AppointmentEventPayload;
+import com.theratime.notification.service.NotificationHandler;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.retry.support.RetryTemplate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AppointmentEventParallelConsumerTest {
+
+    @Mock
+    private ObjectMapper objectMapper;
+    @Mock
+    private NotificationHandler notificationHandler;
+    @Mock
+    private DeadLetterPublishingRecoverer deadLetterRecoverer;
+    @Mock
+    private Acknowledgment ack;
+
+    private AppointmentEventParallelConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        RetryTemplate retryTemplate = RetryTemplate.builder().maxAttempts(2).fixedBackoff(10).build();
+        consumer = new AppointmentEventParallelConsumer(objectMapper, notificationHandler, retryTemplate, deadLetterRecoverer, 2, 2, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        consumer.destroy();
+    }
+
+    @Test
+    void consume_handlesOnWorkerAndAcknowledgesAfterCompletion() throws Exception {
+        ConsumerRecord<String, String> record = new ConsumerRecord<>("appointment.events", 0, 5L, "1", "m1");
+        AppointmentEventPayload payload = AppointmentEventPayload.builder().eventId("e1").tenantId(1L).build();
+        when(objectMapper.readValue("m1", AppointmentEventPayload.class)).thenReturn(payload);
+
+        consumer.consume(record, ack);
+
+        verify(notificationHandler, timeout(2_000)).handle(payload);
+        verify(ack, timeout(2_000)).acknowledge();
+        verifyNoInteractions(deadLetterRecoverer);
+    }
+
+    @Test
+    void consume_handlerKeepsFailing_retriesThenDeadLettersAndAcknowledges() throws Exception {
+        ConsumerRecord<String, String> record = new ConsumerRecord<>("appointment.events", 0, 6L, "1", "m1");
+        AppointmentEventPayload payload = AppointmentEventPayload.builder().eventId("e1").tenantId(1L).build();
+        when(objectMapper.readValue("m1", AppointmentEventPayload.class)).thenReturn(payload);
+        doThrow(new RuntimeException("smtp down")).when(notificationHandler).handle(payload);
+
+        consumer.consume(record, ack);
+
+        verify(ack, timeout(2_000)).acknowledge();
+        verify(notificationHandler, times(2)).handle(payload);
+        verify(deadLetterRecoverer).accept(eq(record), any(Exception.class));
+    }
+
+    @Test
+    void consume_unreadableRecord_deadLettersWithoutHandling() throws Exception {
+        ConsumerRecord<String, String> record = new ConsumerRecord<>("appointment.events", 0, 7L, "1", "bad");
+        when(objectMapper.readValue("bad", AppointmentEventPayload.class))
+                .thenThrow(new JsonParseException(null, "bad json"));
+
+        consumer.consume(record, ack);
+
+        verify(deadLetterRecoverer).accept(eq(record), any(Exception.class));
+        verify(ack).acknowledge();
+        verifyNoInteractions(notificationHandler);
+    }
+
+    @Test
+    void consume_missingTenantId_acknowledgesWithoutHandling() throws Exception {
+        ConsumerRecord<String, String> record = new ConsumerRecord<>("appointment.events", 0, 8L, null, "m1");
+        when(objectMapper.readValue("m1", AppointmentEventPayload.class))
+                .thenReturn(AppointmentEventPayload.builder().eventId("e1").build());
+
+        consumer.consume(record, ack);
+
+        verify(ack).acknowledge();
+        verifyNoInteractions(notificationHandler, deadLetterRecoverer);
+    }
+}
@@ -0,0 +1,116 @@
+package com.theratime.notification.consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TenantOrderedExecutorTest {
+
+    private final TenantOrderedExecutor executor = new TenantOrderedExecutor(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void submit_sameTenant_runsInSubmissionOrder() throws Exception {
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> last = null;
+        for (int i = 0; i < 50; i++) {
+            int value = i;
+            last = executor.submit(1L, () -> order.add(value));
+        }
+        last.get(5, TimeUnit.SECONDS);
+
+        assertThat(order).hasSize(50).isSorted();
+    }
+
+    @Test
+    void submit_blockedTenant_doesNotBlockOtherTenants() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> slow = executor.submit(1L, () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        executor.submit(2L, () -> { }).get(2, TimeUnit.SECONDS);
+
+        assertThat(slow).isNotDone();
+        release.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void submit_failedTask_doesNotStopLaterTasksOfSameTenant() throws Exception {
+        CompletableFuture<Void> failing = executor.submit(1L, () -> {
+            throw new IllegalStateException("boom");
+        });
+        CompletableFuture<Void> next = executor.submit(1L, () -> { });
+
+        next.get(5, TimeUnit.SECONDS);
+        assertThat(failing).isCompletedExceptionally();
+    }
+
+    @Test
+    void activeTenants_dropsToZeroWhenLanesDrain() throws Exception {
+        executor.submit(1L, () -> { }).get(5, TimeUnit.SECONDS);
+        executor.submit(2L, () -> { }).get(5, TimeUnit.SECONDS);
+
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (executor.activeTenants() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(executor.activeTenants()).isZero();
+    }
+
+    @Test
+    void ofVirtualThreads_runsTasksOnVirtualThreads() throws Exception {
+        try (TenantOrderedExecutor virtual = TenantOrderedExecutor.ofVirtualThreads(2)) {
+            CompletableFuture<Boolean> isVirtual = new CompletableFuture<>();
+
+            virtual.submit(1L, () -> isVirtual.complete(Thread.currentThread().isVirtual())).get(5, TimeUnit.SECONDS);
+
+            assertThat(isVirtual.get()).isTrue();
+        }
+    }
+
+    @Test
+    void ofVirtualThreads_runsAtMostMaxConcurrencyTasksAtOnce() throws Exception {
+        try (TenantOrderedExecutor virtual = TenantOrderedExecutor.ofVirtualThreads(2)) {
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            List<CompletableFuture<Void>> tasks = new ArrayList<>();
+            for (long tenantId = 1; tenantId <= 10; tenantId++) {
+                tasks.add(virtual.submit(tenantId, () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                }));
+            }
+
+            Thread.sleep(200);
+            assertThat(running.get()).isEqualTo(2);
+            release.countDown();
+            CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+            assertThat(maxRunning.get()).isEqualTo(2);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.theratime.notification.replay;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.theratime.notification.event.AppointmentEventPayload;
+import com.theratime.notification.service.NotificationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class DlqReplayServiceTest {
+
+    private static final String DLQ = "appointment.events.dlq";
+    private static final TopicPartition PARTITION = new TopicPartition(DLQ, 0);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MockConsumer<Object, Object> consumer;
+    private KafkaTemplate<Object, Object> kafkaTemplate;
+    private NotificationHandler notificationHandler;
+    private DlqReplayService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.updatePartitions(DLQ, List.of(new PartitionInfo(DLQ, 0, null, null, null)));
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+        notificationHandler = mock(NotificationHandler.class);
+        service = new DlqReplayService(() -> consumer, kafkaTemplate, notificationHandler, objectMapper, meterRegistry,
+                "appointment.events", 1000, 1000, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void start_reinjectsMatchingRecordsFromOffsetUpToEndSnapshot() throws Exception {
+        dlqRecords(event("e0", 1L, AppointmentEventPayload.EVENT_CREATED),
+                event("e1", 1L, AppointmentEventPayload.EVENT_CREATED),
+                event("e2", 2L, AppointmentEventPayload.EVENT_CREATED),
+                event("e3", 1L, AppointmentEventPayload.EVENT_CANCELLED));
+
+        service.start(DlqReplayRequest.builder()
+                .fromOffset(1L)
+                .tenantIds(Set.of(1L))
+                .eventTypes(Set.of(AppointmentEventPayload.EVENT_CREATED))
+                .build());
+        DlqReplayStatus status = awaitFinished();
+
+        assertThat(status.state()).isEqualTo(DlqReplayStatus.State.COMPLETED);
+        assertThat(status.read()).isEqualTo(3);
+        assertThat(status.replayed()).isEqualTo(1);
+        assertThat(status.skipped()).isEqualTo(2);
+        assertThat(status.remaining()).containsEntry(PARTITION.toString(), 0L);
+        ArgumentCaptor<ProducerRecord<Object, Object>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(sent.capture());
+        assertThat(sent.getValue().topic()).isEqualTo("appointment.events");
+        assertThat(sent.getValue().value().toString()).contains("\"eventId\":\"e1\"");
+        assertThat(new String(sent.getValue().headers().lastHeader(DlqReplayService.REPLAY_SOURCE_HEADER).value(),
+                StandardCharsets.UTF_8)).isEqualTo(DLQ + "-0@1");
+        verifyNoInteractions(notificationHandler);
+        assertThat(meterRegistry.counter("notification.dlq.replay.records", "result", "replayed").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void start_directMode_handlesEventsAndCountsFailures() throws Exception {
+        dlqRecords(event("e0", 1L, AppointmentEventPayload.EVENT_CREATED), event("e1", 1L, AppointmentEventPayload.EVENT_CREATED));
+        doNothing().doThrow(new IllegalStateException("smtp still down")).when(notificationHandler).handle(any());
+
+        service.start(DlqReplayRequest.builder().mode(DlqReplayRequest.Mode.DIRECT).build());
+        DlqReplayStatus status = awaitFinished();
+
+        assertThat(status.replayed()).isEqualTo(1);
+        assertThat(status.failed()).isEqualTo(1);
+        verify(notificationHandler, times(2)).handle(any());
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void start_unreadableRecord_isSkipped() throws Exception {
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        consumer.updateEndOffsets(Map.of(PARTITION, 1L));
+        consumer.schedulePollTask(() -> consumer.addRecord(new ConsumerRecord<>(DLQ, 0, 0L, null, "not json")));
+
+        service.start(DlqReplayRequest.builder().build());
+        DlqReplayStatus status = awaitFinished();
+
+        assertThat(status.skipped()).isEqualTo(1);
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void start_whileRunning_isRejectedAndCancelStopsReplay() throws Exception {
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        consumer.updateEndOffsets(Map.of(PARTITION, 5L));
+
+        service.start(DlqReplayRequest.builder().build());
+
+        assertThatThrownBy(() -> service.start(DlqReplayRequest.builder().build()))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(service.cancel()).isTrue();
+        assertThat(awaitFinished().state()).isEqualTo(DlqReplayStatus.State.CANCELLED);
+        assertThat(service.cancel()).isFalse();
+    }
+
+    private void dlqRecords(AppointmentEventPayload... events) throws Exception {
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        consumer.updateEndOffsets(Map.of(PARTITION, (long) events.length));
+        for (int i = 0; i < events.length; i++) {
+            ConsumerRecord<Object, Object> record =
+                    new ConsumerRecord<>(DLQ, 0, i, "1", objectMapper.writeValueAsString(events[i]));
+            consumer.schedulePollTask(() -> consumer.addRecord(record));
+        }
+    }
+
+    private static AppointmentEventPayload event(String eventId, Long tenantId, String eventType) {
+        return AppointmentEventPayload.builder().eventId(eventId).tenantId(tenantId).eventType(eventType).build();
+    }
+
+    private DlqReplayStatus awaitFinished() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            DlqReplayStatus status = service.status();
+            if (status.state() != DlqReplayStatus.State.RUNNING) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Replay did not finish: " + service.status());
+    }
+}
@@ -0,0 +1,85 @@
+package com.theratime.notification.repository;
+
+import com.theratime.notification.send.NotificationChannel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeliveryAttemptRepositoryTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private DeliveryAttemptRepository repository;
+
+    @Test
+    void findAttempts_groupsChannelStateByEventIdInOneQuery() throws Exception {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getString(1)).thenReturn("e1", "e1", "e2");
+        when(resultSet.getString(2)).thenReturn("EMAIL", "WHATSAPP", "EMAIL");
+        when(resultSet.getString(3)).thenReturn("DELIVERED", "FAILED", "DELIVERED");
+        when(resultSet.getInt(4)).thenReturn(1, 3, 2);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (int i = 0; i < 3; i++) {
+                handler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+
+        Map<String, Map<NotificationChannel, DeliveryAttemptRepository.Attempt>> attempts =
+                repository.findAttempts(List.of("e1", "e2", "e3"));
+
+        assertThat(attempts).containsOnlyKeys("e1", "e2");
+        assertThat(attempts.get("e1").get(NotificationChannel.EMAIL).delivered()).isTrue();
+        assertThat(attempts.get("e1").get(NotificationChannel.WHATSAPP))
+                .isEqualTo(new DeliveryAttemptRepository.Attempt(NotificationChannel.WHATSAPP, DeliveryAttemptRepository.Status.FAILED, 3));
+        assertThat(attempts.get("e2").get(NotificationChannel.EMAIL).attemptCount()).isEqualTo(2);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(sql.capture(), any(RowCallbackHandler.class), any(Object[].class));
+        assertThat(sql.getValue()).endsWith("IN (?, ?, ?)");
+    }
+
+    @Test
+    void findAttempts_emptyIds_doesNotTouchDatabase() {
+        assertThat(repository.findAttempts(List.of())).isEmpty();
+        repository.recordAttempts("e1", 1L, Set.of(), Map.of());
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void recordAttempts_upsertsDeliveredAndFailedChannelsInOneBatch() {
+        String longError = "x".repeat(DeliveryAttemptRepository.MAX_ERROR_LENGTH + 10);
+
+        repository.recordAttempts("e1", 7L, List.of(NotificationChannel.EMAIL), Map.of(NotificationChannel.WHATSAPP, longError));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(sql.capture(), rows.capture());
+        assertThat(sql.getValue())
+                .contains("ON CONFLICT (event_id, channel) DO UPDATE")
+                .contains("attempt_count = notification_delivery_attempts.attempt_count + 1")
+                .contains("THEN 'DELIVERED'");
+        assertThat(rows.getValue()).hasSize(2);
+        assertThat(rows.getValue().get(0)).startsWith("e1", "EMAIL", 7L, "DELIVERED", null);
+        assertThat(rows.getValue().get(1)).startsWith("e1", "WHATSAPP", 7L, "FAILED");
+        assertThat((String) rows.getValue().get(1)[4]).hasSize(DeliveryAttemptRepository.MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,89 @@
+package com.theratime.notification.repository;
+
+import com.theratime.notification.service.ProcessedEventFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProcessedEventPartitionManagerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private ProcessedEventFilter processedEventFilter;
+
+    private ProcessedEventPartitionManager manager;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(Instant.parse("2025-06-10T12:00:00Z"), ZoneOffset.UTC);
+        manager = new ProcessedEventPartitionManager(jdbcTemplate, processedEventFilter, 7, 2, clock);
+    }
+
+    @Test
+    void maintain_createsTodayAndAheadPartitions() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any())).thenReturn(List.of());
+
+        manager.maintain();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(3)).execute(sql.capture());
+        assertThat(sql.getAllValues()).containsExactly(
+                "CREATE TABLE IF NOT EXISTS processed_events_20250610 PARTITION OF processed_events"
+                        + " FOR VALUES FROM ('2025-06-10') TO ('2025-06-11')",
+                "CREATE TABLE IF NOT EXISTS processed_events_20250611 PARTITION OF processed_events"
+                        + " FOR VALUES FROM ('2025-06-11') TO ('2025-06-12')",
+                "CREATE TABLE IF NOT EXISTS processed_events_20250612 PARTITION OF processed_events"
+                        + " FOR VALUES FROM ('2025-06-12') TO ('2025-06-13')");
+        verifyNoInteractions(processedEventFilter);
+    }
+
+    @Test
+    void maintain_dropsOnlyPartitionsOlderThanRetentionAndRebuildsFilter() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any())).thenReturn(List.of(
+                "processed_events_20250601", "processed_events_20250602", "processed_events_20250603",
+                "processed_events_20250610", "processed_events_default"));
+
+        manager.maintain();
+
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS processed_events_20250601");
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS processed_events_20250602");
+        verify(jdbcTemplate, never()).execute("DROP TABLE IF EXISTS processed_events_20250603");
+        verify(jdbcTemplate, never()).execute("DROP TABLE IF EXISTS processed_events_20250610");
+        verify(jdbcTemplate, never()).execute("DROP TABLE IF EXISTS processed_events_default");
+        verify(jdbcTemplate).update("DELETE FROM processed_events_default WHERE processed_at < ?",
+                Timestamp.valueOf(LocalDateTime.of(2025, 6, 3, 0, 0)));
+        verify(jdbcTemplate).update("DELETE FROM notification_delivery_attempts WHERE updated_at < ?",
+                Timestamp.valueOf(LocalDateTime.of(2025, 6, 3, 0, 0)));
+        verify(processedEventFilter).rebuildAsync();
+    }
+
+    @Test
+    void maintain_partitionCreationFails_continuesWithRemainingWork() {
+        doThrow(new DataIntegrityViolationException("default partition contains rows"))
+                .when(jdbcTemplate).execute(contains("processed_events_20250610"));
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any())).thenReturn(List.of());
+
+        manager.maintain();
+
+        verify(jdbcTemplate).execute(contains("processed_events_20250612"));
+        verify(jdbcTemplate).update(startsWith("DELETE FROM processed_events_default"), any(Timestamp.class));
+    }
+}
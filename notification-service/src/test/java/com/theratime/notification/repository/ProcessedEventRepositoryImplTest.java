@@ -0,0 +1,75 @@
+package com.theratime.notification.repository;
+
+import com.theratime.notification.entity.ProcessedEventEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProcessedEventRepositoryImplTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private ProcessedEventRepositoryImpl repository;
+
+    @Test
+    void insertAllIgnoringDuplicates_issuesSingleBatchWithOnConflict() {
+        ProcessedEventEntity first = new ProcessedEventEntity();
+        first.setEventId("e1");
+        first.setTenantId(1L);
+        ProcessedEventEntity second = new ProcessedEventEntity();
+        second.setEventId("e2");
+        second.setTenantId(2L);
+
+        repository.insertAllIgnoringDuplicates(List.of(first, second));
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<List<Object[]>> rowsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(sqlCaptor.capture(), rowsCaptor.capture());
+        assertThat(sqlCaptor.getValue()).contains("ON CONFLICT DO NOTHING");
+        assertThat(rowsCaptor.getValue()).hasSize(2);
+        assertThat(rowsCaptor.getValue().get(0)[0]).isEqualTo("e1");
+        assertThat(rowsCaptor.getValue().get(1)[1]).isEqualTo(2L);
+    }
+
+    @Test
+    void insertAllIgnoringDuplicates_emptyCollection_doesNotTouchDatabase() {
+        repository.insertAllIgnoringDuplicates(List.of());
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void forEachEventIdSince_streamsIdsToAction() throws Exception {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getString(1)).thenReturn("e1", "e2");
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(resultSet);
+            handler.processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        List<String> ids = new ArrayList<>();
+
+        repository.forEachEventIdSince(Instant.parse("2025-06-01T00:00:00Z"), ids::add);
+
+        assertThat(ids).containsExactly("e1", "e2");
+    }
+}
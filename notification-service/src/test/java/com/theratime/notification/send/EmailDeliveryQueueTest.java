@@ -0,0 +1,134 @@
+package com.theratime.notification.send;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmailDeliveryQueueTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private EmailDeliveryQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void submit_returnsImmediatelyAndDeliversOnWorker() throws Exception {
+        queue = newQueue(3, 2, 100);
+        CountDownLatch sent = new CountDownLatch(1);
+        String caller = Thread.currentThread().getName();
+        AtomicInteger onCallerThread = new AtomicInteger();
+
+        CompletableFuture<Void> result = queue.submit("smtp.example.com", "to@example.com", () -> {
+            if (Thread.currentThread().getName().equals(caller)) {
+                onCallerThread.incrementAndGet();
+            }
+            sent.countDown();
+        });
+
+        assertThat(sent.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(onCallerThread.get()).isZero();
+        result.get(2, TimeUnit.SECONDS);
+        awaitCount("notification.email.delivered", 1);
+    }
+
+    @Test
+    void submit_failingAttempt_isRescheduledUntilMaxAttempts() throws Exception {
+        queue = newQueue(3, 2, 100);
+        AtomicInteger attempts = new AtomicInteger();
+
+        CompletableFuture<Void> result = queue.submit("smtp.example.com", "to@example.com", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("smtp down");
+        });
+
+        assertThatThrownBy(() -> result.get(2, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        awaitCount("notification.email.failed", 1);
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(meterRegistry.counter("notification.email.retries").count()).isEqualTo(2.0);
+        assertThat(queue.depth()).isZero();
+    }
+
+    @Test
+    void submit_boundsConcurrencyPerHostButNotAcrossHosts() throws Exception {
+        queue = newQueue(1, 1, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch otherHostSent = new CountDownLatch(1);
+        AtomicInteger sameHostStarted = new AtomicInteger();
+
+        EmailDeliveryQueue.DeliveryAttempt blocking = () -> {
+            sameHostStarted.incrementAndGet();
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+        };
+        queue.submit("slow.example.com", "a@example.com", blocking);
+        queue.submit("slow.example.com", "b@example.com", blocking);
+        queue.submit("fast.example.com", "c@example.com", otherHostSent::countDown);
+
+        assertThat(started.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(otherHostSent.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(sameHostStarted.get()).isEqualTo(1);
+        assertThat(queue.depth()).isEqualTo(1);
+        assertThat(meterRegistry.get("notification.email.queue.depth").gauge().value()).isEqualTo(1.0);
+
+        release.countDown();
+        awaitCount("notification.email.delivered", 3);
+        assertThat(sameHostStarted.get()).isEqualTo(2);
+    }
+
+    @Test
+    void submit_whenFull_rejects() throws Exception {
+        queue = newQueue(1, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        queue.submit("smtp.example.com", "a@example.com", () -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+        });
+        assertThat(started.await(2, TimeUnit.SECONDS)).isTrue();
+        queue.submit("smtp.example.com", "b@example.com", () -> { });
+
+        assertThatThrownBy(() -> queue.submit("smtp.example.com", "c@example.com", () -> { }))
+                .isInstanceOf(RejectedExecutionException.class);
+        release.countDown();
+    }
+
+    @Test
+    void retryDelayMs_doublesUpToMax() {
+        queue = new EmailDeliveryQueue(meterRegistry, 5, 1000, 3000, 1, 1, 10);
+
+        assertThat(queue.retryDelayMs(1)).isEqualTo(1000);
+        assertThat(queue.retryDelayMs(2)).isEqualTo(2000);
+        assertThat(queue.retryDelayMs(3)).isEqualTo(3000);
+        assertThat(queue.retryDelayMs(10)).isEqualTo(3000);
+    }
+
+    private EmailDeliveryQueue newQueue(int maxAttempts, int perHost, int capacity) {
+        return new EmailDeliveryQueue(meterRegistry, maxAttempts, 10, 50, 4, perHost, capacity);
+    }
+
+    private void awaitCount(String counter, double expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 3_000;
+        while (meterRegistry.counter(counter).count() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(meterRegistry.counter(counter).count()).isEqualTo(expected);
+    }
+}
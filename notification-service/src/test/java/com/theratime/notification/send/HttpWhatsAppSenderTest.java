@@ -0,0 +1,198 @@
+package com.theratime.notification.send;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the sender against a local stub provider (JDK HttpServer).
+ */
+class HttpWhatsAppSenderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<ReceivedRequest> received = new CopyOnWriteArrayList<>();
+    private final AtomicInteger responseStatus = new AtomicInteger(200);
+    private HttpServer server;
+    private HttpWhatsAppSender sender;
+
+    record ReceivedRequest(String path, String authorization, JsonNode body) {
+    }
+
+    @BeforeEach
+    void startStubProvider() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            received.add(new ReceivedRequest(exchange.getRequestURI().getPath(),
+                    exchange.getRequestHeaders().getFirst("Authorization"),
+                    objectMapper.readTree(body)));
+            byte[] response = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(responseStatus.get(), response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (sender != null) {
+            sender.shutdown();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    void send_postsMessageWithTenantKeyAndCompletes() throws Exception {
+        sender = newSender(1, 100, 100);
+
+        sender.send(request("+100", "Hello"), config("tenant-key")).toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertThat(received).hasSize(1);
+        assertThat(received.get(0).path()).isEqualTo("/messages");
+        assertThat(received.get(0).authorization()).isEqualTo("Bearer tenant-key");
+        assertThat(received.get(0).body().get("to").asText()).isEqualTo("+100");
+        assertThat(received.get(0).body().get("text").asText()).isEqualTo("Hello");
+        assertThat(meterRegistry.counter("notification.whatsapp.sent").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void send_providerError_completesExceptionally() {
+        responseStatus.set(429);
+        sender = newSender(1, 100, 100);
+
+        CompletableFuture<Void> result = sender.send(request("+100", "Hi"), config("k")).toCompletableFuture();
+
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(WhatsAppDeliveryException.class);
+        assertThat(((WhatsAppDeliveryException) result.handle((v, e) -> e.getCause() != null ? e.getCause() : e).join())
+                .getStatusCode()).isEqualTo(429);
+    }
+
+    @Test
+    void send_withBatchSize_groupsQueuedMessagesIntoBatchRequests() throws Exception {
+        ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher.execute(() -> awaitQuietly(release));
+        sender = new HttpWhatsAppSender(objectMapper, meterRegistry, baseUrl(), 5000, 5, 100, 10, 100, 60_000, dispatcher);
+
+        CompletableFuture<?>[] results = new CompletableFuture<?>[6];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = sender.send(request("+10" + i, "m" + i), config("k")).toCompletableFuture();
+        }
+        release.countDown();
+        CompletableFuture.allOf(results).get(10, TimeUnit.SECONDS);
+
+        assertThat(received).extracting(ReceivedRequest::path).containsExactlyInAnyOrder("/messages/batch", "/messages");
+        JsonNode batch = received.stream().filter(r -> r.path().equals("/messages/batch")).findFirst().orElseThrow().body();
+        assertThat(batch.get("messages")).hasSize(5);
+        assertThat(batch.get("messages").get(0).get("to").asText()).isEqualTo("+100");
+    }
+
+    @Test
+    void send_rateLimited_throttlesPerAccountOnly() throws Exception {
+        sender = newSender(1, 2, 1);
+
+        long start = System.nanoTime();
+        CompletableFuture<Void> firstA = sender.send(request("+1", "a1"), config("A")).toCompletableFuture();
+        CompletableFuture<Void> secondA = sender.send(request("+1", "a2"), config("A")).toCompletableFuture();
+        CompletableFuture<Void> firstB = sender.send(request("+2", "b1"), config("B")).toCompletableFuture();
+
+        firstA.get(5, TimeUnit.SECONDS);
+        firstB.get(5, TimeUnit.SECONDS);
+        long unthrottledMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        secondA.get(5, TimeUnit.SECONDS);
+        long throttledMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(unthrottledMs).isLessThan(400);
+        assertThat(throttledMs).isGreaterThanOrEqualTo(400);
+        assertThat(meterRegistry.counter("notification.whatsapp.throttled").count()).isGreaterThanOrEqualTo(1.0);
+    }
+
+    @Test
+    void send_queueFull_rejectsImmediately() {
+        sender = newSender(1, 0.001, 1);
+        sender.send(request("+1", "first"), config("A"));
+
+        CompletableFuture<Void> overflow = null;
+        for (int i = 0; i < 3; i++) {
+            overflow = sender.send(request("+1", "queued" + i), config("A")).toCompletableFuture();
+        }
+
+        assertThat(overflow).isCompletedExceptionally();
+    }
+
+    @Test
+    void shutdown_failsQueuedMessagesAndResetsQueueDepth() {
+        sender = newSender(1, 0.001, 1);
+        sender.send(request("+1", "first"), config("A"));
+        CompletableFuture<Void> queued = sender.send(request("+1", "queued"), config("A")).toCompletableFuture();
+
+        sender.shutdown();
+
+        assertThat(queued).isCompletedExceptionally();
+        assertThat(meterRegistry.get("notification.whatsapp.queue.depth").gauge().value()).isZero();
+        assertThat(sender.laneCount()).isZero();
+    }
+
+    @Test
+    void evictIdleLanes_dropsOnlyLanesIdleSinceTheirBucketRefilled() throws Exception {
+        sender = new HttpWhatsAppSender(objectMapper, meterRegistry, baseUrl(), 5000, 1, 100, 1, 100, 0,
+                Executors.newSingleThreadScheduledExecutor());
+        sender.send(request("+1", "a"), config("A")).toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertThat(sender.laneCount()).isEqualTo(1);
+
+        Thread.sleep(50);
+        sender.evictIdleLanes();
+
+        assertThat(sender.laneCount()).isZero();
+        sender.send(request("+1", "b"), config("A")).toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertThat(received).hasSize(2);
+    }
+
+    private HttpWhatsAppSender newSender(int batchSize, double ratePerSecond, double burst) {
+        return new HttpWhatsAppSender(objectMapper, meterRegistry, baseUrl(), 5000, batchSize, ratePerSecond, burst, 2, 60_000);
+    }
+
+    private String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static WhatsAppRequest request(String to, String message) {
+        return WhatsAppRequest.builder().toPhone(to).message(message).build();
+    }
+
+    private static TenantWhatsAppConfig config(String key) {
+        return TenantWhatsAppConfig.builder().phoneOrApiKey(key).build();
+    }
+}
@@ -1,28 +1,34 @@
 package com.theratime.notification.send;
 
+import jakarta.mail.Session;
 import jakarta.mail.internet.MimeMessage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.MockedConstruction;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.mail.javamail.JavaMailSenderImpl;
-import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.mail.javamail.MimeMessagePreparator;
 
-import static org.mockito.ArgumentMatchers.any;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class SmtpEmailSenderTest {
 
+    @Mock
+    private EmailDeliveryQueue deliveryQueue;
+    @Mock
+    private SmtpTransportPool transportPool;
+
     private SmtpEmailSender sender;
 
     @BeforeEach
     void setUp() {
-        sender = new SmtpEmailSender();
-        ReflectionTestUtils.setField(sender, "maxAttempts", 3);
-        ReflectionTestUtils.setField(sender, "initialDelayMs", 10L);
-        ReflectionTestUtils.setField(sender, "maxDelayMs", 100L);
+        sender = new SmtpEmailSender(deliveryQueue, transportPool);
     }
 
     @Test
@@ -39,8 +45,7 @@ class SmtpEmailSenderTest {
 
         sender.send(request, config);
 
-        // No exception; no mail sender should be constructed if we had visibility
-        // (we can't verify mockConstruction without actually constructing, so early return is the assertion)
+        verifyNoInteractions(deliveryQueue);
     }
 
     @Test
@@ -56,10 +61,12 @@ class SmtpEmailSenderTest {
                 .build();
 
         sender.send(request, config);
+
+        verifyNoInteractions(deliveryQueue);
     }
 
     @Test
-    void send_validConfig_attemptsSend() {
+    void send_validConfig_queuesDeliveryThatSendsOverPooledTransport() throws Exception {
         TenantMailConfig config = TenantMailConfig.builder()
                 .from("from@example.com")
                 .smtpHost("smtp.example.com")
@@ -73,14 +80,20 @@ class SmtpEmailSenderTest {
                 .body("Body")
                 .build();
 
-        MimeMessage mockMessage = mock(MimeMessage.class);
-        try (MockedConstruction<JavaMailSenderImpl> ignored = mockConstruction(JavaMailSenderImpl.class,
-                (mock, context) -> {
-                    when(mock.createMimeMessage()).thenReturn(mockMessage);
-                    doNothing().when(mock).send(any(MimeMessage.class));
-                })) {
-            sender.send(request, config);
-        }
-        // Construction of JavaMailSenderImpl and send() invoked without throwing
+        sender.send(request, config);
+
+        ArgumentCaptor<EmailDeliveryQueue.DeliveryAttempt> attemptCaptor =
+                ArgumentCaptor.forClass(EmailDeliveryQueue.DeliveryAttempt.class);
+        verify(deliveryQueue).submit(eq("smtp.example.com"), eq("to@example.com"), attemptCaptor.capture());
+        verifyNoInteractions(transportPool);
+
+        attemptCaptor.getValue().run();
+
+        ArgumentCaptor<MimeMessagePreparator> preparatorCaptor = ArgumentCaptor.forClass(MimeMessagePreparator.class);
+        verify(transportPool).send(eq(config), preparatorCaptor.capture());
+        MimeMessage message = new MimeMessage(Session.getInstance(new Properties()));
+        preparatorCaptor.getValue().prepare(message);
+        assertThat(message.getSubject()).isEqualTo("Subj");
+        assertThat(message.getAllRecipients()[0].toString()).isEqualTo("to@example.com");
     }
 }
@@ -0,0 +1,155 @@
+package com.theratime.notification.send;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.mail.javamail.MimeMessagePreparator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SmtpTransportPoolTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Transport> opened = new ArrayList<>();
+    private final List<JavaMailSenderImpl> connectedSenders = new ArrayList<>();
+    private SmtpTransportPool pool;
+
+    private static final MimeMessagePreparator PREPARATOR = message -> {
+        MimeMessageHelper helper = new MimeMessageHelper(message, true);
+        helper.setFrom("from@example.com");
+        helper.setTo("to@example.com");
+        helper.setSubject("Subj");
+        helper.setText("Body", true);
+    };
+
+    @BeforeEach
+    void setUp() {
+        pool = new SmtpTransportPool(meterRegistry, 2, 60_000);
+        pool.setConnector(sender -> {
+            Transport transport = mock(Transport.class);
+            when(transport.isConnected()).thenReturn(true);
+            opened.add(transport);
+            connectedSenders.add(sender);
+            return transport;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void send_sameConfig_reusesConnection() throws Exception {
+        TenantMailConfig config = config("smtp.example.com", "pass");
+
+        pool.send(config, PREPARATOR);
+        pool.send(config, PREPARATOR);
+        pool.send(config, PREPARATOR);
+
+        assertThat(opened).hasSize(1);
+        verify(opened.get(0), times(3)).sendMessage(any(MimeMessage.class), any(Address[].class));
+        assertThat(meterRegistry.counter("notification.email.transport.connects").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("notification.email.transport.reuses").count()).isEqualTo(2.0);
+        assertThat(connectedSenders.get(0).getHost()).isEqualTo("smtp.example.com");
+        assertThat(connectedSenders.get(0).getPort()).isEqualTo(587);
+        assertThat(connectedSenders.get(0).getUsername()).isEqualTo("user");
+    }
+
+    @Test
+    void send_changedCredentials_usesNewSender() throws Exception {
+        pool.send(config("smtp.example.com", "old"), PREPARATOR);
+        pool.send(config("smtp.example.com", "new"), PREPARATOR);
+
+        assertThat(opened).hasSize(2);
+        assertThat(connectedSenders.get(1).getPassword()).isEqualTo("new");
+    }
+
+    @Test
+    void send_failedTransport_isClosedAndNotReused() throws Exception {
+        TenantMailConfig config = config("smtp.example.com", "pass");
+        pool.setConnector(sender -> {
+            Transport transport = mock(Transport.class);
+            if (opened.isEmpty()) {
+                doThrow(new MessagingException("421 closing")).when(transport)
+                        .sendMessage(any(MimeMessage.class), any(Address[].class));
+            }
+            when(transport.isConnected()).thenReturn(true);
+            opened.add(transport);
+            return transport;
+        });
+
+        assertThatThrownBy(() -> pool.send(config, PREPARATOR)).isInstanceOf(MessagingException.class);
+        pool.send(config, PREPARATOR);
+
+        assertThat(opened).hasSize(2);
+        verify(opened.get(0)).close();
+    }
+
+    @Test
+    void send_staleIdleTransport_isReplaced() throws Exception {
+        TenantMailConfig config = config("smtp.example.com", "pass");
+        pool.send(config, PREPARATOR);
+        when(opened.get(0).isConnected()).thenReturn(false);
+
+        pool.send(config, PREPARATOR);
+
+        assertThat(opened).hasSize(2);
+        verify(opened.get(0)).close();
+    }
+
+    @Test
+    void invalidateAll_closesIdleConnections() throws Exception {
+        TenantMailConfig config = config("smtp.example.com", "pass");
+        pool.send(config, PREPARATOR);
+
+        pool.invalidateAll();
+        pool.send(config, PREPARATOR);
+
+        verify(opened.get(0)).close();
+        assertThat(opened).hasSize(2);
+    }
+
+    @Test
+    void evictIdle_closesConnectionsIdleLongerThanTimeout() throws Exception {
+        pool.shutdown();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        pool = new SmtpTransportPool(registry, 2, 0);
+        pool.setConnector(sender -> {
+            Transport transport = mock(Transport.class);
+            opened.add(transport);
+            return transport;
+        });
+        pool.send(config("smtp.example.com", "pass"), PREPARATOR);
+        Thread.sleep(5);
+
+        pool.evictIdle();
+
+        verify(opened.get(0)).close();
+        assertThat(registry.get("notification.email.transport.idle").gauge().value()).isZero();
+        assertThat(registry.get("notification.email.transport.senders").gauge().value()).isZero();
+    }
+
+    private static TenantMailConfig config(String host, String password) {
+        return TenantMailConfig.builder()
+                .from("from@example.com")
+                .smtpHost(host)
+                .smtpPort(587)
+                .smtpUsername("user")
+                .smtpPassword(password)
+                .build();
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,4 +27,12 @@ class StubWhatsAppSenderTest {
         assertThatCode(() -> stubWhatsAppSender.send(request, config))
                 .doesNotThrowAnyException();
     }
+
+    @Test
+    void send_returnsCompletedStage() {
+        TenantWhatsAppConfig config = TenantWhatsAppConfig.builder().phoneOrApiKey("stub-key").build();
+        WhatsAppRequest request = WhatsAppRequest.builder().toPhone("+1234567890").message("Hello").build();
+
+        assertThat(stubWhatsAppSender.send(request, config).toCompletableFuture()).isCompleted();
+    }
 }
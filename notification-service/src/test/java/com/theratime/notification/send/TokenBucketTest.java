@@ -0,0 +1,51 @@
+package com.theratime.notification.send;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenBucketTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void tryAcquireUpTo_startsFullAndIsBoundedByCapacity() {
+        TokenBucket bucket = new TokenBucket(5, 1, now::get);
+
+        assertThat(bucket.tryAcquireUpTo(3)).isEqualTo(3);
+        assertThat(bucket.tryAcquireUpTo(10)).isEqualTo(2);
+        assertThat(bucket.tryAcquireUpTo(1)).isZero();
+    }
+
+    @Test
+    void refill_addsTokensAtConfiguredRateUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(4, 2, now::get);
+        bucket.tryAcquireUpTo(4);
+
+        now.addAndGet(1_000_000_000L);
+        assertThat(bucket.tryAcquireUpTo(10)).isEqualTo(2);
+
+        now.addAndGet(60_000_000_000L);
+        assertThat(bucket.tryAcquireUpTo(10)).isEqualTo(4);
+    }
+
+    @Test
+    void nanosUntilAvailable_reportsWaitForNextToken() {
+        TokenBucket bucket = new TokenBucket(1, 4, now::get);
+
+        assertThat(bucket.nanosUntilAvailable()).isZero();
+        bucket.tryAcquireUpTo(1);
+        assertThat(bucket.nanosUntilAvailable()).isEqualTo(250_000_000L);
+        now.addAndGet(100_000_000L);
+        assertThat(bucket.nanosUntilAvailable()).isEqualTo(150_000_000L);
+    }
+
+    @Test
+    void constructor_rejectsInvalidSettings() {
+        assertThatThrownBy(() -> new TokenBucket(0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucket(1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,86 @@
+package com.theratime.notification.service;
+
+import com.theratime.notification.send.NotificationChannel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChannelDispatcherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ChannelDispatcher dispatcher = new ChannelDispatcher(meterRegistry, 300, 100);
+
+    @Test
+    void deliver_startsAllChannelsBeforeWaitingOnAny() {
+        List<NotificationChannel> startOrder = new ArrayList<>();
+        CompletableFuture<Void> email = new CompletableFuture<>();
+        Map<NotificationChannel, Supplier<CompletionStage<Void>>> channels = new EnumMap<>(NotificationChannel.class);
+        channels.put(NotificationChannel.EMAIL, () -> {
+            startOrder.add(NotificationChannel.EMAIL);
+            return email;
+        });
+        channels.put(NotificationChannel.WHATSAPP, () -> {
+            startOrder.add(NotificationChannel.WHATSAPP);
+            email.complete(null);
+            return CompletableFuture.completedFuture(null);
+        });
+
+        ChannelDispatcher.ChannelResults results = dispatcher.deliver(channels, channel -> { });
+
+        assertThat(startOrder).containsExactly(NotificationChannel.EMAIL, NotificationChannel.WHATSAPP);
+        assertThat(results.allDelivered()).isTrue();
+        assertThat(results.delivered()).containsExactlyInAnyOrder(NotificationChannel.EMAIL, NotificationChannel.WHATSAPP);
+    }
+
+    @Test
+    void deliver_failureAndThrowOnStart_areReportedPerChannel() {
+        IllegalStateException providerDown = new IllegalStateException("provider down");
+        Map<NotificationChannel, Supplier<CompletionStage<Void>>> channels = new EnumMap<>(NotificationChannel.class);
+        channels.put(NotificationChannel.EMAIL, () -> {
+            throw new IllegalArgumentException("queue full");
+        });
+        channels.put(NotificationChannel.WHATSAPP, () -> CompletableFuture.failedFuture(providerDown));
+
+        ChannelDispatcher.ChannelResults results = dispatcher.deliver(channels, channel -> { });
+
+        assertThat(results.delivered()).isEmpty();
+        assertThat(results.failed().get(NotificationChannel.EMAIL)).hasMessage("queue full");
+        assertThat(results.failed().get(NotificationChannel.WHATSAPP)).isSameAs(providerDown);
+        assertThat(meterRegistry.counter("notification.channel.outcome", "channel", "WHATSAPP", "outcome", "failed").count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void deliver_timeoutIsPerChannelAndLateSuccessIsReported() {
+        CompletableFuture<Void> whatsApp = new CompletableFuture<>();
+        List<NotificationChannel> late = new ArrayList<>();
+        Map<NotificationChannel, Supplier<CompletionStage<Void>>> channels = new EnumMap<>(NotificationChannel.class);
+        channels.put(NotificationChannel.EMAIL, () -> CompletableFuture.completedFuture(null));
+        channels.put(NotificationChannel.WHATSAPP, () -> whatsApp);
+
+        long started = System.nanoTime();
+        ChannelDispatcher.ChannelResults results = dispatcher.deliver(channels, late::add);
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+        assertThat(results.delivered()).containsExactly(NotificationChannel.EMAIL);
+        assertThat(results.failed().get(NotificationChannel.WHATSAPP)).isInstanceOf(TimeoutException.class);
+        assertThat(elapsedMs).isLessThan(300);
+        assertThat(late).isEmpty();
+
+        whatsApp.complete(null);
+
+        assertThat(late).containsExactly(NotificationChannel.WHATSAPP);
+        assertThat(meterRegistry.counter("notification.channel.outcome", "channel", "WHATSAPP", "outcome", "timeout").count())
+                .isEqualTo(1.0);
+    }
+}
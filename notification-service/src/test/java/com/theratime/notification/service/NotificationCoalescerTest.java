@@ -0,0 +1,160 @@
+package com.theratime.notification.service;
+
+import com.theratime.notification.event.AppointmentEventPayload;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationCoalescerTest {
+
+    private static final NotificationCoalescer.RecipientKey ADMIN =
+            new NotificationCoalescer.RecipientKey(1L, "admin@example.com", null);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<List<AppointmentEventPayload>> sent = new CopyOnWriteArrayList<>();
+    private NotificationCoalescer coalescer;
+
+    @AfterEach
+    void tearDown() {
+        if (coalescer != null) {
+            coalescer.flushAll();
+        }
+    }
+
+    @Test
+    void isEnabled_falseWhenWindowIsZero() {
+        coalescer = new NotificationCoalescer(meterRegistry, 0, 50);
+
+        assertThat(coalescer.isEnabled()).isFalse();
+    }
+
+    @Test
+    void add_eventsWithinWindow_sentAsOneDigestAfterWindow() throws InterruptedException {
+        coalescer = new NotificationCoalescer(meterRegistry, 100, 50);
+        CountDownLatch flushed = new CountDownLatch(1);
+        Consumer<List<AppointmentEventPayload>> action = events -> {
+            sent.add(events);
+            flushed.countDown();
+        };
+
+        coalescer.add(ADMIN, event(10L, AppointmentEventPayload.EVENT_CREATED), action);
+        coalescer.add(ADMIN, event(11L, AppointmentEventPayload.EVENT_CREATED), action);
+        coalescer.add(ADMIN, event(12L, AppointmentEventPayload.EVENT_CANCELLED), action);
+
+        assertThat(sent).isEmpty();
+        assertThat(flushed.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(sent).hasSize(1);
+        assertThat(sent.get(0)).extracting(AppointmentEventPayload::getAppointmentId).containsExactly(10L, 11L, 12L);
+        assertThat(coalescer.pendingRecipients()).isZero();
+    }
+
+    @Test
+    void add_differentRecipients_getSeparateDigests() {
+        coalescer = new NotificationCoalescer(meterRegistry, 60_000, 50);
+        NotificationCoalescer.RecipientKey other = new NotificationCoalescer.RecipientKey(2L, "other@example.com", null);
+
+        coalescer.add(ADMIN, event(10L, AppointmentEventPayload.EVENT_CREATED), sent::add);
+        coalescer.add(other, event(20L, AppointmentEventPayload.EVENT_CREATED), sent::add);
+        coalescer.flushAll();
+
+        assertThat(sent).hasSize(2);
+    }
+
+    @Test
+    void add_createdThenRescheduledTwice_collapsesToBookingWithLatestTimes() {
+        coalescer = new NotificationCoalescer(meterRegistry, 60_000, 50);
+        LocalDateTime finalStart = LocalDateTime.of(2025, 6, 3, 9, 0);
+
+        coalescer.add(ADMIN, event(10L, AppointmentEventPayload.EVENT_CREATED), sent::add);
+        coalescer.add(ADMIN, event(10L, AppointmentEventPayload.EVENT_RESCHEDULED), sent::add);
+        AppointmentEventPayload last = event(10L, AppointmentEventPayload.EVENT_RESCHEDULED);
+        last.setStartTime(finalStart);
+        coalescer.add(ADMIN, last, sent::add);
+        coalescer.flushAll();
+
+        assertThat(sent).hasSize(1);
+        assertThat(sent.get(0)).hasSize(1);
+        assertThat(sent.get(0).get(0).getEventType()).isEqualTo(AppointmentEventPayload.EVENT_CREATED);
+        assertThat(sent.get(0).get(0).getStartTime()).isEqualTo(finalStart);
+        assertThat(meterRegistry.counter("notification.digest.collapsed").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void add_createdThenCancelled_sendsNothing() {
+        coalescer = new NotificationCoalescer(meterRegistry, 60_000, 50);
+
+        coalescer.add(ADMIN, event(10L, AppointmentEventPayload.EVENT_CREATED), sent::add);
+        coalescer.add(ADMIN, event(10L, AppointmentEventPayload.EVENT_CANCELLED), sent::add);
+        coalescer.flushAll();
+
+        assertThat(sent).isEmpty();
+    }
+
+    @Test
+    void add_rescheduledThenCancelled_keepsCancellation() {
+        coalescer = new NotificationCoalescer(meterRegistry, 60_000, 50);
+
+        coalescer.add(ADMIN, event(10L, AppointmentEventPayload.EVENT_RESCHEDULED), sent::add);
+        coalescer.add(ADMIN, event(10L, AppointmentEventPayload.EVENT_CANCELLED), sent::add);
+        coalescer.flushAll();
+
+        assertThat(sent.get(0)).extracting(AppointmentEventPayload::getEventType)
+                .containsExactly(AppointmentEventPayload.EVENT_CANCELLED);
+    }
+
+    @Test
+    void add_reachingMaxEvents_flushesImmediately() {
+        coalescer = new NotificationCoalescer(meterRegistry, 60_000, 3);
+
+        for (long id = 1; id <= 3; id++) {
+            coalescer.add(ADMIN, event(id, AppointmentEventPayload.EVENT_CREATED), sent::add);
+        }
+
+        assertThat(sent).hasSize(1);
+        assertThat(sent.get(0)).hasSize(3);
+        assertThat(coalescer.pendingRecipients()).isZero();
+    }
+
+    @Test
+    void flush_failingAction_isCountedAndDoesNotPropagate() {
+        coalescer = new NotificationCoalescer(meterRegistry, 60_000, 50);
+
+        coalescer.add(ADMIN, event(10L, AppointmentEventPayload.EVENT_CREATED), events -> {
+            throw new IllegalStateException("smtp down");
+        });
+        coalescer.flushAll();
+
+        assertThat(meterRegistry.counter("notification.digest.failed").count()).isEqualTo(1.0);
+    }
+
+    private static AppointmentEventPayload event(Long appointmentId, String eventType) {
+        return AppointmentEventPayload.builder()
+                .tenantId(1L)
+                .appointmentId(appointmentId)
+                .eventType(eventType)
+                .build();
+    }
+
+    @Test
+    void stop_flushesOpenDigestsAfterListenerContainersStop() {
+        coalescer = new NotificationCoalescer(meterRegistry, 60_000, 50);
+        coalescer.start();
+        coalescer.add(ADMIN, event(10L, AppointmentEventPayload.EVENT_CREATED), sent::add);
+
+        coalescer.stop();
+
+        assertThat(sent).hasSize(1);
+        assertThat(coalescer.isRunning()).isFalse();
+        assertThat(coalescer.getPhase()).isLessThan(AbstractMessageListenerContainer.DEFAULT_PHASE);
+    }
+}
@@ -2,26 +2,39 @@ package com.theratime.notification.service;
 
 import com.theratime.notification.config.NotificationConfigResolver;
 import com.theratime.notification.entity.NotificationConfigEntity;
+import com.theratime.notification.entity.NotificationTemplateEntity;
 import com.theratime.notification.event.AppointmentEventPayload;
+import com.theratime.notification.repository.NotificationTemplateRepository;
+import com.theratime.notification.repository.DeliveryAttemptRepository;
 import com.theratime.notification.repository.ProcessedEventRepository;
 import com.theratime.notification.send.EmailRequest;
 import com.theratime.notification.send.EmailSender;
+import com.theratime.notification.send.NotificationChannel;
 import com.theratime.notification.send.TenantMailConfig;
 import com.theratime.notification.send.WhatsAppRequest;
 import com.theratime.notification.send.WhatsAppSender;
 import com.theratime.notification.send.TenantWhatsAppConfig;
+import com.theratime.notification.template.NotificationTemplates;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -36,10 +49,29 @@ class NotificationHandlerTest {
     private WhatsAppSender whatsAppSender;
     @Mock
     private ProcessedEventRepository processedEventRepository;
+    @Mock
+    private NotificationCoalescer coalescer;
+    @Mock
+    private ProcessedEventFilter processedEventFilter;
+    @Mock
+    private NotificationTemplateRepository templateRepository;
+    @Mock
+    private DeliveryAttemptRepository deliveryAttemptRepository;
 
-    @InjectMocks
     private NotificationHandler notificationHandler;
 
+    @BeforeEach
+    void setUp() {
+        NotificationTemplates templates =
+                new NotificationTemplates(templateRepository, new SimpleMeterRegistry(), Duration.ofMinutes(5), 100);
+        ChannelDispatcher channelDispatcher = new ChannelDispatcher(new SimpleMeterRegistry(), 200, 200);
+        notificationHandler = new NotificationHandler(configResolver, emailSender, whatsAppSender,
+                processedEventRepository, coalescer, processedEventFilter, templates, deliveryAttemptRepository, channelDispatcher);
+        lenient().when(processedEventFilter.mightContain(anyString())).thenReturn(true);
+        lenient().when(emailSender.send(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        lenient().when(whatsAppSender.send(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
     @Test
     void handle_whenAlreadyProcessed_skipsSending() {
         AppointmentEventPayload payload = AppointmentEventPayload.builder()
@@ -595,5 +627,320 @@ class NotificationHandlerTest {
         verify(emailSender).send(emailCaptor.capture(), any(TenantMailConfig.class));
         assertThat(emailCaptor.getValue().getSubject()).isEqualTo("Appointment update");
     }
-}
 
+    // --- handleBatch: one IN query, one batched insert ---
+    @Test
+    void handleBatch_skipsAlreadyProcessedAndInsertsHandledInOneBatch() {
+        AppointmentEventPayload processed = batchEvent("evt-b1");
+        AppointmentEventPayload fresh = batchEvent("evt-b2");
+        NotificationConfigEntity config = NotificationConfigEntity.builder()
+                .tenantId(1L)
+                .emailEnabled(true)
+                .emailFrom("from@example.com")
+                .smtpHost("smtp.example.com")
+                .defaultToEmail("to@example.com")
+                .build();
+
+        when(processedEventRepository.findExistingEventIds(anyCollection())).thenReturn(Set.of("evt-b1"));
+        when(configResolver.resolve(1L, 5L)).thenReturn(Optional.of(config));
+
+        notificationHandler.handleBatch(List.of(processed, fresh));
+
+        verify(emailSender, times(1)).send(any(EmailRequest.class), any(TenantMailConfig.class));
+        verify(processedEventRepository, never()).existsById(anyString());
+        verify(processedEventRepository, never()).save(any());
+        ArgumentCaptor<Collection<com.theratime.notification.entity.ProcessedEventEntity>> insertCaptor =
+                ArgumentCaptor.forClass(Collection.class);
+        verify(processedEventRepository).insertAllIgnoringDuplicates(insertCaptor.capture());
+        assertThat(insertCaptor.getValue()).extracting("eventId").containsExactly("evt-b2");
+    }
+
+    @Test
+    void handleBatch_duplicateWithinBatch_sendsOnce() {
+        NotificationConfigEntity config = NotificationConfigEntity.builder()
+                .tenantId(1L)
+                .emailEnabled(true)
+                .emailFrom("from@example.com")
+                .smtpHost("smtp.example.com")
+                .defaultToEmail("to@example.com")
+                .build();
+
+        when(processedEventRepository.findExistingEventIds(anyCollection())).thenReturn(Set.of());
+        when(configResolver.resolve(1L, 5L)).thenReturn(Optional.of(config));
+
+        notificationHandler.handleBatch(List.of(batchEvent("evt-dup"), batchEvent("evt-dup")));
+
+        verify(emailSender, times(1)).send(any(EmailRequest.class), any(TenantMailConfig.class));
+    }
+
+    @Test
+    void handleBatch_failure_recordsEarlierEventsAndReportsFailedIndex() {
+        NotificationConfigEntity config = NotificationConfigEntity.builder()
+                .tenantId(1L)
+                .emailEnabled(true)
+                .emailFrom("from@example.com")
+                .smtpHost("smtp.example.com")
+                .defaultToEmail("to@example.com")
+                .build();
+
+        when(processedEventRepository.findExistingEventIds(anyCollection())).thenReturn(Set.of());
+        when(configResolver.resolve(1L, 5L)).thenReturn(Optional.of(config));
+        when(emailSender.send(any(EmailRequest.class), any(TenantMailConfig.class)))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenThrow(new RuntimeException("smtp down"));
+
+        assertThatThrownBy(() -> notificationHandler.handleBatch(
+                List.of(batchEvent("evt-ok"), batchEvent("evt-fail"), batchEvent("evt-later"))))
+                .isInstanceOf(NotificationBatchException.class)
+                .extracting("failedIndex").isEqualTo(1);
+
+        ArgumentCaptor<Collection<com.theratime.notification.entity.ProcessedEventEntity>> insertCaptor =
+                ArgumentCaptor.forClass(Collection.class);
+        verify(processedEventRepository).insertAllIgnoringDuplicates(insertCaptor.capture());
+        assertThat(insertCaptor.getValue()).extracting("eventId").containsExactly("evt-ok");
+    }
+
+    @Test
+    void handleBatch_emptyList_doesNothing() {
+        notificationHandler.handleBatch(List.of());
+
+        verifyNoInteractions(processedEventRepository, configResolver, emailSender, whatsAppSender);
+    }
+
+    private static AppointmentEventPayload batchEvent(String eventId) {
+        return AppointmentEventPayload.builder()
+                .eventId(eventId)
+                .tenantId(1L)
+                .appointmentId(10L)
+                .therapistId(5L)
+                .eventType(AppointmentEventPayload.EVENT_CREATED)
+                .occurredAt(Instant.now())
+                .build();
+    }
+
+    @Test
+    void handle_coalescingEnabled_buffersInsteadOfSending() {
+        AppointmentEventPayload payload = AppointmentEventPayload.builder()
+                .eventId("evt-digest")
+                .tenantId(1L)
+                .appointmentId(10L)
+                .therapistId(5L)
+                .eventType(AppointmentEventPayload.EVENT_CREATED)
+                .build();
+        NotificationConfigEntity config = NotificationConfigEntity.builder()
+                .tenantId(1L)
+                .emailEnabled(true)
+                .defaultToEmail("to@example.com")
+                .build();
+        when(processedEventRepository.existsById("evt-digest")).thenReturn(false);
+        when(configResolver.resolve(1L, 5L)).thenReturn(Optional.of(config));
+        when(coalescer.isEnabled()).thenReturn(true);
+
+        notificationHandler.handle(payload);
+
+        verify(coalescer).add(eq(new NotificationCoalescer.RecipientKey(1L, "to@example.com", null)), eq(payload), any());
+        verifyNoInteractions(emailSender, whatsAppSender);
+        verify(processedEventRepository).save(any());
+    }
+
+    @Test
+    void sendDigest_multipleEvents_sendsOneCombinedMessage() {
+        NotificationConfigEntity config = NotificationConfigEntity.builder()
+                .tenantId(1L)
+                .emailEnabled(true)
+                .defaultToEmail("to@example.com")
+                .whatsappEnabled(true)
+                .whatsappPhoneOrApiKey("key")
+                .defaultToPhone("+123")
+                .build();
+        List<AppointmentEventPayload> events = List.of(
+                AppointmentEventPayload.builder().tenantId(1L).appointmentId(10L)
+                        .eventType(AppointmentEventPayload.EVENT_CREATED).build(),
+                AppointmentEventPayload.builder().tenantId(1L).appointmentId(11L)
+                        .eventType(AppointmentEventPayload.EVENT_CANCELLED).build());
+
+        notificationHandler.sendDigest(config, events);
+
+        ArgumentCaptor<EmailRequest> emailCaptor = ArgumentCaptor.forClass(EmailRequest.class);
+        verify(emailSender, times(1)).send(emailCaptor.capture(), any());
+        assertThat(emailCaptor.getValue().getSubject()).isEqualTo("2 appointment updates");
+        assertThat(emailCaptor.getValue().getBody())
+                .contains("Appointment booked: Appointment id: 10")
+                .contains("Appointment cancelled: Appointment id: 11");
+        verify(whatsAppSender, times(1)).send(any(), any());
+    }
+
+    @Test
+    void handle_filterSaysDefinitelyNew_skipsExistenceQueryAndRecordsId() {
+        AppointmentEventPayload payload = AppointmentEventPayload.builder()
+                .eventId("evt-new")
+                .tenantId(1L)
+                .appointmentId(10L)
+                .eventType(AppointmentEventPayload.EVENT_CREATED)
+                .build();
+        NotificationConfigEntity config = NotificationConfigEntity.builder()
+                .tenantId(1L)
+                .emailEnabled(true)
+                .defaultToEmail("to@example.com")
+                .build();
+        when(processedEventFilter.mightContain("evt-new")).thenReturn(false);
+        when(configResolver.resolve(1L, null)).thenReturn(Optional.of(config));
+
+        notificationHandler.handle(payload);
+
+        verify(processedEventRepository, never()).existsById(any());
+        verify(emailSender).send(any(), any());
+        verify(processedEventRepository).save(any());
+        verify(processedEventFilter).put("evt-new");
+    }
+
+    @Test
+    void handleBatch_filterRulesOutAllIds_skipsInQuery() {
+        AppointmentEventPayload event = AppointmentEventPayload.builder()
+                .eventId("b-new")
+                .tenantId(1L)
+                .appointmentId(10L)
+                .eventType(AppointmentEventPayload.EVENT_CREATED)
+                .build();
+        when(processedEventFilter.mightContain("b-new")).thenReturn(false);
+        when(configResolver.resolve(1L, null)).thenReturn(Optional.empty());
+
+        notificationHandler.handleBatch(List.of(event));
+
+        verify(processedEventRepository, never()).findExistingEventIds(any());
+    }
+
+    @Test
+    void handle_tenantTemplate_rendersSubjectTextAndHtml() {
+        AppointmentEventPayload payload = AppointmentEventPayload.builder()
+                .eventId("evt-tpl")
+                .tenantId(1L)
+                .appointmentId(42L)
+                .eventType(AppointmentEventPayload.EVENT_CREATED)
+                .startTime(LocalDateTime.of(2025, 6, 1, 10, 0))
+                .build();
+        NotificationConfigEntity config = NotificationConfigEntity.builder()
+                .tenantId(1L)
+                .emailEnabled(true)
+                .defaultToEmail("to@example.com")
+                .build();
+        when(processedEventRepository.existsById("evt-tpl")).thenReturn(false);
+        when(configResolver.resolve(1L, null)).thenReturn(Optional.of(config));
+        when(templateRepository.findByTenantIdAndEventType(1L, AppointmentEventPayload.EVENT_CREATED))
+                .thenReturn(Optional.of(NotificationTemplateEntity.builder()
+                        .tenantId(1L)
+                        .eventType(AppointmentEventPayload.EVENT_CREATED)
+                        .subjectTemplate("Sunrise Therapy: booking #{{appointmentId}}")
+                        .textTemplate("See you at {{startTime}}")
+                        .htmlTemplate("<b>See you at {{startTime}}</b>")
+                        .build()));
+
+        notificationHandler.handle(payload);
+
+        ArgumentCaptor<EmailRequest> emailCaptor = ArgumentCaptor.forClass(EmailRequest.class);
+        verify(emailSender).send(emailCaptor.capture(), any());
+        assertThat(emailCaptor.getValue().getSubject()).isEqualTo("Sunrise Therapy: booking #42");
+        assertThat(emailCaptor.getValue().getBody()).isEqualTo("See you at 2025-06-01 10:00");
+        assertThat(emailCaptor.getValue().getHtmlBody()).isEqualTo("<b>See you at 2025-06-01 10:00</b>");
+    }
+
+    @Test
+    void handle_oneChannelFails_recordsDeliveredChannelAndThrows() {
+        AppointmentEventPayload payload = batchEvent("evt-partial");
+        when(processedEventRepository.existsById("evt-partial")).thenReturn(false);
+        when(configResolver.resolve(1L, 5L)).thenReturn(Optional.of(bothChannelsConfig()));
+        when(whatsAppSender.send(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("provider 503")));
+
+        assertThatThrownBy(() -> notificationHandler.handle(payload))
+                .isInstanceOf(ChannelDeliveryException.class)
+                .extracting("failedChannels").isEqualTo(Set.of(NotificationChannel.WHATSAPP));
+
+        verify(deliveryAttemptRepository).recordAttempts("evt-partial", 1L, Set.of(NotificationChannel.EMAIL),
+                Map.of(NotificationChannel.WHATSAPP, "provider 503"));
+        verify(processedEventFilter).put("evt-partial");
+        verify(processedEventRepository, never()).save(any());
+    }
+
+    @Test
+    void handle_retryAfterPartialFailure_sendsOnlyMissingChannel() {
+        AppointmentEventPayload payload = batchEvent("evt-retry");
+        when(processedEventRepository.existsById("evt-retry")).thenReturn(false);
+        when(deliveryAttemptRepository.findAttempts("evt-retry")).thenReturn(Map.of(
+                NotificationChannel.EMAIL, attempt(NotificationChannel.EMAIL, DeliveryAttemptRepository.Status.DELIVERED),
+                NotificationChannel.WHATSAPP, attempt(NotificationChannel.WHATSAPP, DeliveryAttemptRepository.Status.FAILED)));
+        when(configResolver.resolve(1L, 5L)).thenReturn(Optional.of(bothChannelsConfig()));
+
+        notificationHandler.handle(payload);
+
+        verifyNoInteractions(emailSender);
+        verify(whatsAppSender).send(any(), any());
+        verify(deliveryAttemptRepository).recordAttempts("evt-retry", 1L, Set.of(NotificationChannel.WHATSAPP), Map.of());
+        verify(processedEventRepository).save(any());
+    }
+
+    @Test
+    void handle_definitelyNewEvent_skipsDeliveredChannelLookup() {
+        AppointmentEventPayload payload = batchEvent("evt-fresh");
+        when(processedEventFilter.mightContain("evt-fresh")).thenReturn(false);
+        when(configResolver.resolve(1L, 5L)).thenReturn(Optional.of(bothChannelsConfig()));
+
+        notificationHandler.handle(payload);
+
+        verifyNoInteractions(deliveryAttemptRepository);
+        verify(emailSender).send(any(), any());
+        verify(whatsAppSender).send(any(), any());
+    }
+
+    @Test
+    void handle_slowChannel_timesOutWithoutDelayingTheOther() {
+        AppointmentEventPayload payload = batchEvent("evt-slow");
+        CompletableFuture<Void> slowEmail = new CompletableFuture<>();
+        when(processedEventRepository.existsById("evt-slow")).thenReturn(false);
+        when(configResolver.resolve(1L, 5L)).thenReturn(Optional.of(bothChannelsConfig()));
+        when(emailSender.send(any(), any())).thenReturn(slowEmail);
+
+        assertThatThrownBy(() -> notificationHandler.handle(payload))
+                .isInstanceOf(ChannelDeliveryException.class)
+                .extracting("failedChannels").isEqualTo(Set.of(NotificationChannel.EMAIL));
+        verify(deliveryAttemptRepository).recordAttempts(eq("evt-slow"), eq(1L), eq(Set.of(NotificationChannel.WHATSAPP)),
+                argThat(failures -> failures.keySet().equals(Set.of(NotificationChannel.EMAIL))));
+
+        slowEmail.complete(null);
+
+        verify(deliveryAttemptRepository).markDelivered("evt-slow", 1L, NotificationChannel.EMAIL);
+    }
+
+    @Test
+    void handleBatch_loadsDeliveryAttemptsInOneQuery() {
+        when(processedEventRepository.findExistingEventIds(anyCollection())).thenReturn(Set.of("evt-done"));
+        when(deliveryAttemptRepository.findAttempts(anyCollection())).thenReturn(Map.of("evt-half",
+                Map.of(NotificationChannel.EMAIL, attempt(NotificationChannel.EMAIL, DeliveryAttemptRepository.Status.DELIVERED))));
+        when(configResolver.resolve(1L, 5L)).thenReturn(Optional.of(bothChannelsConfig()));
+
+        notificationHandler.handleBatch(List.of(batchEvent("evt-done"), batchEvent("evt-half")));
+
+        ArgumentCaptor<Collection<String>> idsCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(deliveryAttemptRepository).findAttempts(idsCaptor.capture());
+        assertThat(idsCaptor.getValue()).containsExactly("evt-half");
+        verifyNoInteractions(emailSender);
+        verify(whatsAppSender, times(1)).send(any(), any());
+    }
+
+    private static DeliveryAttemptRepository.Attempt attempt(NotificationChannel channel, DeliveryAttemptRepository.Status status) {
+        return new DeliveryAttemptRepository.Attempt(channel, status, 1);
+    }
+
+    private static NotificationConfigEntity bothChannelsConfig() {
+        return NotificationConfigEntity.builder()
+                .tenantId(1L)
+                .emailEnabled(true)
+                .emailFrom("from@example.com")
+                .smtpHost("smtp.example.com")
+                .defaultToEmail("to@example.com")
+                .whatsappEnabled(true)
+                .whatsappPhoneOrApiKey("key")
+                .defaultToPhone("+1234567890")
+                .build();
+    }
+}
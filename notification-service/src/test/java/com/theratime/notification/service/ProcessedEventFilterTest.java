@@ -0,0 +1,149 @@
+package com.theratime.notification.service;
+
+import com.theratime.notification.repository.ProcessedEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProcessedEventFilterTest {
+
+    @Mock
+    private ProcessedEventRepository repository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ProcessedEventFilter filter;
+
+    @AfterEach
+    void tearDown() {
+        if (filter != null) {
+            filter.shutdown();
+        }
+    }
+
+    @Test
+    void mightContain_beforeFirstRebuild_alwaysTrue() {
+        filter = newFilter(true);
+
+        assertThat(filter.mightContain("never-seen")).isTrue();
+        assertThat(meterRegistry.counter("notification.idempotency.filter", "result", "not_ready").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void rebuild_loadsRecentIdsAndAnswersDefinitelyNew() {
+        filter = newFilter(true);
+        loadIds("e1", "e2");
+
+        filter.rebuild();
+
+        assertThat(filter.isReady()).isTrue();
+        assertThat(filter.mightContain("e1")).isTrue();
+        assertThat(filter.mightContain("e2")).isTrue();
+        assertThat(filter.mightContain("e3")).isFalse();
+        verify(repository).forEachEventIdSince(any(Instant.class), any());
+    }
+
+    @Test
+    void put_afterRebuild_isRemembered() {
+        filter = newFilter(true);
+        loadIds();
+        filter.rebuild();
+
+        filter.put("later");
+
+        assertThat(filter.mightContain("later")).isTrue();
+    }
+
+    @Test
+    void put_duringRebuild_survivesSwap() {
+        filter = newFilter(true);
+        doAnswer(invocation -> {
+            filter.put("written-while-loading");
+            return null;
+        }).when(repository).forEachEventIdSince(any(Instant.class), any());
+
+        filter.rebuild();
+
+        assertThat(filter.mightContain("written-while-loading")).isTrue();
+    }
+
+    @Test
+    void markStale_duringRebuild_keepsFilterNotReady() {
+        filter = newFilter(true);
+        doAnswer(invocation -> {
+            filter.markStale();
+            return null;
+        }).when(repository).forEachEventIdSince(any(Instant.class), any());
+
+        filter.rebuild();
+
+        assertThat(filter.isReady()).isFalse();
+        assertThat(filter.mightContain("anything")).isTrue();
+    }
+
+    @Test
+    void rebuild_failure_leavesFilterNotReady() {
+        filter = newFilter(true);
+        doThrow(new IllegalStateException("db down")).when(repository).forEachEventIdSince(any(Instant.class), any());
+
+        filter.rebuild();
+
+        assertThat(filter.isReady()).isFalse();
+    }
+
+    @Test
+    void disabled_neverRulesOutAndNeverLoads() {
+        filter = newFilter(false);
+
+        filter.rebuildAsync();
+        filter.put("e1");
+
+        assertThat(filter.mightContain("other")).isTrue();
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void bloomBits_falsePositiveRateStaysNearTarget() {
+        ProcessedEventFilter.BloomBits bits = new ProcessedEventFilter.BloomBits(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            bits.put("tenant-1:appointment-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (bits.mightContain("tenant-2:appointment-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(falsePositives).isLessThan(300);
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(bits.mightContain("tenant-1:appointment-" + i)).isTrue();
+        }
+    }
+
+    private ProcessedEventFilter newFilter(boolean enabled) {
+        return new ProcessedEventFilter(repository, meterRegistry, enabled, 10_000, 0.01, 7);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void loadIds(String... ids) {
+        doAnswer(invocation -> {
+            Consumer<String> action = invocation.getArgument(1);
+            for (String id : ids) {
+                action.accept(id);
+            }
+            return null;
+        }).when(repository).forEachEventIdSince(any(Instant.class), any());
+    }
+}
@@ -0,0 +1,65 @@
+package com.theratime.notification.template;
+
+import com.theratime.notification.event.AppointmentEventPayload;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompiledTemplateTest {
+
+    private final AppointmentEventPayload event = AppointmentEventPayload.builder()
+            .tenantId(1L)
+            .appointmentId(42L)
+            .therapistId(5L)
+            .userId(7L)
+            .eventType(AppointmentEventPayload.EVENT_CREATED)
+            .startTime(LocalDateTime.of(2025, 6, 1, 10, 0))
+            .endTime(LocalDateTime.of(2025, 6, 1, 11, 0))
+            .status("BOOKED")
+            .build();
+
+    @Test
+    void render_substitutesAllPlaceholders() {
+        CompiledTemplate template = CompiledTemplate.compile(
+                "#{{appointmentId}} {{ startTime }}-{{endTime}} t={{therapistId}} u={{userId}} {{tenantId}} {{eventType}} {{status}}", false);
+
+        assertThat(template.render(event))
+                .isEqualTo("#42 2025-06-01 10:00-2025-06-01 11:00 t=5 u=7 1 appointment.created BOOKED");
+    }
+
+    @Test
+    void render_withoutPlaceholders_returnsLiteral() {
+        assertThat(CompiledTemplate.compile("Appointment booked", false).render(event)).isEqualTo("Appointment booked");
+    }
+
+    @Test
+    void render_nullTimes_renderDash() {
+        AppointmentEventPayload noTimes = AppointmentEventPayload.builder().appointmentId(1L).build();
+
+        assertThat(CompiledTemplate.compile("{{startTime}} - {{endTime}}", false).render(noTimes)).isEqualTo("- - -");
+    }
+
+    @Test
+    void render_html_escapesValuesButNotLiterals() {
+        AppointmentEventPayload withMarkup = AppointmentEventPayload.builder().status("<script>").build();
+
+        assertThat(CompiledTemplate.compile("<p>{{status}}</p>", true).render(withMarkup))
+                .isEqualTo("<p>&lt;script&gt;</p>");
+    }
+
+    @Test
+    void compile_unknownPlaceholder_fails() {
+        assertThatThrownBy(() -> CompiledTemplate.compile("Hi {{patientName}}", false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("patientName");
+    }
+
+    @Test
+    void compile_unterminatedPlaceholder_fails() {
+        assertThatThrownBy(() -> CompiledTemplate.compile("Hi {{userId", false))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,107 @@
+package com.theratime.notification.template;
+
+import com.theratime.notification.entity.NotificationTemplateEntity;
+import com.theratime.notification.event.AppointmentEventPayload;
+import com.theratime.notification.repository.NotificationTemplateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationTemplatesTest {
+
+    @Mock
+    private NotificationTemplateRepository repository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private NotificationTemplates templates;
+
+    @BeforeEach
+    void setUp() {
+        templates = new NotificationTemplates(repository, meterRegistry, Duration.ofMinutes(5), 100);
+    }
+
+    @Test
+    void render_noTenantTemplate_usesBuiltInForEventType() {
+        when(repository.findByTenantIdAndEventType(1L, AppointmentEventPayload.EVENT_CANCELLED)).thenReturn(Optional.empty());
+
+        RenderedNotification rendered = templates.render(event(AppointmentEventPayload.EVENT_CANCELLED));
+
+        assertThat(rendered.subject()).isEqualTo("Appointment cancelled");
+        assertThat(rendered.text()).isEqualTo("Appointment id: 42 | - - - | Therapist: 5 | User: 7");
+        assertThat(rendered.html()).isNull();
+    }
+
+    @Test
+    void render_partialTenantTemplate_fallsBackPerField() {
+        when(repository.findByTenantIdAndEventType(1L, AppointmentEventPayload.EVENT_CREATED))
+                .thenReturn(Optional.of(NotificationTemplateEntity.builder()
+                        .subjectTemplate("Booked #{{appointmentId}}")
+                        .build()));
+
+        RenderedNotification rendered = templates.render(event(AppointmentEventPayload.EVENT_CREATED));
+
+        assertThat(rendered.subject()).isEqualTo("Booked #42");
+        assertThat(rendered.text()).startsWith("Appointment id: 42");
+    }
+
+    @Test
+    void render_invalidTenantTemplate_fallsBackToBuiltIn() {
+        when(repository.findByTenantIdAndEventType(1L, AppointmentEventPayload.EVENT_CREATED))
+                .thenReturn(Optional.of(NotificationTemplateEntity.builder()
+                        .subjectTemplate("Hi {{unknown}}")
+                        .build()));
+
+        assertThat(templates.render(event(AppointmentEventPayload.EVENT_CREATED)).subject()).isEqualTo("Appointment booked");
+    }
+
+    @Test
+    void render_unknownOrNullEventType_usesGenericSubjectWithoutLookup() {
+        AppointmentEventPayload noType = event(null);
+
+        assertThat(templates.render(noType).subject()).isEqualTo("Appointment update");
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void render_compilesOncePerTenantAndEventType() {
+        when(repository.findByTenantIdAndEventType(1L, AppointmentEventPayload.EVENT_CREATED)).thenReturn(Optional.empty());
+
+        templates.render(event(AppointmentEventPayload.EVENT_CREATED));
+        templates.render(event(AppointmentEventPayload.EVENT_CREATED));
+        templates.render(event(AppointmentEventPayload.EVENT_CREATED));
+
+        verify(repository, times(1)).findByTenantIdAndEventType(1L, AppointmentEventPayload.EVENT_CREATED);
+        assertThat(meterRegistry.counter("notification.template.cache.hits").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void invalidateTenant_reloadsTemplates() {
+        when(repository.findByTenantIdAndEventType(1L, AppointmentEventPayload.EVENT_CREATED)).thenReturn(Optional.empty());
+        templates.render(event(AppointmentEventPayload.EVENT_CREATED));
+
+        templates.invalidateTenant(1L);
+        templates.render(event(AppointmentEventPayload.EVENT_CREATED));
+
+        verify(repository, times(2)).findByTenantIdAndEventType(1L, AppointmentEventPayload.EVENT_CREATED);
+    }
+
+    private static AppointmentEventPayload event(String eventType) {
+        return AppointmentEventPayload.builder()
+                .tenantId(1L)
+                .appointmentId(42L)
+                .therapistId(5L)
+                .userId(7L)
+                .eventType(eventType)
+                .build();
+    }
+}
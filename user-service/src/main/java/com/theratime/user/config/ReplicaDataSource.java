@@ -0,0 +1,85 @@
+package com.theratime.user.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Read-only target for read-only transactions (see {@link ReplicaDataSourceConfig}): hands out replica connections
+ * while the replica's replay lag is within {@code app.datasource.replica.max-lag-ms}, otherwise primary
+ * connections. Lag is sampled every {@code app.datasource.replica.lag-check-interval-ms}; until the first good
+ * sample, or when the replica is unreachable, reads go to the primary.
+ */
+@Slf4j
+public class ReplicaDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    /** Zero when everything received has been replayed, so an idle primary does not look like lag. */
+    static final String LAG_SQL = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private final DataSource primary;
+    private final double maxLagSeconds;
+
+    private volatile boolean usable;
+
+    public ReplicaDataSource(DataSource replica, DataSource primary, Duration maxLag) {
+        super(replica);
+        this.primary = primary;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (usable) {
+            try {
+                return super.getConnection();
+            } catch (SQLException e) {
+                usable = false;
+                log.warn("Read replica unavailable, reading from primary until the next lag check: {}", e.getMessage());
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return usable ? super.getConnection(username, password) : primary.getConnection(username, password);
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval-ms:5000}")
+    public void checkLag() {
+        try (Connection connection = super.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(LAG_SQL)) {
+            double lag = resultSet.next() ? resultSet.getDouble(1) : 0;
+            boolean withinLimit = lag <= maxLagSeconds;
+            if (withinLimit != usable) {
+                log.info("Read replica lag {}s (max {}s): reads go to {}", lag, maxLagSeconds, withinLimit ? "replica" : "primary");
+            }
+            usable = withinLimit;
+        } catch (SQLException e) {
+            if (usable) {
+                log.warn("Read replica lag check failed, reading from primary: {}", e.getMessage());
+            }
+            usable = false;
+        }
+    }
+
+    boolean isUsable() {
+        return usable;
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
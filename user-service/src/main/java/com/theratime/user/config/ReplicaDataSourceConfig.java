@@ -0,0 +1,62 @@
+package com.theratime.user.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * With {@code app.datasource.replica.enabled=true}, {@code @Transactional(readOnly = true)} work (the user lookups
+ * behind {@code GET /user/{id}}, called by appointment-service on every request) is routed to the replica pool:
+ * {@link LazyConnectionDataSourceProxy} fetches the physical connection on first use, after the transaction has
+ * marked it read-only, and takes it from the {@link ReplicaDataSource} (which falls back to the primary when the
+ * replica lags). Without the property, Boot's own DataSource is used unchanged.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    public DataSource targetDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().build();
+    }
+
+    @Bean
+    public ReplicaDataSource replicaDataSource(@Qualifier("targetDataSource") DataSource targetDataSource,
+                                               DataSourceProperties properties,
+                                               @Value("${app.datasource.replica.url}") String url,
+                                               @Value("${app.datasource.replica.username:${spring.datasource.username}}") String username,
+                                               @Value("${app.datasource.replica.password:${spring.datasource.password}}") String password,
+                                               @Value("${app.datasource.replica.maximum-pool-size:10}") int maximumPoolSize,
+                                               @Value("${app.datasource.replica.max-lag-ms:5000}") long maxLagMs) {
+        HikariDataSource replica = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        replica.setPoolName("replica");
+        replica.setMaximumPoolSize(maximumPoolSize);
+        replica.setReadOnly(true);
+        return new ReplicaDataSource(replica, targetDataSource, Duration.ofMillis(maxLagMs));
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("targetDataSource") DataSource targetDataSource,
+                                 ReplicaDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(targetDataSource);
+        routing.setReadOnlyDataSource(replicaDataSource);
+        return routing;
+    }
+}
@@ -7,6 +7,7 @@ import com.theratime.user.model.User;
 import com.theratime.user.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -26,11 +27,13 @@ public class UserService {
     }
 
 
+    @Transactional(readOnly = true)
     public Optional<User> getUserByEmailId(String email) {
         return userRepository.findByEmail(email)
                 .map(this::mapToModel);
     }
 
+    @Transactional(readOnly = true)
     public Optional<User> getUserById(Long id) {
         Optional<UserEntity> userEntity = userRepository.findById(id);
         return userEntity.map(this::mapToModel);
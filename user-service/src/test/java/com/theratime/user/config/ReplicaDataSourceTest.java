@@ -0,0 +1,87 @@
+package com.theratime.user.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class ReplicaDataSourceTest {
+
+    private DataSource replica;
+    private DataSource primary;
+    private Connection replicaConnection;
+    private Connection primaryConnection;
+    private ResultSet lagResult;
+    private ReplicaDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        replica = mock(DataSource.class);
+        primary = mock(DataSource.class);
+        replicaConnection = mock(Connection.class);
+        primaryConnection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        lagResult = mock(ResultSet.class);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replicaConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(ReplicaDataSource.LAG_SQL)).thenReturn(lagResult);
+        when(lagResult.next()).thenReturn(true);
+        dataSource = new ReplicaDataSource(replica, primary, Duration.ofSeconds(5));
+    }
+
+    @Test
+    void getConnection_beforeFirstLagCheck_usesPrimary() throws SQLException {
+        assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void getConnection_whenLagWithinLimit_usesReplica() throws SQLException {
+        when(lagResult.getDouble(1)).thenReturn(1.5);
+
+        dataSource.checkLag();
+
+        assertThat(dataSource.getConnection()).isSameAs(replicaConnection);
+    }
+
+    @Test
+    void getConnection_whenReplicaLags_fallsBackToPrimary() throws SQLException {
+        when(lagResult.getDouble(1)).thenReturn(1.0, 30.0);
+        dataSource.checkLag();
+        assertThat(dataSource.isUsable()).isTrue();
+
+        dataSource.checkLag();
+
+        assertThat(dataSource.isUsable()).isFalse();
+        assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void getConnection_whenReplicaConnectionFails_fallsBackToPrimaryUntilNextCheck() throws SQLException {
+        when(lagResult.getDouble(1)).thenReturn(0.0);
+        dataSource.checkLag();
+        when(replica.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+        assertThat(dataSource.isUsable()).isFalse();
+    }
+
+    @Test
+    void checkLag_whenQueryFails_marksReplicaUnusable() throws SQLException {
+        when(lagResult.getDouble(1)).thenReturn(0.0);
+        dataSource.checkLag();
+        when(lagResult.next()).thenThrow(new SQLException("recovery conflict"));
+
+        dataSource.checkLag();
+
+        assertThat(dataSource.isUsable()).isFalse();
+    }
+}